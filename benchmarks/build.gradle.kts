@@ -0,0 +1,35 @@
+plugins {
+    application
+    alias(libs.plugins.kotlinJvm)
+    alias(libs.plugins.kotlinSerialization)
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+kotlin {
+    jvmToolchain(17)
+}
+
+dependencies {
+    implementation(project(":solver"))
+    implementation(libs.kotlinx.serialization)
+
+    testImplementation(libs.junit)
+}
+
+application {
+    // macro benchmarks, e.g. ./gradlew :benchmarks:run --args="record baseline.json"
+    mainClass.set("me.italankin.fifteen.benchmarks.macro.Main")
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    // e.g. ./gradlew :benchmarks:jmh -Pjmh.includes=Heuristics
+    (project.findProperty("jmh.includes") as String?)?.let { includes.set(listOf(it)) }
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
@@ -0,0 +1,54 @@
+package me.italankin.fifteen.benchmarks;
+
+import me.italankin.fifteen.game.BaseGame;
+import me.italankin.fifteen.game.Game;
+import me.italankin.fifteen.game.Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solvability checks, which are done for every generated game
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    @Param({"3", "4", "5", "8"})
+    public int width;
+
+    private List<Integer> state;
+    private List<Integer> goal;
+    private int[] stateArray;
+
+    @Setup
+    public void setUp() {
+        Game game = Positions.shuffled(width, width);
+        state = game.getState();
+        goal = game.getGoal();
+        stateArray = new int[state.size()];
+        for (int i = 0; i < stateArray.length; i++) {
+            stateArray[i] = state.get(i);
+        }
+    }
+
+    @Benchmark
+    public boolean isSolvable() {
+        return BaseGame.isSolvable(state, goal, width);
+    }
+
+    @Benchmark
+    public int inversionsList() {
+        return Utils.inversions(state);
+    }
+
+    @Benchmark
+    public int inversionsArray() {
+        return Utils.inversions(stateArray);
+    }
+}
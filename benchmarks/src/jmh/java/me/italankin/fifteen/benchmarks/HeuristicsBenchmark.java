@@ -0,0 +1,129 @@
+package me.italankin.fifteen.benchmarks;
+
+import me.italankin.fifteen.game.Game;
+import me.italankin.fifteen.solver.GameParameters;
+import me.italankin.fifteen.solver.PackedNode;
+import me.italankin.fifteen.solver.heuristics.*;
+import me.italankin.fifteen.solver.heuristics.pdb.PatternDatabase;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full and incremental {@link Heuristics#calc calculation} of heuristics on a shuffled 4x4 board, for both plain and
+ * {@link PackedNode packed} states. Incremental calculation is done for a state after a single move, as in
+ * {@link me.italankin.fifteen.solver.Node#children()}. {@link ComposedHeuristics} are updated from previous values of
+ * their components, {@link StatefulHeuristics} from their data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeuristicsBenchmark {
+
+    @Param({
+            "ManhattanDistance",
+            "LinearConflict",
+            "WalkingDistance",
+            "HammingDistance",
+            "EuclideanDistance",
+            "Inversions",
+            "RelaxedAdjacency",
+            "ManhattanDistance+Inversions",
+            "ManhattanDistance+LinearConflict+HammingDistance",
+            "ManhattanDistance+LinearConflict+HammingDistance(fused)",
+            "PatternDatabase555"
+    })
+    public String heuristics;
+
+    private Heuristics instance;
+    private GameParameters params;
+
+    private int[] state;
+    private long packedState;
+
+    private int[] childState;
+    private long packedChildState;
+    private int prevValue;
+    private int[] prevValues;
+    private int[] values;
+    private int prevZeroIndex;
+    private int newZeroIndex;
+
+    @Setup
+    public void setUp() {
+        // stateful heuristics are updated from their data, as in nodes
+        instance = ComposedHeuristics.incremental(create(heuristics));
+        Game game = Positions.shuffled(4, 4);
+        params = new GameParameters(game);
+        state = new int[params.size];
+        for (int i = 0; i < state.length; i++) {
+            state[i] = game.getState().get(i);
+        }
+        packedState = PackedNode.pack(state, params);
+        prevZeroIndex = game.getState().indexOf(0);
+        // move the blank to any neighbour cell
+        newZeroIndex = prevZeroIndex + params.width < params.size ? prevZeroIndex + params.width : prevZeroIndex - params.width;
+        childState = state.clone();
+        childState[prevZeroIndex] = childState[newZeroIndex];
+        childState[newZeroIndex] = 0;
+        packedChildState = PackedNode.swap(packedState, prevZeroIndex, newZeroIndex);
+        // generate tables or any other caches before measurements
+        prevValue = instance.calc(state, params);
+        instance.calc(packedState, params);
+        prevValues = ComposedHeuristics.newValues(instance);
+        values = ComposedHeuristics.newValues(instance);
+        if (prevValues != null) {
+            ((ComposedHeuristics) instance).calc(state, params, prevValues);
+        }
+    }
+
+    @Benchmark
+    public int full() {
+        return instance.calc(state, params);
+    }
+
+    @Benchmark
+    public int incremental() {
+        if (prevValues != null) {
+            return ((ComposedHeuristics) instance).calc(childState, params, prevValues, values, prevZeroIndex,
+                    newZeroIndex);
+        }
+        return instance.calc(childState, params, prevValue, prevZeroIndex, newZeroIndex);
+    }
+
+    @Benchmark
+    public int fullPacked() {
+        return instance.calc(packedState, params);
+    }
+
+    @Benchmark
+    public int incrementalPacked() {
+        if (prevValues != null) {
+            return ((ComposedHeuristics) instance).calc(packedChildState, params, prevValues, values, prevZeroIndex,
+                    newZeroIndex);
+        }
+        return instance.calc(packedChildState, params, prevValue, prevZeroIndex, newZeroIndex);
+    }
+
+    private static Heuristics create(String name) {
+        return switch (name) {
+            case "ManhattanDistance" -> new ManhattanDistance();
+            case "LinearConflict" -> new LinearConflict();
+            case "WalkingDistance" -> new WalkingDistance();
+            case "HammingDistance" -> new HammingDistance();
+            case "EuclideanDistance" -> new EuclideanDistance();
+            case "Inversions" -> new Inversions();
+            case "RelaxedAdjacency" -> new RelaxedAdjacency();
+            case "ManhattanDistance+Inversions" -> HeuristicsKt.plus(new ManhattanDistance(), new Inversions());
+            case "ManhattanDistance+LinearConflict+HammingDistance" -> HeuristicsKt.plus(
+                    HeuristicsKt.plus(new ManhattanDistance(), new LinearConflict()), new HammingDistance());
+            case "ManhattanDistance+LinearConflict+HammingDistance(fused)" ->
+                    HeuristicsKt.fuse(create("ManhattanDistance+LinearConflict+HammingDistance"));
+            case "PatternDatabase555" -> new PatternDatabase(PatternDatabase.PARTITION_4X4_555);
+            default -> throw new IllegalArgumentException("Unknown heuristics: " + name);
+        };
+    }
+}
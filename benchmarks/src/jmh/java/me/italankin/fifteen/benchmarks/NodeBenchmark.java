@@ -0,0 +1,46 @@
+package me.italankin.fifteen.benchmarks;
+
+import me.italankin.fifteen.game.Game;
+import me.italankin.fifteen.solver.GameParameters;
+import me.italankin.fifteen.solver.Node;
+import me.italankin.fifteen.solver.heuristics.ManhattanDistance;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expansion of a node, including allocation of children and incremental calculation of their heuristics.
+ * Packed nodes are used only for boards, which {@link me.italankin.fifteen.solver.PackedNode#isSupported support}
+ * them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeBenchmark {
+
+    @Param({"3", "4", "5"})
+    public int width;
+
+    @Param({"true", "false"})
+    public boolean packed;
+
+    private Node node;
+
+    @Setup
+    public void setUp() {
+        Game game = Positions.shuffled(width, width);
+        GameParameters params = new GameParameters(game);
+        ManhattanDistance heuristics = new ManhattanDistance();
+        Node root = packed ? Node.create(game, params, heuristics) : new Node(game, params, heuristics);
+        // root has no parent, use its child to measure the common case
+        node = root.children()[0];
+    }
+
+    @Benchmark
+    public Node[] children() {
+        return node.children();
+    }
+}
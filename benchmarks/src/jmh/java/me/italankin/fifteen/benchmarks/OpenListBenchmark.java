@@ -0,0 +1,75 @@
+package me.italankin.fifteen.benchmarks;
+
+import me.italankin.fifteen.game.Game;
+import me.italankin.fifteen.solver.GameParameters;
+import me.italankin.fifteen.solver.Node;
+import me.italankin.fifteen.solver.algorithm.astar.AStar;
+import me.italankin.fifteen.solver.algorithm.astar.OpenList;
+import me.italankin.fifteen.solver.heuristics.ManhattanDistance;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds {@code size} nodes of a 4x4 search graph to an {@link OpenList} in random order and polls all of them
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenListBenchmark {
+
+    @Param({"buckets", "priorityQueue"})
+    public String openList;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private OpenList.Factory factory;
+    private Node start;
+    private Node[] nodes;
+
+    @Setup
+    public void setUp() {
+        factory = switch (openList) {
+            case "buckets" -> OpenList.buckets();
+            case "priorityQueue" -> OpenList.priorityQueue(new AStar.DefaultNodeComparator());
+            default -> throw new IllegalArgumentException("Unknown open list: " + openList);
+        };
+        Game game = Positions.shuffled(4, 4);
+        start = Node.create(game, new GameParameters(game), new ManhattanDistance());
+        List<Node> result = new ArrayList<>(size);
+        ArrayDeque<Node> queue = new ArrayDeque<>();
+        queue.add(start);
+        while (result.size() < size) {
+            Node node = queue.poll();
+            result.add(node);
+            for (Node child : node.children()) {
+                if (child == null) break;
+                queue.add(child);
+            }
+        }
+        Collections.shuffle(result, new Random(Positions.SEED));
+        nodes = result.toArray(new Node[0]);
+    }
+
+    @Benchmark
+    public Node addPoll() {
+        OpenList list = factory.create(start);
+        for (Node node : nodes) {
+            list.add(node);
+        }
+        Node last = null;
+        while (!list.isEmpty()) {
+            last = list.poll();
+        }
+        return last;
+    }
+}
@@ -0,0 +1,34 @@
+package me.italankin.fifteen.benchmarks;
+
+import kotlin.random.RandomKt;
+import me.italankin.fifteen.game.ClassicGame;
+import me.italankin.fifteen.game.Game;
+import me.italankin.fifteen.game.scrambler.RandomMovesScrambler;
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler;
+
+/**
+ * Fixed positions for benchmarks, so results are comparable between runs and commits
+ */
+final class Positions {
+
+    static final long SEED = 42;
+
+    private Positions() {
+    }
+
+    /**
+     * @return randomly shuffled {@link ClassicGame}
+     */
+    static Game shuffled(int width, int height) {
+        return new ClassicGame(width, height, false, new ShuffleScrambler(SEED));
+    }
+
+    /**
+     * @return {@link ClassicGame}, scrambled by {@code moves} random moves, which is cheaper to solve than a
+     * {@link #shuffled(int, int) shuffled} one
+     */
+    static Game randomMoves(int width, int height, int moves) {
+        return new ClassicGame(width, height, false,
+                new RandomMovesScrambler(moves, false, RandomKt.Random(SEED)));
+    }
+}
@@ -0,0 +1,61 @@
+package me.italankin.fifteen.benchmarks;
+
+import me.italankin.fifteen.game.Game;
+import me.italankin.fifteen.solver.GameParameters;
+import me.italankin.fifteen.solver.Node;
+import me.italankin.fifteen.solver.algorithm.Algorithm;
+import me.italankin.fifteen.solver.algorithm.astar.AStar;
+import me.italankin.fifteen.solver.algorithm.idastar.IDAStar;
+import me.italankin.fifteen.solver.heuristics.Heuristics;
+import me.italankin.fifteen.solver.heuristics.LinearConflict;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short end-to-end solves of fixed positions:
+ * <ul>
+ *     <li>{@code 3x3} - shuffled 3x3 board</li>
+ *     <li>{@code 4x4} - 4x4 board, scrambled by 40 random moves</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+
+    @Param({"AStar", "IDAStar"})
+    public String algorithm;
+
+    @Param({"3x3", "4x4"})
+    public String position;
+
+    private Algorithm instance;
+    private Game game;
+    private GameParameters params;
+    private Heuristics heuristics;
+
+    @Setup
+    public void setUp() {
+        instance = switch (algorithm) {
+            case "AStar" -> new AStar();
+            case "IDAStar" -> new IDAStar();
+            default -> throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        };
+        game = switch (position) {
+            case "3x3" -> Positions.shuffled(3, 3);
+            case "4x4" -> Positions.randomMoves(4, 4, 40);
+            default -> throw new IllegalArgumentException("Unknown position: " + position);
+        };
+        params = new GameParameters(game);
+        heuristics = new LinearConflict();
+    }
+
+    @Benchmark
+    public Algorithm.Result solve() {
+        return instance.run(Node.create(game, params, heuristics));
+    }
+}
@@ -0,0 +1,92 @@
+package me.italankin.fifteen.benchmarks.macro
+
+import kotlinx.serialization.Serializable
+import kotlinx.serialization.encodeToString
+import kotlinx.serialization.json.Json
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * Results of a [MacroBenchmark] run, which can be stored and [compared][Comparison] with later runs.
+ *
+ * Every metric contains one value per measured round.
+ */
+@Serializable
+class Baseline(
+    val environment: String,
+    val warmupRounds: Int,
+    val rounds: Int,
+    val workloads: List<WorkloadResult>
+) {
+
+    companion object {
+
+        private val json = Json {
+            prettyPrint = true
+            ignoreUnknownKeys = true
+        }
+
+        fun read(file: Path): Baseline = json.decodeFromString(Files.readString(file))
+
+        /**
+         * @return description of the current JVM and machine
+         */
+        fun currentEnvironment(): String {
+            return "${System.getProperty("java.vm.name")} ${System.getProperty("java.vm.version")}, " +
+                    "${System.getProperty("os.name")} ${System.getProperty("os.arch")}, " +
+                    "${Runtime.getRuntime().availableProcessors()} CPUs"
+        }
+    }
+
+    fun write(file: Path) {
+        Files.writeString(file, json.encodeToString(this))
+    }
+
+    @Serializable
+    class WorkloadResult(
+        val name: String,
+        val solvers: List<SolverResult>
+    )
+
+    @Serializable
+    class SolverResult(
+        val solver: String,
+        /**
+         * Average solve time (in ms)
+         */
+        val timeMs: List<Double>,
+        /**
+         * Average number of explored nodes
+         */
+        val nodesExplored: List<Double>,
+        /**
+         * Average bytes, allocated by a solving thread, empty if not supported by the JVM
+         */
+        val allocatedBytes: List<Double>,
+        /**
+         * Max heap use of the solver's session (in bytes), empty in baselines, which were recorded without it
+         */
+        val memoryMaxBytes: List<Double> = emptyList(),
+        /**
+         * Number of failed solves
+         */
+        val errors: Int = 0
+    ) {
+
+        fun values(metric: Metric): List<Double> {
+            return when (metric) {
+                Metric.TIME -> timeMs
+                Metric.NODES_EXPLORED -> nodesExplored
+                Metric.ALLOCATED_BYTES -> allocatedBytes
+                Metric.MEMORY_MAX -> memoryMaxBytes
+            }
+        }
+    }
+
+    enum class Metric(val title: String) {
+        TIME("time (ms)"),
+        NODES_EXPLORED("nodes explored"),
+        ALLOCATED_BYTES("allocated bytes"),
+        MEMORY_MAX("max memory (bytes)"),
+    }
+}
@@ -0,0 +1,144 @@
+package me.italankin.fifteen.benchmarks.macro
+
+import me.italankin.fifteen.benchmarks.macro.Baseline.Metric
+import kotlin.math.abs
+import kotlin.math.sqrt
+
+/**
+ * Compares [current] results with a [baseline] for every workload, solver and [Metric], which are present in both.
+ *
+ * A change is [significant][Change.isSignificant], if one-sided Welch's t-test rejects the hypothesis, that means
+ * of rounds are equal, at 95% confidence. Since deterministic metrics (e.g. nodes explored) have no variance, their
+ * changes are significant whenever the means differ.
+ *
+ * @param threshold minimum relative change of the mean, which is reported as a regression or an improvement, so
+ * small but consistent differences are ignored
+ */
+class Comparison(
+    private val baseline: Baseline,
+    private val current: Baseline,
+    private val threshold: Double = 0.05
+) {
+
+    companion object {
+
+        /**
+         * One-sided 95% critical values of Student's t-distribution for 1..30 degrees of freedom
+         */
+        private val T_95 = doubleArrayOf(
+            6.314, 2.920, 2.353, 2.132, 2.015, 1.943, 1.895, 1.860, 1.833, 1.812,
+            1.796, 1.782, 1.771, 1.761, 1.753, 1.746, 1.740, 1.734, 1.729, 1.725,
+            1.721, 1.717, 1.714, 1.711, 1.708, 1.706, 1.703, 1.701, 1.699, 1.697,
+        )
+
+        /**
+         * Critical value for large number of degrees of freedom (normal distribution)
+         */
+        private const val Z_95 = 1.645
+
+        private fun criticalValue(df: Double): Double {
+            val index = df.toInt() - 1
+            return if (index >= T_95.size) Z_95 else T_95[index.coerceAtLeast(0)]
+        }
+
+        private fun List<Double>.mean(): Double = sum() / size
+
+        private fun List<Double>.variance(): Double {
+            if (size < 2) {
+                return 0.0
+            }
+            val mean = mean()
+            return sumOf { (it - mean) * (it - mean) } / (size - 1)
+        }
+    }
+
+    init {
+        if (threshold < 0) throw IllegalArgumentException("threshold must be >= 0")
+    }
+
+    /**
+     * @return changes of all metrics, which were measured in both runs
+     */
+    fun changes(): List<Change> {
+        val result = ArrayList<Change>()
+        for (workload in current.workloads) {
+            val baseWorkload = baseline.workloads.find { it.name == workload.name } ?: continue
+            for (solver in workload.solvers) {
+                val baseSolver = baseWorkload.solvers.find { it.solver == solver.solver } ?: continue
+                for (metric in Metric.values()) {
+                    val baseValues = baseSolver.values(metric)
+                    val values = solver.values(metric)
+                    if (baseValues.isEmpty() || values.isEmpty()) continue
+                    result += change(workload.name, solver.solver, metric, baseValues, values)
+                }
+            }
+        }
+        return result
+    }
+
+    /**
+     * @return significant changes, which are worse than the baseline
+     */
+    fun regressions(): List<Change> = changes().filter(Change::isRegression)
+
+    private fun change(
+        workload: String,
+        solver: String,
+        metric: Metric,
+        baseValues: List<Double>,
+        values: List<Double>
+    ): Change {
+        val baseMean = baseValues.mean()
+        val mean = values.mean()
+        val baseVar = baseValues.variance() / baseValues.size
+        val currentVar = values.variance() / values.size
+        val stderr = sqrt(baseVar + currentVar)
+        val significant = if (stderr == 0.0) {
+            baseMean != mean
+        } else {
+            // Welch–Satterthwaite equation
+            val df = (baseVar + currentVar) * (baseVar + currentVar) /
+                    (baseVar * baseVar / (baseValues.size - 1).coerceAtLeast(1) +
+                            currentVar * currentVar / (values.size - 1).coerceAtLeast(1))
+            abs(mean - baseMean) / stderr > criticalValue(df)
+        }
+        return Change(
+            workload = workload,
+            solver = solver,
+            metric = metric,
+            baselineMean = baseMean,
+            currentMean = mean,
+            isSignificant = significant && abs(mean - baseMean) > threshold * baseMean
+        )
+    }
+
+    /**
+     * Change of the mean of a [metric], all metrics are "lower is better"
+     */
+    class Change(
+        val workload: String,
+        val solver: String,
+        val metric: Metric,
+        val baselineMean: Double,
+        val currentMean: Double,
+        val isSignificant: Boolean
+    ) {
+
+        /**
+         * Relative change of the mean, e.g. `0.1` for +10%
+         */
+        val relativeChange: Double
+            get() = if (baselineMean == 0.0) 0.0 else (currentMean - baselineMean) / baselineMean
+
+        val isRegression: Boolean
+            get() = isSignificant && currentMean > baselineMean
+
+        val isImprovement: Boolean
+            get() = isSignificant && currentMean < baselineMean
+
+        override fun toString(): String {
+            return "Change(workload=$workload, solver=$solver, metric=$metric, baseline=$baselineMean, " +
+                    "current=$currentMean, significant=$isSignificant)"
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package me.italankin.fifteen.benchmarks.macro
+
+import kotlinx.coroutines.flow.collect
+import kotlinx.coroutines.runBlocking
+import me.italankin.fifteen.solver.Session
+import me.italankin.fifteen.solver.Solver
+import me.italankin.fifteen.solver.reporter.Reporter
+
+/**
+ * Solves every [Workload] in [warmupRounds] rounds, which are discarded, and then in [rounds] measured rounds. Each
+ * warmup round is a separate [Session], in measured rounds every solver has its own [Session], so its
+ * [max memory][Session.Stats.memoryMax] is not affected by other solvers. Stats of solvers are averaged per round.
+ *
+ * @param concurrency concurrency of sessions, single thread by default to reduce noise
+ * @param log receiver of progress messages
+ */
+class MacroBenchmark(
+    private val workloads: List<Workload>,
+    private val warmupRounds: Int = 1,
+    private val rounds: Int = 5,
+    private val concurrency: Session.Concurrency = Session.Concurrency.Fixed(1),
+    private val log: (String) -> Unit = ::println
+) {
+
+    init {
+        if (workloads.isEmpty()) throw IllegalArgumentException("workloads must not be empty")
+        if (warmupRounds < 0) throw IllegalArgumentException("warmupRounds must be >= 0")
+        if (rounds <= 0) throw IllegalArgumentException("rounds must be > 0")
+        if (workloads.distinctBy(Workload::name).size != workloads.size) {
+            throw IllegalArgumentException("workload names must be unique")
+        }
+    }
+
+    fun run(): Baseline {
+        val results = workloads.map(::run)
+        return Baseline(
+            environment = Baseline.currentEnvironment(),
+            warmupRounds = warmupRounds,
+            rounds = rounds,
+            workloads = results
+        )
+    }
+
+    private fun run(workload: Workload): Baseline.WorkloadResult {
+        repeat(warmupRounds) { round ->
+            log("$workload: warmup round ${round + 1}/$warmupRounds")
+            session(workload, workload.solvers)
+        }
+        val solvers = workload.solvers.associateWith { SolverRounds() }
+        repeat(rounds) { round ->
+            log("$workload: round ${round + 1}/$rounds")
+            for ((solver, solverRounds) in solvers) {
+                // collect garbage of previous sessions, so it's not counted as memory of this one
+                System.gc()
+                val session = session(workload, listOf(solver))
+                val solverStats = session.stats.results.bySolver[solver] ?: continue
+                solverRounds.memoryMaxBytes += session.stats.memoryMax.toDouble()
+                solverRounds.errors += solverStats.total.error
+                if (solverStats.total.success == 0) {
+                    continue
+                }
+                solverRounds.timeMs += solverStats.time.avg.rawValue.toDouble()
+                solverRounds.nodesExplored += solverStats.total.avgNodesExplored.toDouble()
+                val allocatedBytes = solverStats.resources.avgAllocatedBytes
+                if (allocatedBytes >= 0) {
+                    solverRounds.allocatedBytes += allocatedBytes.toDouble()
+                }
+            }
+        }
+        return Baseline.WorkloadResult(
+            name = workload.name,
+            solvers = solvers.map { (solver, rounds) ->
+                Baseline.SolverResult(
+                    solver = solver.toString(),
+                    timeMs = rounds.timeMs,
+                    nodesExplored = rounds.nodesExplored,
+                    allocatedBytes = rounds.allocatedBytes,
+                    memoryMaxBytes = rounds.memoryMaxBytes,
+                    errors = rounds.errors
+                )
+            }
+        )
+    }
+
+    private fun session(workload: Workload, solvers: List<Solver>): Session {
+        val session = Session(
+            generator = workload.games,
+            solvers = solvers,
+            reporter = Reporter.NoOp,
+            concurrency = concurrency
+        )
+        runBlocking { session.executeStreaming().collect() }
+        return session
+    }
+
+    private class SolverRounds {
+        val timeMs = ArrayList<Double>()
+        val nodesExplored = ArrayList<Double>()
+        val allocatedBytes = ArrayList<Double>()
+        val memoryMaxBytes = ArrayList<Double>()
+        var errors = 0
+    }
+}
@@ -0,0 +1,101 @@
+@file:JvmName("Main")
+
+package me.italankin.fifteen.benchmarks.macro
+
+import me.italankin.fifteen.solver.util.Table
+import me.italankin.fifteen.solver.util.Table.Column
+import java.nio.file.Path
+import kotlin.system.exitProcess
+
+private const val USAGE = """usage: (record|compare) <baseline.json> [options]
+  record                 run benchmarks and write results to <baseline.json>
+  compare                run benchmarks and compare results with <baseline.json>, exit code is 1 on regressions
+options:
+  --workloads <list>     comma-separated workloads: 3x3, 5x5, snake, spiral, korf100 (default: all)
+  --korf100 <file>       file with instances for korf100 workload (default: bundled Korf's 100 instances)
+  --warmup <n>           number of warmup rounds (default: 1)
+  --rounds <n>           number of measured rounds (default: 5)
+  --threshold <value>    minimum relative change to report (default: 0.05)
+  --output <file>        also write current results to <file> (compare only)"""
+
+/**
+ * Command line entry point for [MacroBenchmark], see [USAGE]
+ */
+fun main(args: Array<String>) {
+    if (args.size < 2 || args[0] !in setOf("record", "compare")) {
+        exit(USAGE)
+    }
+    val mode = args[0]
+    val baselineFile = Path.of(args[1])
+    val options = args.drop(2).chunked(2).associate { option ->
+        if (option.size != 2 || !option[0].startsWith("--")) {
+            exit(USAGE)
+        }
+        option[0].removePrefix("--") to option[1]
+    }
+    val korf100 = options["korf100"]?.let(Path::of)
+    val workloadNames = options["workloads"]?.split(',')?.map(String::trim)
+        ?: listOf("3x3", "5x5", "snake", "spiral", "korf100")
+    val workloads = workloadNames.map { name ->
+        when (name) {
+            "3x3" -> Workload.seeded3x3()
+            "5x5" -> Workload.seeded5x5()
+            "snake" -> Workload.snake()
+            "spiral" -> Workload.spiral()
+            "korf100" -> if (korf100 != null) Workload.korf100(korf100) else Workload.korf100()
+            else -> exit("unknown workload: $name\n$USAGE")
+        }
+    }
+    val benchmark = MacroBenchmark(
+        workloads = workloads,
+        warmupRounds = options["warmup"]?.toInt() ?: 1,
+        rounds = options["rounds"]?.toInt() ?: 5,
+    )
+    val current = benchmark.run()
+    when (mode) {
+        "record" -> {
+            current.write(baselineFile)
+            println("baseline written to $baselineFile")
+        }
+        "compare" -> {
+            options["output"]?.let { current.write(Path.of(it)) }
+            val baseline = Baseline.read(baselineFile)
+            if (baseline.environment != current.environment) {
+                println("WARNING: baseline was recorded in a different environment: ${baseline.environment}")
+            }
+            val comparison = Comparison(baseline, current, options["threshold"]?.toDouble() ?: 0.05)
+            printChanges(comparison.changes())
+            val regressions = comparison.regressions()
+            if (regressions.isNotEmpty()) {
+                println("${regressions.size} regression(s) found")
+                exitProcess(1)
+            }
+            println("no regressions found")
+        }
+    }
+}
+
+private fun printChanges(changes: List<Comparison.Change>) {
+    val table = Table<Comparison.Change>(
+        Column("Workload") { it.workload },
+        Column("Solver") { it.solver },
+        Column("Metric") { it.metric.title },
+        Column("Baseline", Column.Align.RIGHT) { "%.3f".format(it.baselineMean) },
+        Column("Current", Column.Align.RIGHT) { "%.3f".format(it.currentMean) },
+        Column("Change (%)", Column.Align.RIGHT) { "%+.2f".format(it.relativeChange * 100) },
+        Column(null) {
+            when {
+                it.isRegression -> "REGRESSION"
+                it.isImprovement -> "improvement"
+                else -> ""
+            }
+        },
+    )
+    changes.forEach(table::append)
+    println(table)
+}
+
+private fun exit(message: String): Nothing {
+    System.err.println(message)
+    exitProcess(2)
+}
@@ -0,0 +1,165 @@
+package me.italankin.fifteen.benchmarks.macro
+
+import me.italankin.fifteen.game.BaseGame
+import me.italankin.fifteen.game.Game
+import me.italankin.fifteen.game.scrambler.RandomMovesScrambler
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler
+import me.italankin.fifteen.solver.Solver
+import me.italankin.fifteen.solver.algorithm.astar.AStar
+import me.italankin.fifteen.solver.algorithm.idastar.IDAStar
+import me.italankin.fifteen.solver.algorithm.idastar.InPlaceIDAStar
+import me.italankin.fifteen.solver.generator.*
+import me.italankin.fifteen.solver.heuristics.LinearConflict
+import me.italankin.fifteen.solver.heuristics.ManhattanDistance
+import me.italankin.fifteen.solver.heuristics.pdb.PatternDatabase
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlin.random.Random
+
+/**
+ * Fixed set of games, which is solved by every solver of [solvers] in each round of a [MacroBenchmark]
+ *
+ * @param name unique name of the workload, used to match results with a [Baseline]
+ */
+class Workload(
+    val name: String,
+    games: BoundedGameGenerator,
+    val solvers: List<Solver>
+) {
+
+    /**
+     * Games are generated once, so every round solves exactly the same positions
+     */
+    val games: BoundedGameGenerator = games.freeze()
+
+    override fun toString(): String = name
+
+    companion object {
+
+        const val DEFAULT_SEED = 42L
+
+        /**
+         * Goal of Korf's instances: the blank is in the top left corner
+         */
+        @JvmField
+        val KORF_GOAL: List<Int> = (0 until 16).toList()
+
+        /**
+         * [PatternDatabase.PARTITION_4X4_555], rotated by 180 degrees for [KORF_GOAL], which has the blank in the
+         * first cell
+         */
+        @JvmField
+        val KORF_PARTITION: List<List<Int>> = PatternDatabase.PARTITION_4X4_555.map { group -> group.map { 15 - it } }
+
+        private const val KORF100_RESOURCE = "/korf100.txt"
+
+        /**
+         * Korf's 100 4x4 instances (R. E. Korf, "Depth-first iterative-deepening: An optimal admissible tree
+         * search", 1985), bundled with the benchmarks. Goal is [KORF_GOAL].
+         */
+        fun korf100(
+            solvers: List<Solver> = listOf(Solver(PatternDatabase(KORF_PARTITION), InPlaceIDAStar()))
+        ): Workload {
+            val lines = Workload::class.java.getResourceAsStream(KORF100_RESOURCE)
+                ?.bufferedReader()
+                ?.use { it.readLines() }
+                ?: throw IllegalStateException("$KORF100_RESOURCE resource is missing")
+            return korf100(lines, KORF100_RESOURCE, solvers)
+        }
+
+        /**
+         * Korf's 100 4x4 instances, loaded from [file] instead of the bundled ones.
+         *
+         * Every non-empty line of the file must contain 16 tiles of an instance (optionally prefixed by its number),
+         * separated by whitespace, `0` is the blank, lines starting with `#` are ignored. Goal is [KORF_GOAL].
+         */
+        fun korf100(
+            file: Path,
+            solvers: List<Solver> = listOf(Solver(PatternDatabase(KORF_PARTITION), InPlaceIDAStar()))
+        ): Workload {
+            return korf100(Files.readAllLines(file), file.toString(), solvers)
+        }
+
+        private fun korf100(lines: List<String>, source: String, solvers: List<Solver>): Workload {
+            val games = lines
+                .filter { it.isNotBlank() && !it.trimStart().startsWith('#') }
+                .map<String, Game> { line ->
+                    val numbers = line.trim().split(Regex("\\s+")).map(String::toInt)
+                    val state = when (numbers.size) {
+                        16 -> numbers
+                        17 -> numbers.drop(1)
+                        else -> throw IllegalArgumentException("Invalid instance in $source: $line")
+                    }
+                    BaseGame(4, 4, state, KORF_GOAL)
+                }
+            return Workload("korf100", games.toGenerator(), solvers)
+        }
+
+        /**
+         * Randomly shuffled 3x3 games
+         */
+        fun seeded3x3(
+            count: Int = 100,
+            seed: Long = DEFAULT_SEED,
+            solvers: List<Solver> = listOf(
+                Solver(ManhattanDistance(), AStar()),
+                Solver(LinearConflict(), AStar()),
+                Solver(LinearConflict(), IDAStar()),
+            )
+        ): Workload {
+            val games = randomGames()
+                .size(3 x 3)
+                .scrambler(ShuffleScrambler(seed))
+                .bounded(count)
+            return Workload("3x3", games, solvers)
+        }
+
+        /**
+         * 5x5 games, scrambled by [moves] random moves (shuffled 5x5 games are too hard for optimal solvers)
+         */
+        fun seeded5x5(
+            count: Int = 10,
+            moves: Int = 40,
+            seed: Long = DEFAULT_SEED,
+            solvers: List<Solver> = listOf(Solver(LinearConflict(), InPlaceIDAStar()))
+        ): Workload {
+            val games = randomGames()
+                .size(5 x 5)
+                .scrambler(RandomMovesScrambler(moves, allowPrevMoveUndo = false, random = Random(seed)))
+                .bounded(count)
+            return Workload("5x5", games, solvers)
+        }
+
+        /**
+         * 4x4 games with [snake][me.italankin.fifteen.game.SnakeGame] goal, scrambled by [moves] random moves
+         */
+        fun snake(
+            count: Int = 20,
+            moves: Int = 50,
+            seed: Long = DEFAULT_SEED,
+            solvers: List<Solver> = listOf(Solver(LinearConflict(), InPlaceIDAStar()))
+        ): Workload {
+            val games = randomGames()
+                .factory(GameFactory.Snake)
+                .scrambler(RandomMovesScrambler(moves, allowPrevMoveUndo = false, random = Random(seed)))
+                .bounded(count)
+            return Workload("snake", games, solvers)
+        }
+
+        /**
+         * 4x4 games with [spiral][me.italankin.fifteen.game.SpiralGame] goal, scrambled by [moves] random moves
+         */
+        fun spiral(
+            count: Int = 20,
+            moves: Int = 50,
+            seed: Long = DEFAULT_SEED,
+            solvers: List<Solver> = listOf(Solver(LinearConflict(), InPlaceIDAStar()))
+        ): Workload {
+            val games = randomGames()
+                .factory(GameFactory.Spiral)
+                .scrambler(RandomMovesScrambler(moves, allowPrevMoveUndo = false, random = Random(seed)))
+                .bounded(count)
+            return Workload("spiral", games, solvers)
+        }
+    }
+}
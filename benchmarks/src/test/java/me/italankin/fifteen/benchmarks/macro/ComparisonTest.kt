@@ -0,0 +1,83 @@
+package me.italankin.fifteen.benchmarks.macro
+
+import me.italankin.fifteen.benchmarks.macro.Baseline.Metric
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class ComparisonTest {
+
+    @Test
+    fun regression() {
+        val baseline = baseline(timeMs = listOf(10.0, 10.2, 9.9, 10.1, 9.8))
+        val current = baseline(timeMs = listOf(12.0, 12.1, 11.9, 12.2, 11.8))
+        val regressions = Comparison(baseline, current).regressions()
+        assertEquals(1, regressions.size)
+        assertEquals(Metric.TIME, regressions[0].metric)
+        assertEquals(0.2, regressions[0].relativeChange, 1e-2)
+    }
+
+    @Test
+    fun noise() {
+        val baseline = baseline(timeMs = listOf(10.0, 14.0, 8.0, 12.0, 9.0))
+        val current = baseline(timeMs = listOf(11.0, 15.0, 9.0, 10.0, 12.0))
+        val comparison = Comparison(baseline, current)
+        assertTrue(comparison.regressions().isEmpty())
+        assertFalse(comparison.changes().first { it.metric == Metric.TIME }.isSignificant)
+    }
+
+    @Test
+    fun threshold() {
+        val baseline = baseline(timeMs = listOf(10.0, 10.0, 10.0), nodesExplored = listOf(1000.0, 1000.0, 1000.0))
+        val current = baseline(timeMs = listOf(10.1, 10.1, 10.1), nodesExplored = listOf(1200.0, 1200.0, 1200.0))
+        val regressions = Comparison(baseline, current, threshold = 0.05).regressions()
+        assertEquals(listOf(Metric.NODES_EXPLORED), regressions.map { it.metric })
+    }
+
+    @Test
+    fun improvement() {
+        val baseline = baseline(timeMs = listOf(10.0, 10.2, 9.9), allocatedBytes = listOf(1e6, 1e6, 1e6))
+        val current = baseline(timeMs = listOf(5.0, 5.1, 4.9), allocatedBytes = listOf(5e5, 5e5, 5e5))
+        val comparison = Comparison(baseline, current)
+        assertTrue(comparison.regressions().isEmpty())
+        assertEquals(2, comparison.changes().count { it.isImprovement })
+    }
+
+    @Test
+    fun memoryRegression() {
+        val baseline = baseline(timeMs = listOf(10.0, 10.0), memoryMaxBytes = listOf(1e8, 1e8))
+        val current = baseline(timeMs = listOf(10.0, 10.0), memoryMaxBytes = listOf(2e8, 2e8))
+        val regressions = Comparison(baseline, current).regressions()
+        assertEquals(listOf(Metric.MEMORY_MAX), regressions.map { it.metric })
+    }
+
+    @Test
+    fun missingSolvers() {
+        val baseline = baseline(timeMs = listOf(10.0), solver = "A")
+        val current = baseline(timeMs = listOf(20.0), solver = "B")
+        assertTrue(Comparison(baseline, current).changes().isEmpty())
+    }
+
+    private fun baseline(
+        timeMs: List<Double>,
+        nodesExplored: List<Double> = timeMs.map { 100.0 },
+        allocatedBytes: List<Double> = emptyList(),
+        memoryMaxBytes: List<Double> = emptyList(),
+        solver: String = "solver"
+    ): Baseline {
+        return Baseline(
+            environment = "test",
+            warmupRounds = 0,
+            rounds = timeMs.size,
+            workloads = listOf(
+                Baseline.WorkloadResult(
+                    name = "workload",
+                    solvers = listOf(
+                        Baseline.SolverResult(solver, timeMs, nodesExplored, allocatedBytes, memoryMaxBytes)
+                    )
+                )
+            )
+        )
+    }
+}
@@ -14,4 +14,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "fifteen-solver"
 
-include(":game", ":solver", ":example")
+include(":game", ":solver", ":example", ":benchmarks")
@@ -20,7 +20,6 @@ dependencies {
 
     api(libs.kotlinx.coroutines.core)
     implementation(libs.kotlinx.serialization)
-    implementation(libs.eclipse.collections)
 
     testImplementation(libs.junit)
 }
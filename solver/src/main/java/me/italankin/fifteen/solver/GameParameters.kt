@@ -1,23 +1,35 @@
 package me.italankin.fifteen.solver
 
 import me.italankin.fifteen.game.Game
+import me.italankin.fifteen.game.manhattan
 
-class GameParameters(val game: Game) {
-
+/**
+ * Parameters of a board, which do not depend on the game's state: dimensions, goal and lookup tables.
+ *
+ * Parameters are immutable, so games with the same dimensions and goal can share them, see [GameParametersRegistry].
+ */
+class GameParameters(
     @JvmField
-    val width: Int = game.width
-
+    val width: Int,
     @JvmField
-    val height: Int = game.height
+    val height: Int,
+    goal: List<Int>
+) {
+
+    /**
+     * Create parameters for [game]'s board. Unlike [GameParametersRegistry.get], always creates a new instance, which
+     * doesn't share caches of heuristics with other instances.
+     */
+    constructor(game: Game) : this(game.width, game.height, game.goal)
 
     @JvmField
-    val size: Int = game.size
+    val size: Int = width * height
 
     /**
      * Goal state
      */
     @JvmField
-    val goal: IntArray = game.goal.toIntArray()
+    val goal: IntArray = goal.toIntArray()
 
     /**
      * Mapping of numbers to their goal positions, e.g. for a game with goal:
@@ -32,13 +44,79 @@ class GameParameters(val game: Game) {
      * ```
      * [3, 0, 1, 2]
      * ```
+     *
+     * For games with a missing tile the goal contains [size] instead of the missing number, so the array is one
+     * element larger and the missing number is mapped to `-1`.
      */
     @JvmField
-    val goalIndices: IntArray = IntArray(goal.size)
+    val goalIndices: IntArray = IntArray(goal.max() + 1) { -1 }
 
     init {
         for (i in goal.indices) {
             goalIndices[goal[i]] = i
         }
     }
+
+    /**
+     * Row of each index
+     */
+    @JvmField
+    val rows: IntArray = IntArray(size) { it / width }
+
+    /**
+     * Column of each index
+     */
+    @JvmField
+    val columns: IntArray = IntArray(size) { it % width }
+
+    /**
+     * Goal row of each number (see [goalIndices]), `-1` for the missing number
+     */
+    @JvmField
+    val goalRows: IntArray = IntArray(goalIndices.size) { if (goalIndices[it] < 0) -1 else rows[goalIndices[it]] }
+
+    /**
+     * Goal column of each number (see [goalIndices]), `-1` for the missing number
+     */
+    @JvmField
+    val goalColumns: IntArray = IntArray(goalIndices.size) { if (goalIndices[it] < 0) -1 else columns[goalIndices[it]] }
+
+    /**
+     * Indices, where the empty cell can move from each index, in the same order as [Node.children]: down, up, left,
+     * right
+     */
+    @JvmField
+    val neighbours: Array<IntArray> = Array(size) { index ->
+        val row = rows[index]
+        val column = columns[index]
+        val result = ArrayList<Int>(4)
+        if (row < height - 1) result += index + width
+        if (row > 0) result += index - width
+        if (column > 0) result += index - 1
+        if (column < width - 1) result += index + 1
+        result.toIntArray()
+    }
+
+    /**
+     * Manhattan distance from each index to the goal index of each number: the distance of number `n` at index `i`
+     * is `manhattan[n * size + i]`. Distances of `0` and the missing number are zeros.
+     */
+    @JvmField
+    val manhattan: IntArray = IntArray(goalIndices.size * size) {
+        val n = it / size
+        val i = it % size
+        if (n == 0 || goalIndices[n] < 0) 0 else manhattan(i, goalIndices[n], width)
+    }
+
+    /**
+     * Manhattan distance from each index to each goal index, as stored in [packed][PackedNode] states: the distance
+     * of a cell with goal index `g` at index `i` is `packedManhattan[g * size + i]`. Distances of the empty cell's goal
+     * index are zeros.
+     */
+    @JvmField
+    val packedManhattan: IntArray = IntArray(size * size) {
+        val g = it / size
+        val i = it % size
+        if (g == goalIndices[0]) 0 else manhattan(i, g, width)
+    }
 }
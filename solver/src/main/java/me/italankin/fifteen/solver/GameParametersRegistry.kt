@@ -0,0 +1,67 @@
+package me.italankin.fifteen.solver
+
+import me.italankin.fifteen.game.Game
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Interning registry of [GameParameters]: games with the same width, height and goal layout (which also defines the
+ * missing tile) share one instance, along with its lookup tables and caches of heuristics, which are keyed by it.
+ *
+ * Registry is thread-safe and never evicts parameters, the number of distinct boards is usually small.
+ */
+class GameParametersRegistry {
+
+    companion object {
+
+        /**
+         * Registry for solves outside of a [Session]
+         */
+        @JvmField
+        val GLOBAL = GameParametersRegistry()
+    }
+
+    private val parameters = ConcurrentHashMap<Key, GameParameters>()
+    private val hits = LongAdder()
+    private val misses = LongAdder()
+
+    /**
+     * Number of lookups, which returned existing parameters
+     */
+    val hitCount: Long
+        get() = hits.sum()
+
+    /**
+     * Number of lookups, which created new parameters
+     */
+    val missCount: Long
+        get() = misses.sum()
+
+    /**
+     * Number of distinct parameters
+     */
+    val size: Int
+        get() = parameters.size
+
+    /**
+     * @return parameters for [game]'s board
+     */
+    fun get(game: Game): GameParameters {
+        val goal = game.goal
+        val cached = parameters[Key(game.width, game.height, goal)]
+        if (cached != null) {
+            hits.increment()
+            return cached
+        }
+        var created = false
+        // keep a copy of the goal, so the key does not depend on the game
+        val result = parameters.computeIfAbsent(Key(game.width, game.height, goal.toList())) {
+            created = true
+            GameParameters(it.width, it.height, it.goal)
+        }
+        if (created) misses.increment() else hits.increment()
+        return result
+    }
+
+    private data class Key(val width: Int, val height: Int, val goal: List<Int>)
+}
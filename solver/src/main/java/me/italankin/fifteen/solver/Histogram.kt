@@ -0,0 +1,171 @@
+package me.italankin.fifteen.solver
+
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.DoubleAdder
+import kotlin.math.ceil
+import kotlin.math.roundToLong
+
+/**
+ * Log-linear histogram of non-negative values with fixed memory and relative error below `1 / 2^`[PRECISION_BITS]
+ * (< 0.8%).
+ *
+ * Values are multiplied by [scale] and rounded to integers. Integers below `2^PRECISION_BITS` are stored exactly,
+ * every next power of two range is split into `2^PRECISION_BITS` buckets of equal width.
+ *
+ * [record] is lock-free and can be called from multiple threads. Histograms with the same [scale] can be
+ * [merged][add].
+ *
+ * @param scale multiplier for values, e.g. `1000` to keep three decimal digits
+ */
+class Histogram(val scale: Double = 1.0) {
+
+    companion object {
+
+        const val PRECISION_BITS = 7
+
+        /**
+         * Scaled values above `2^MAX_MAGNITUDE` are counted in the last bucket
+         */
+        const val MAX_MAGNITUDE = 44
+
+        private const val SUB_BUCKETS = 1 shl PRECISION_BITS
+        private const val BUCKETS = (MAX_MAGNITUDE - PRECISION_BITS + 1) * SUB_BUCKETS
+
+        private fun index(value: Long): Int {
+            if (value < SUB_BUCKETS) {
+                return value.toInt()
+            }
+            val magnitude = 63 - java.lang.Long.numberOfLeadingZeros(value)
+            if (magnitude >= MAX_MAGNITUDE) {
+                return BUCKETS - 1
+            }
+            val shift = magnitude - PRECISION_BITS
+            return ((shift + 1) shl PRECISION_BITS) + (value ushr shift).toInt() - SUB_BUCKETS
+        }
+
+        private fun lowerBound(index: Int): Long {
+            if (index < SUB_BUCKETS) {
+                return index.toLong()
+            }
+            val shift = (index ushr PRECISION_BITS) - 1
+            return ((index and (SUB_BUCKETS - 1)) + SUB_BUCKETS).toLong() shl shift
+        }
+
+        private fun width(index: Int): Long {
+            return if (index < SUB_BUCKETS) 1 else 1L shl ((index ushr PRECISION_BITS) - 1)
+        }
+    }
+
+    private val counts = AtomicLongArray(BUCKETS)
+    private val totalCount = AtomicLong()
+    private val totalSum = DoubleAdder()
+    private val minValue = AtomicLong(Long.MAX_VALUE)
+    private val maxValue = AtomicLong(Long.MIN_VALUE)
+
+    init {
+        if (scale <= 0) throw IllegalArgumentException("scale must be > 0")
+    }
+
+    /**
+     * Number of recorded values
+     */
+    val count: Long
+        get() = totalCount.get()
+
+    /**
+     * Sum of recorded values
+     */
+    val sum: Double
+        get() = totalSum.sum()
+
+    /**
+     * Minimum recorded value, or [Double.NaN] if the histogram is empty
+     */
+    val min: Double
+        get() = if (count == 0L) Double.NaN else minValue.get() / scale
+
+    /**
+     * Maximum recorded value, or [Double.NaN] if the histogram is empty
+     */
+    val max: Double
+        get() = if (count == 0L) Double.NaN else maxValue.get() / scale
+
+    /**
+     * Mean of recorded values, or [Double.NaN] if the histogram is empty
+     */
+    val mean: Double
+        get() = if (count == 0L) Double.NaN else sum / count
+
+    fun record(value: Double) {
+        if (value.isNaN() || value < 0) {
+            throw IllegalArgumentException("value must be >= 0, got: $value")
+        }
+        val scaled = (value * scale).roundToLong()
+        counts.incrementAndGet(index(scaled))
+        minValue.accumulateAndGet(scaled, Math::min)
+        maxValue.accumulateAndGet(scaled, Math::max)
+        totalSum.add(value)
+        totalCount.incrementAndGet()
+    }
+
+    /**
+     * Add all values of [other] histogram to this one
+     */
+    fun add(other: Histogram) {
+        if (scale != other.scale) {
+            throw IllegalArgumentException("Histograms have different scales: $scale and ${other.scale}")
+        }
+        if (other.count == 0L) {
+            return
+        }
+        for (i in 0 until BUCKETS) {
+            val c = other.counts.get(i)
+            if (c != 0L) {
+                counts.addAndGet(i, c)
+            }
+        }
+        minValue.accumulateAndGet(other.minValue.get(), Math::min)
+        maxValue.accumulateAndGet(other.maxValue.get(), Math::max)
+        totalSum.add(other.sum)
+        totalCount.addAndGet(other.count)
+    }
+
+    /**
+     * @return copy of this histogram, which is not affected by subsequent updates
+     */
+    fun copy(): Histogram = Histogram(scale).also { it.add(this) }
+
+    /**
+     * Value at percentile [p], that is the value of the element with index `ceil((count - 1) * p)` in sorted values
+     *
+     * @param p percentile (`[0; 1]`)
+     * @return approximate value or [Double.NaN], if the histogram is empty
+     */
+    fun percentile(p: Double): Double {
+        if (p < 0 || p > 1) {
+            throw IllegalArgumentException("p must be in range [0; 1]")
+        }
+        val count = count
+        if (count == 0L) {
+            return Double.NaN
+        }
+        val rank = ceil((count - 1) * p).toLong() + 1
+        if (rank >= count) {
+            return max
+        }
+        var seen = 0L
+        for (i in 0 until BUCKETS) {
+            seen += counts.get(i)
+            if (seen >= rank) {
+                val value = lowerBound(i) + (width(i) - 1) / 2
+                return value.coerceIn(minValue.get(), maxValue.get()) / scale
+            }
+        }
+        return max
+    }
+
+    override fun toString(): String {
+        return "Histogram(count=$count, min=$min, p50=${percentile(0.5)}, p99=${percentile(0.99)}, max=$max)"
+    }
+}
@@ -1,8 +1,10 @@
 package me.italankin.fifteen.solver;
 
+import kotlin.collections.ArraysKt;
 import kotlin.collections.CollectionsKt;
 import me.italankin.fifteen.game.Game;
 import me.italankin.fifteen.game.Utils;
+import me.italankin.fifteen.solver.heuristics.ComposedHeuristics;
 import me.italankin.fifteen.solver.heuristics.Heuristics;
 import org.jetbrains.annotations.Nullable;
 
@@ -23,39 +25,84 @@ public class Node {
      * {@link Heuristics} value of this node
      */
     public final int heuristicsValue;
+    /**
+     * Values of {@link ComposedHeuristics#getComponents() components} of {@link #heuristics}, which are needed to
+     * update each of them incrementally, {@code null} if {@link #heuristics} is not composed
+     */
+    @Nullable
+    public final int[] heuristicsComponents;
 
     /**
-     * State of the game
+     * State of the game, {@code null} for subclasses which use a different state representation
      */
-    public final int[] state;
+    private final int[] state;
     /**
      * Number of moves (depth) of this node
      */
     public final int moves;
     /**
-     * Index of <code>0</code> in {@link #state}
+     * Index of <code>0</code> in {@link #getState() state}
      */
     public final int zeroIndex;
 
     public final GameParameters gameParameters;
 
+    /**
+     * Heuristics of this node, {@link me.italankin.fifteen.solver.heuristics.StatefulHeuristics} are
+     * {@link ComposedHeuristics#incremental(Heuristics) composed} by root nodes to be updated incrementally
+     */
     public final Heuristics heuristics;
 
     private final int hashcodeValue;
 
+    /**
+     * Create a root node for {@code game}, using the most compact state representation available for the board
+     *
+     * @see PackedNode#isSupported(GameParameters)
+     */
+    public static Node create(Game game, GameParameters params, Heuristics heuristics) {
+        return create(CollectionsKt.toIntArray(game.getState()), params, heuristics);
+    }
+
+    /**
+     * Create a root node for {@code state}, using the most compact state representation available for the board
+     *
+     * @param state state of a game with {@code params}, must not be modified afterwards
+     * @see PackedNode#isSupported(GameParameters)
+     */
+    public static Node create(int[] state, GameParameters params, Heuristics heuristics) {
+        if (PackedNode.isSupported(params)) {
+            return new PackedNode(state, params, heuristics);
+        }
+        return new Node(state, params, heuristics);
+    }
+
     public Node(Game game, Heuristics heuristics) {
-        this(game, new GameParameters(game), heuristics);
+        this(game, GameParametersRegistry.GLOBAL.get(game), heuristics);
     }
 
     public Node(Game game, GameParameters params, Heuristics heuristics) {
-        this.state = CollectionsKt.toIntArray(game.getState());
+        this(CollectionsKt.toIntArray(game.getState()), params, heuristics);
+    }
+
+    /**
+     * @param state state of a game with {@code params}, must not be modified afterwards
+     */
+    public Node(int[] state, GameParameters params, Heuristics heuristics) {
+        this.state = state;
         this.gameParameters = params;
         this.moves = 0;
         this.parent = null;
-        this.zeroIndex = game.getState().indexOf(0);
-        this.heuristics = heuristics;
+        this.zeroIndex = ArraysKt.indexOf(state, 0);
+        this.heuristics = ComposedHeuristics.incremental(heuristics);
         this.hashcodeValue = Arrays.hashCode(state);
-        this.heuristicsValue = heuristics.calc(state, gameParameters);
+        this.heuristicsComponents = ComposedHeuristics.newValues(this.heuristics);
+        if (heuristicsComponents != null) {
+            this.heuristicsValue = ((ComposedHeuristics) this.heuristics).calc(state, gameParameters,
+                    heuristicsComponents);
+        } else {
+            this.heuristicsValue = heuristics.calc(state, gameParameters);
+        }
     }
 
     protected Node(int[] state,
@@ -63,7 +110,8 @@ public class Node {
             Node parent,
             int zeroIndex,
             Heuristics heuristics,
-            GameParameters gameParameters) {
+            GameParameters gameParameters,
+            int bound) {
         this.state = state;
         this.gameParameters = gameParameters;
         this.moves = moves;
@@ -71,12 +119,60 @@ public class Node {
         this.zeroIndex = zeroIndex;
         this.heuristics = heuristics;
         this.hashcodeValue = Arrays.hashCode(state);
-        this.heuristicsValue = heuristics.calc(
-                state,
-                gameParameters,
-                parent.heuristicsValue,
-                parent.zeroIndex,
-                zeroIndex);
+        this.heuristicsComponents = ComposedHeuristics.newValues(heuristics);
+        if (heuristicsComponents != null) {
+            this.heuristicsValue = ((ComposedHeuristics) heuristics).calc(
+                    state,
+                    gameParameters,
+                    parent.heuristicsComponents,
+                    heuristicsComponents,
+                    parent.zeroIndex,
+                    zeroIndex,
+                    bound);
+        } else {
+            this.heuristicsValue = heuristics.calc(
+                    state,
+                    gameParameters,
+                    parent.heuristicsValue,
+                    parent.zeroIndex,
+                    zeroIndex);
+        }
+    }
+
+    /**
+     * Constructor for subclasses, which keep state in their own format. Such subclasses must override
+     * {@link #getState()}, {@link #newMove(int, int)}, {@link #isGoal()}, {@link #lastMovedNumber()},
+     * {@link #equals(Object)} and {@link #hashCode()}.
+     *
+     * @param heuristicsComponents values of components, if {@code heuristics} is {@link ComposedHeuristics}
+     */
+    protected Node(@Nullable Node parent,
+            int moves,
+            int zeroIndex,
+            int heuristicsValue,
+            @Nullable int[] heuristicsComponents,
+            Heuristics heuristics,
+            GameParameters gameParameters) {
+        this.state = null;
+        this.gameParameters = gameParameters;
+        this.moves = moves;
+        this.parent = parent;
+        this.zeroIndex = zeroIndex;
+        this.heuristics = heuristics;
+        this.hashcodeValue = 0;
+        this.heuristicsValue = heuristicsValue;
+        this.heuristicsComponents = heuristicsComponents;
+    }
+
+    /**
+     * Subclasses may keep the state in a different format and create a new array on each call (e.g.
+     * {@link PackedNode}), so this method should not be used in hot paths, nodes should be compared with
+     * {@link #equals(Object)} instead.
+     *
+     * @return state of the game, must not be modified
+     */
+    public int[] getState() {
+        return state;
     }
 
     /**
@@ -88,28 +184,27 @@ public class Node {
      * @return child nodes, excluding {@link #parent}; may contain {@code null}s
      */
     public Node[] children() {
-        int width = gameParameters.width;
+        return children(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get children of this node, which will be pruned, if their heuristics value exceeds {@code bound}.
+     * <br/>
+     * Heuristics may stop calculation of a child's value once it exceeds {@code bound} (see
+     * {@link me.italankin.fifteen.solver.heuristics.HeuristicsKt#max}), so such child will have a lower (but still
+     * admissible) value. Children with values above {@code bound} must not be expanded.
+     *
+     * @param bound pruning bound of heuristics values of children
+     * @return child nodes, excluding {@link #parent}; may contain {@code null}s
+     * @see #children()
+     */
+    public Node[] children(int bound) {
         Node[] nodes = new Node[parent == null ? 4 : 3]; // only for the root node we need 4 elements
         int parentZeroIndex = parent != null ? parent.zeroIndex : -1;
-        int down = zeroIndex + width;
         int idx = 0;
-        if (down < gameParameters.size && down != parentZeroIndex) {
-            nodes[idx++] = newMove(down);
-        }
-        int up = zeroIndex - width;
-        if (up >= 0 && up != parentZeroIndex) {
-            nodes[idx++] = newMove(up);
-        }
-        if (zeroIndex % width > 0) {
-            int left = zeroIndex - 1;
-            if (left != parentZeroIndex) {
-                nodes[idx++] = newMove(left);
-            }
-        }
-        if (zeroIndex % width < width - 1) {
-            int right = zeroIndex + 1;
-            if (right != parentZeroIndex) {
-                nodes[idx] = newMove(right);
+        for (int next : gameParameters.neighbours[zeroIndex]) {
+            if (next != parentZeroIndex) {
+                nodes[idx++] = newMove(next, bound);
             }
         }
         return nodes;
@@ -139,20 +234,19 @@ public class Node {
         return state[parent.zeroIndex];
     }
 
+    /**
+     * Nodes are equal, if they have equal states in the same representation: a node never equals a subclass instance,
+     * which keeps state in its own format, because their hash codes differ.
+     */
     @Override
     public boolean equals(Object o) {
-        if (o instanceof Node another) {
+        if (o instanceof Node another && another.state != null) {
             // equal positions have equal heuristics
             // optimize to avoid comparing arrays
             if (heuristicsValue != another.heuristicsValue) {
                 return false;
             }
-            for (int i = 0; i < state.length; i++) {
-                if (state[i] != another.state[i]) {
-                    return false;
-                }
-            }
-            return true;
+            return Arrays.equals(state, another.state);
         }
         return false;
     }
@@ -164,6 +258,7 @@ public class Node {
 
     @Override
     public String toString() {
+        int[] state = getState();
         StringBuilder result = new StringBuilder();
 
         int padding = 2;
@@ -210,18 +305,18 @@ public class Node {
         return result.toString();
     }
 
-    protected Node newMove(int index) {
+    protected Node newMove(int index, int bound) {
         int[] newState = new int[state.length];
         System.arraycopy(state, 0, newState, 0, state.length);
         // NB: does not perform move validity
         int p = newState[index];
         newState[index] = newState[zeroIndex];
         newState[zeroIndex] = p;
-        return newChildNode(newState, moves + 1, this, index, heuristics, gameParameters);
+        return newChildNode(newState, moves + 1, this, index, heuristics, gameParameters, bound);
     }
 
-    protected Node newChildNode(int[] newState, int moves, Node parent, int zeroIndex, Heuristics heuristics, GameParameters gameParameters) {
-        return new Node(newState, moves, parent, zeroIndex, heuristics, gameParameters);
+    protected Node newChildNode(int[] newState, int moves, Node parent, int zeroIndex, Heuristics heuristics, GameParameters gameParameters, int bound) {
+        return new Node(newState, moves, parent, zeroIndex, heuristics, gameParameters, bound);
     }
 
     private static void appendNum(StringBuilder sb, int num, int cellWidth, char delimiter) {
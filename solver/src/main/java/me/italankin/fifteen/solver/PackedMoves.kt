@@ -0,0 +1,144 @@
+package me.italankin.fifteen.solver
+
+/**
+ * Compact sequence of moves, which stores [directions][Direction] of moved tiles, 2 bits per move.
+ *
+ * Moves do not depend on a particular state, so they are decoded by replaying them on a start state, see [replay].
+ */
+class PackedMoves private constructor(
+    private val words: LongArray,
+    /**
+     * Number of moves
+     */
+    val size: Int
+) {
+
+    companion object {
+
+        private const val BITS = 2
+        private const val MOVES_PER_WORD = Long.SIZE_BITS / BITS
+        private const val MASK = (1L shl BITS) - 1
+
+        @JvmField
+        val EMPTY = PackedMoves(LongArray(0), 0)
+
+        /**
+         * Encode moves from the root node to [end]
+         */
+        @JvmStatic
+        fun of(end: Node): PackedMoves {
+            if (end.moves == 0) {
+                return EMPTY
+            }
+            val width = end.gameParameters.width
+            val words = LongArray((end.moves + MOVES_PER_WORD - 1) / MOVES_PER_WORD)
+            var node = end
+            var index = end.moves
+            while (true) {
+                val parent = node.parent ?: break
+                index--
+                val direction = Direction.of(parent.zeroIndex - node.zeroIndex, width)
+                words[index / MOVES_PER_WORD] = words[index / MOVES_PER_WORD] or
+                        (direction.ordinal.toLong() shl (index % MOVES_PER_WORD * BITS))
+                node = parent
+            }
+            return PackedMoves(words, end.moves)
+        }
+    }
+
+    /**
+     * Direction, in which a tile is moved
+     */
+    enum class Direction(val symbol: String) {
+        RIGHT("R"),
+        LEFT("L"),
+        DOWN("D"),
+        UP("U");
+
+        /**
+         * @return change of the tile's index on a board of [width]
+         */
+        fun delta(width: Int): Int {
+            return when (this) {
+                RIGHT -> 1
+                LEFT -> -1
+                DOWN -> width
+                UP -> -width
+            }
+        }
+
+        internal companion object {
+
+            private val values = values()
+
+            fun of(delta: Int, width: Int): Direction {
+                return when (delta) {
+                    1 -> RIGHT
+                    -1 -> LEFT
+                    width -> DOWN
+                    -width -> UP
+                    else -> throw IllegalArgumentException("Invalid move: $delta")
+                }
+            }
+
+            fun of(ordinal: Int): Direction = values[ordinal]
+        }
+    }
+
+    operator fun get(index: Int): Direction {
+        if (index < 0 || index >= size) {
+            throw IndexOutOfBoundsException("index=$index, size=$size")
+        }
+        val word = words[index / MOVES_PER_WORD]
+        return Direction.of(((word ushr (index % MOVES_PER_WORD * BITS)) and MASK).toInt())
+    }
+
+    /**
+     * Apply moves to a copy of [start] state of a board of [width], calling [action] after each move
+     *
+     * @param action receives index of the move, moved number and the current state (must not be modified)
+     * @return final state
+     */
+    inline fun replay(
+        start: IntArray,
+        width: Int,
+        action: (index: Int, number: Int, state: IntArray) -> Unit
+    ): IntArray {
+        val state = start.copyOf()
+        var zeroIndex = state.indexOf(0)
+        for (i in 0 until size) {
+            // tile moves into the blank cell, so the blank moves in the opposite direction
+            val tileIndex = zeroIndex - get(i).delta(width)
+            val number = state[tileIndex]
+            state[zeroIndex] = number
+            state[tileIndex] = 0
+            zeroIndex = tileIndex
+            action(i, number, state)
+        }
+        return state
+    }
+
+    /**
+     * @return numbers, moved by each move, starting from [start] state of a board of [width]
+     */
+    fun movedNumbers(start: IntArray, width: Int): List<Int> {
+        val result = IntArray(size)
+        replay(start, width) { index, number, _ -> result[index] = number }
+        return result.asList()
+    }
+
+    /**
+     * @return symbols of [directions][Direction.symbol] of moves
+     */
+    fun symbols(): List<String> = List(size) { get(it).symbol }
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) return true
+        if (other !is PackedMoves) return false
+        return size == other.size && words.contentEquals(other.words)
+    }
+
+    override fun hashCode(): Int = 31 * size + words.contentHashCode()
+
+    override fun toString(): String = symbols().joinToString("")
+}
@@ -0,0 +1,218 @@
+package me.italankin.fifteen.solver;
+
+import kotlin.collections.ArraysKt;
+import kotlin.collections.CollectionsKt;
+import me.italankin.fifteen.game.Game;
+import me.italankin.fifteen.solver.heuristics.ComposedHeuristics;
+import me.italankin.fifteen.solver.heuristics.Heuristics;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * {@link Node} which keeps its state packed in a single {@code long}, 4 bits per cell.
+ * <br/>
+ * Every cell holds the <b>goal index</b> of its tile instead of the tile number, e.g. for a game with goal:
+ *
+ * <pre>
+ * 1 2
+ * 3 0
+ * </pre>
+ * <p>
+ * and state:
+ *
+ * <pre>
+ * 3 1
+ * 0 2
+ * </pre>
+ * <p>
+ * packed cells will be {@code [2, 0, 3, 1]}. This way the goal state is always {@code 0x...3210}, regardless of
+ * game's goal or missing tile, and any board with up to 16 cells fits into 4 bits per cell.
+ */
+public class PackedNode extends Node {
+
+    /**
+     * Maximum number of cells, which can be packed
+     */
+    public static final int MAX_SIZE = 16;
+
+    private static final long[] GOALS = new long[MAX_SIZE + 1];
+
+    static {
+        long goal = 0;
+        for (int i = 0; i < MAX_SIZE; i++) {
+            goal |= (long) i << (i << 2);
+            GOALS[i + 1] = goal;
+        }
+    }
+
+    /**
+     * @return {@code true}, if a board with {@code params} can be packed
+     */
+    public static boolean isSupported(GameParameters params) {
+        return params.size <= MAX_SIZE;
+    }
+
+    /**
+     * @return packed {@code state}
+     */
+    public static long pack(int[] state, GameParameters params) {
+        int[] goalIndices = params.goalIndices;
+        long result = 0;
+        for (int i = 0; i < state.length; i++) {
+            result |= (long) goalIndices[state[i]] << (i << 2);
+        }
+        return result;
+    }
+
+    /**
+     * @return unpacked {@code state}
+     */
+    public static int[] unpack(long state, GameParameters params) {
+        int[] goal = params.goal;
+        int[] result = new int[params.size];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = goal[get(state, i)];
+        }
+        return result;
+    }
+
+    /**
+     * @return goal index of a tile at {@code index} of packed {@code state}
+     */
+    public static int get(long state, int index) {
+        return (int) (state >>> (index << 2)) & 0xF;
+    }
+
+    /**
+     * @return packed {@code state} with cells at {@code i} and {@code j} swapped
+     */
+    public static long swap(long state, int i, int j) {
+        int si = i << 2;
+        int sj = j << 2;
+        long x = ((state >>> si) ^ (state >>> sj)) & 0xF;
+        return state ^ (x << si) ^ (x << sj);
+    }
+
+    /**
+     * @return packed goal state for a board with {@code size} cells
+     */
+    public static long goal(int size) {
+        return GOALS[size];
+    }
+
+    /**
+     * Packed state of the game
+     */
+    public final long packedState;
+
+    public PackedNode(Game game, GameParameters params, Heuristics heuristics) {
+        this(CollectionsKt.toIntArray(game.getState()), params, heuristics);
+    }
+
+    public PackedNode(int[] state, GameParameters params, Heuristics heuristics) {
+        this(checkedPack(state, params), ArraysKt.indexOf(state, 0), params,
+                ComposedHeuristics.incremental(heuristics));
+    }
+
+    private PackedNode(long packedState, int zeroIndex, GameParameters params, Heuristics heuristics) {
+        this(packedState, zeroIndex, params, heuristics, ComposedHeuristics.newValues(heuristics));
+    }
+
+    private PackedNode(long packedState,
+            int zeroIndex,
+            GameParameters params,
+            Heuristics heuristics,
+            @Nullable int[] heuristicsComponents) {
+        super(null, 0, zeroIndex,
+                heuristicsComponents != null
+                        ? ((ComposedHeuristics) heuristics).calc(packedState, params, heuristicsComponents)
+                        : heuristics.calc(packedState, params),
+                heuristicsComponents, heuristics, params);
+        this.packedState = packedState;
+    }
+
+    protected PackedNode(long packedState,
+            int moves,
+            PackedNode parent,
+            int zeroIndex,
+            Heuristics heuristics,
+            GameParameters gameParameters,
+            int bound) {
+        this(packedState, moves, parent, zeroIndex, heuristics, gameParameters, bound,
+                ComposedHeuristics.newValues(heuristics));
+    }
+
+    private PackedNode(long packedState,
+            int moves,
+            PackedNode parent,
+            int zeroIndex,
+            Heuristics heuristics,
+            GameParameters gameParameters,
+            int bound,
+            @Nullable int[] heuristicsComponents) {
+        super(parent, moves, zeroIndex,
+                heuristicsComponents != null
+                        ? ((ComposedHeuristics) heuristics).calc(packedState, gameParameters,
+                        parent.heuristicsComponents, heuristicsComponents, parent.zeroIndex, zeroIndex, bound)
+                        : heuristics.calc(packedState, gameParameters, parent.heuristicsValue, parent.zeroIndex,
+                        zeroIndex),
+                heuristicsComponents, heuristics, gameParameters);
+        this.packedState = packedState;
+    }
+
+    /**
+     * @return a new array with unpacked state
+     */
+    @Override
+    public int[] getState() {
+        return unpack(packedState, gameParameters);
+    }
+
+    @Override
+    public boolean isGoal() {
+        return packedState == GOALS[gameParameters.size];
+    }
+
+    @Override
+    public int lastMovedNumber() {
+        if (parent == null) {
+            return -1;
+        }
+        return gameParameters.goal[get(packedState, parent.zeroIndex)];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        // unlike states, hash codes of packed and plain nodes differ, so they are never equal
+        return o instanceof PackedNode another && packedState == another.packedState;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = packedState * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    protected Node newMove(int index, int bound) {
+        // NB: does not perform move validity
+        return newChildNode(swap(packedState, index, zeroIndex), moves + 1, this, index, heuristics, gameParameters,
+                bound);
+    }
+
+    protected Node newChildNode(long packedState,
+            int moves,
+            PackedNode parent,
+            int zeroIndex,
+            Heuristics heuristics,
+            GameParameters gameParameters,
+            int bound) {
+        return new PackedNode(packedState, moves, parent, zeroIndex, heuristics, gameParameters, bound);
+    }
+
+    private static long checkedPack(int[] state, GameParameters params) {
+        if (!isSupported(params)) {
+            throw new IllegalArgumentException("Cannot pack a board with size=" + params.size);
+        }
+        return pack(state, params);
+    }
+}
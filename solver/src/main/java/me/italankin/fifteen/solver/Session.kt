@@ -2,32 +2,70 @@ package me.italankin.fifteen.solver
 
 import kotlinx.coroutines.*
 import kotlinx.coroutines.flow.*
+import me.italankin.fifteen.game.Game
 import me.italankin.fifteen.solver.generator.BoundedGameGenerator
+import me.italankin.fifteen.solver.generator.GameGenerator
+import me.italankin.fifteen.solver.generator.isFrozen
 import me.italankin.fifteen.solver.reporter.Reporter
 import me.italankin.fifteen.solver.reporter.SystemOutReporter
 import java.lang.management.ManagementFactory
+import java.util.IdentityHashMap
 import java.util.concurrent.Executors
 import java.util.concurrent.ThreadFactory
 import java.util.concurrent.atomic.AtomicBoolean
 import java.util.concurrent.atomic.AtomicInteger
 
+/**
+ * @param generator generator of games, games are pulled lazily as solvers become available, so it can be unbounded
+ * @param solvers solvers for every game
+ * @param reporter reporter of session events
+ * @param concurrency number of parallel solves
+ * @param stopCondition condition to stop pulling games, must be set for unbounded generators
+ * @param prefetch maximum number of games, generated ahead of solvers
+ * @param warmup JIT warmup, which is done before measurements, requires [Warmup.games] for generators, which are not
+ * [frozen][me.italankin.fifteen.solver.generator.freeze]
+ * @param baseline one of [solvers] to compare others with in [AllStats.speedupOverAStar], by default solvers are
+ * compared with [AStar][me.italankin.fifteen.solver.algorithm.astar.AStar] solvers with the same heuristics
+ */
 class Session(
-    val generator: BoundedGameGenerator,
+    val generator: GameGenerator,
     val solvers: List<Solver>,
     val reporter: Reporter = SystemOutReporter(),
-    val concurrency: Concurrency = Concurrency.AvailableProcessors()
+    val concurrency: Concurrency = Concurrency.AvailableProcessors(),
+    val stopCondition: StopCondition = StopCondition.Never,
+    val prefetch: Int = concurrency.numThreads,
+    val warmup: Warmup = Warmup.None,
+    val baseline: Solver? = null
 ) {
 
     val id: String = System.identityHashCode(this).toString(16)
     val stats = Stats()
 
     private val statsCollector = StatsCollector()
+    private val statsAccumulator = StatsAccumulator(solvers.size, baseline)
+    private val parametersRegistry = GameParametersRegistry()
     private val executed = AtomicBoolean()
 
     init {
         if (solvers.isEmpty()) {
             throw IllegalArgumentException("`solvers` must not be empty")
         }
+        if (baseline != null && baseline !in solvers) {
+            throw IllegalArgumentException("`baseline` must be one of `solvers`")
+        }
+        if (prefetch <= 0) {
+            throw IllegalArgumentException("`prefetch` must be > 0")
+        }
+        if (generator !is BoundedGameGenerator && stopCondition === StopCondition.Never) {
+            throw IllegalArgumentException("`stopCondition` must be set for unbounded generators")
+        }
+        if (warmup !== Warmup.None && warmup.games == null && !generator.isFrozen) {
+            throw IllegalArgumentException("`warmup.games` must be set for generators, which are not frozen")
+        }
+    }
+
+    companion object {
+        const val UNKNOWN_COUNT = -1
     }
 
     override fun equals(other: Any?): Boolean = other is Session && id == other.id
@@ -41,8 +79,14 @@ class Session(
         println("session parameters:")
         println("  concurrency: $concurrency")
         println("  generator:\n${generator.toString().prependIndent("    ")}")
-        println("  games count: ${generator.count}")
-        println("  total games count: ${stats.totalCount}")
+        if (generator is BoundedGameGenerator) {
+            println("  games count: ${generator.count}")
+            println("  total games count: ${stats.totalCount}")
+        } else {
+            println("  games count: unbounded")
+        }
+        println("  stop condition: $stopCondition")
+        println("  warmup: $warmup")
         println("  solvers:")
         println(solvers.joinToString("\n").prependIndent("    * "))
         println()
@@ -53,15 +97,31 @@ class Session(
      *
      * Each session can be executed only once.
      *
+     * All solutions are kept in memory, use [executeStreaming] for large sessions.
+     *
      * @return list of solutions
      */
+    suspend fun execute(): List<Result<Solver.Solution>> = executeStreaming().toList()
+
+    /**
+     * Start solving, when the returned [Flow] is collected. Results are emitted as soon as they are
+     * [reported][Reporter.onSessionSolutionFound] and are not retained by the session, so memory use does not depend on
+     * the number of games. Stats are available in [Stats.results].
+     *
+     * Games are pulled from the [generator] only when solvers are available (plus [prefetch] games), until it is
+     * exhausted or [stopCondition] is met.
+     *
+     * Each session can be executed only once.
+     *
+     * @return flow of results
+     */
     @OptIn(FlowPreview::class)
-    suspend fun execute(): List<Result<Solver.Solution>> {
+    fun executeStreaming(): Flow<Result<Solver.Solution>> = flow {
         if (!executed.compareAndSet(false, true)) {
             throw IllegalStateException("session was already executed")
         }
-        return coroutineScope {
-            val solversPool = SolversPool(solvers)
+        coroutineScope {
+            val solversPool = SolversPool(solvers, parametersRegistry)
             val solverQueueEvents = launch {
                 solversPool.queueState().collect { reporter.onSessionQueueStateUpdated(this@Session, it) }
             }
@@ -69,20 +129,60 @@ class Session(
                 .newFixedThreadPool(concurrency.numThreads, SolverThreadFactory(concurrency.threadPriority))
                 .asCoroutineDispatcher()
 
+            try {
+                warmup(dispatcher)
+            } catch (e: Throwable) {
+                dispatcher.close()
+                solverQueueEvents.cancel()
+                statsCollector.cancel()
+                throw e
+            }
             statsCollector.start()
+            stopCondition.onStarted(this@Session)
             reporter.onSessionStarted(this@Session)
-            val solutions = generator
-                .flatMap { game ->
-                    reporter.onSessionSolveStarted(this@Session, game)
-                    solversPool.enqueue(game)
-                }
+            // number of started solves of each game in progress, accessed by the collector only
+            val startedSolves = IdentityHashMap<Game, Int>()
+            generator
                 .asFlow()
+                .takeWhile { !stopCondition.shouldStop() }
+                .buffer(prefetch)
+                .transform { game ->
+                    for (solve in solversPool.enqueue(game)) {
+                        val events = solve
+                            // stats are updated from solver threads
+                            .onEach(statsAccumulator::add)
+                            .map<Result<Solver.Solution>, Event> { Event.Solved(it) }
+                            .onStart { emit(Event.Started(game)) }
+                        emit(events)
+                    }
+                }
                 .flattenMerge(concurrency.numThreads)
+                // keep the number of unreported results bounded as well
+                .buffer(concurrency.numThreads)
                 .flowOn(dispatcher)
-                .onEach { result ->
-                    result
-                        .onSuccess { reporter.onSessionSolutionFound(this@Session, it) }
-                        .onFailure { reporter.onSessionSolutionError(this@Session, it as SolveException) }
+                .transform { event ->
+                    // reporter is called from the collector, not from solver threads
+                    when (event) {
+                        is Event.Started -> {
+                            val started = (startedSolves[event.game] ?: 0) + 1
+                            if (started == 1) {
+                                reporter.onSessionSolveStarted(this@Session, event.game)
+                            }
+                            if (started == solvers.size) {
+                                startedSolves.remove(event.game)
+                            } else {
+                                startedSolves[event.game] = started
+                            }
+                        }
+                        is Event.Solved -> {
+                            val result = event.result
+                            stopCondition.onResult(result)
+                            result
+                                .onSuccess { reporter.onSessionSolutionFound(this@Session, it) }
+                                .onFailure { reporter.onSessionSolutionError(this@Session, it as SolveException) }
+                            emit(result)
+                        }
+                    }
                 }
                 .onCompletion { e: Throwable? ->
                     dispatcher.close()
@@ -92,13 +192,60 @@ class Session(
                         reporter.onSessionCancelled(this@Session)
                     }
                 }
-                .toList()
+                .collect { emit(it) }
             statsCollector.stop()
 
-            reporter.onSessionFinished(this@Session, solutions)
+            reporter.onSessionFinished(this@Session, statsAccumulator.stats())
+        }
+    }
 
-            solutions
+    /**
+     * Run [warmup] solves of every solver on [dispatcher], results are discarded
+     */
+    private suspend fun warmup(dispatcher: CoroutineDispatcher) {
+        if (warmup === Warmup.None) {
+            return
+        }
+        val games = WarmupGames(warmup.games ?: generator)
+        // separate registry keeps warmup lookups out of stats
+        val parameters = GameParametersRegistry()
+        statsCollector.startWarmup()
+        withContext(dispatcher) {
+            for (solver in solvers) {
+                val started = AtomicInteger()
+                val startTime = System.nanoTime()
+                coroutineScope {
+                    repeat(concurrency.numThreads) {
+                        launch {
+                            while (warmup.shouldContinue(started.getAndIncrement(), System.nanoTime() - startTime)) {
+                                ensureActive()
+                                val game = games.next() ?: break
+                                try {
+                                    solver.solve(game, parameters = parameters)
+                                } catch (e: Exception) {
+                                    // errors do not affect warmup
+                                }
+                                statsCollector.onWarmupSolve()
+                            }
+                        }
+                    }
+                }
+            }
         }
+        statsCollector.stopWarmup()
+    }
+
+    /**
+     * Events of solves, which are delivered to the collector of [executeStreaming]
+     */
+    private sealed interface Event {
+
+        /**
+         * One of solvers started solving [game]
+         */
+        class Started(val game: Game) : Event
+
+        class Solved(val result: Result<Solver.Solution>) : Event
     }
 
     /**
@@ -157,9 +304,9 @@ class Session(
 
     inner class Stats {
         /**
-         * Total games count
+         * Total games count, or [UNKNOWN_COUNT] for unbounded generators
          */
-        val totalCount: Int = solvers.size * generator.count
+        val totalCount: Int = if (generator is BoundedGameGenerator) solvers.size * generator.count else UNKNOWN_COUNT
 
         /**
          * Average memory use (in MB)
@@ -196,6 +343,49 @@ class Session(
          */
         val totalTimeMs: Long
             get() = statsCollector.totalTimeMs
+
+        /**
+         * Number of [warmup] solves
+         */
+        val warmupSolves: Int
+            get() = statsCollector.warmupSolves
+
+        /**
+         * Time of [warmup] (in ms), `0` if there was no warmup
+         */
+        val warmupTimeMs: Long
+            get() = statsCollector.warmupTimeMs
+
+        /**
+         * JIT compilation time during [warmup] (in ms), `-1` if not supported by the JVM
+         */
+        val warmupCompilationTimeMs: Long
+            get() = statsCollector.warmupCompilationTimeMs
+
+        /**
+         * JIT compilation time during measurements (in ms), `-1` if not supported by the JVM or session is still in
+         * progress
+         */
+        val compilationTimeMs: Long
+            get() = statsCollector.compilationTimeMs
+
+        /**
+         * Number of distinct [GameParameters], shared by solves of this session (excluding warmup)
+         */
+        val gameParametersCount: Int
+            get() = parametersRegistry.size
+
+        /**
+         * Number of solves, which reused [GameParameters] of a previous solve (excluding warmup)
+         */
+        val gameParametersHits: Long
+            get() = parametersRegistry.hitCount
+
+        /**
+         * Stats of results, reported so far
+         */
+        val results: AllStats
+            get() = statsAccumulator.stats()
     }
 
     private class SolverThreadFactory(private val priority: Int) : ThreadFactory {
@@ -208,10 +398,39 @@ class Session(
         }
     }
 
+    /**
+     * Endless source of warmup games, restarts iteration of [generator] when it's exhausted
+     */
+    private class WarmupGames(private val generator: GameGenerator) {
+
+        private var iterator = generator.iterator()
+
+        /**
+         * @return next game or `null`, if [generator] produces no games
+         */
+        @Synchronized
+        fun next(): Game? {
+            if (!iterator.hasNext()) {
+                iterator = generator.iterator()
+                if (!iterator.hasNext()) {
+                    return null
+                }
+            }
+            return iterator.next()
+        }
+    }
+
     private class StatsCollector {
 
         private val runtime = Runtime.getRuntime()
         private var startTime = -1L
+        private var warmupStartTime = -1L
+        private var compilationStartTime = -1L
+
+        private val compilationBean = ManagementFactory.getCompilationMXBean()
+            ?.takeIf { it.isCompilationTimeMonitoringSupported }
+
+        private val warmupSolvesCounter = AtomicInteger()
 
         @Volatile
         private var memorySamples = 0
@@ -247,11 +466,43 @@ class Session(
         var totalTimeMs: Long = -1
             private set
 
+        val warmupSolves: Int
+            get() = warmupSolvesCounter.get()
+
+        @Volatile
+        var warmupTimeMs = 0L
+            private set
+
+        @Volatile
+        var warmupCompilationTimeMs = -1L
+            private set
+
+        @Volatile
+        var compilationTimeMs = -1L
+            private set
+
+        fun startWarmup() {
+            warmupStartTime = System.currentTimeMillis()
+            compilationStartTime = compilationTime()
+        }
+
+        fun onWarmupSolve() {
+            warmupSolvesCounter.incrementAndGet()
+        }
+
+        fun stopWarmup() {
+            warmupTimeMs = System.currentTimeMillis() - warmupStartTime
+            if (compilationBean != null) {
+                warmupCompilationTimeMs = compilationTime() - compilationStartTime
+            }
+        }
+
         fun start() {
             if (startTime != -1L) {
                 throw IllegalStateException("run is already started")
             }
             startTime = System.currentTimeMillis()
+            compilationStartTime = compilationTime()
             sampleMemory()
 
             memoryWatcherScope.launch {
@@ -271,6 +522,9 @@ class Session(
             }
             sampleMemory()
             totalTimeMs = System.currentTimeMillis() - startTime
+            if (compilationBean != null) {
+                compilationTimeMs = compilationTime() - compilationStartTime
+            }
 
             var gcTime = 0L
             var gcCount = 0L
@@ -289,6 +543,8 @@ class Session(
             memoryWatcherScope.cancel()
         }
 
+        private fun compilationTime(): Long = compilationBean?.totalCompilationTime ?: -1
+
         private fun sampleMemory() {
             if (startTime == -1L || totalTimeMs != -1L) {
                 return
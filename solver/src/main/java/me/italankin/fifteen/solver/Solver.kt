@@ -2,52 +2,166 @@ package me.italankin.fifteen.solver
 
 import me.italankin.fifteen.game.Game
 import me.italankin.fifteen.solver.algorithm.Algorithm
+import me.italankin.fifteen.solver.algorithm.Budget
+import me.italankin.fifteen.solver.algorithm.Limits
 import me.italankin.fifteen.solver.heuristics.Heuristics
 import me.italankin.fifteen.solver.util.toString
 
+/**
+ * @param limits limits of each solve, exceeding them fails the solve with
+ * [LimitExceededException][me.italankin.fifteen.solver.algorithm.LimitExceededException]
+ */
 class Solver(
     val heuristics: Heuristics,
     val algorithm: Algorithm,
-    private val name: String? = null
+    private val name: String? = null,
+    val limits: Limits = Limits.NONE
 ) {
 
-    fun solve(game: Game): Solution {
+    /**
+     * @param budget budget of the solve, can be used to [cancel][Budget.cancel] it
+     * @param parameters registry to get [GameParameters] of [game] from
+     * @throws me.italankin.fifteen.solver.algorithm.LimitExceededException if [limits] are exceeded
+     */
+    fun solve(
+        game: Game,
+        budget: Budget = limits.start(),
+        parameters: GameParametersRegistry = GameParametersRegistry.GLOBAL
+    ): Solution {
         val start = System.nanoTime()
-        val startNode = Node(game, heuristics)
-        val result = algorithm.run(startNode)
+        val startNode = Node.create(game, parameters.get(game), heuristics)
+        val cpuTimeStart = ThreadMetrics.cpuTime()
+        val allocatedStart = ThreadMetrics.allocatedBytes()
+        val result = algorithm.run(startNode, budget)
+        // worker threads of parallel algorithms are measured by the algorithms
+        val cpuTime = ThreadMetrics.cpuTime().let {
+            if (it < 0 || result.workerCpuTime < 0) -1 else it - cpuTimeStart + result.workerCpuTime
+        }
+        val allocated = ThreadMetrics.allocatedBytes().let {
+            if (it < 0 || result.workerAllocatedBytes < 0) -1 else it - allocatedStart + result.workerAllocatedBytes
+        }
         val time = System.nanoTime() - start
-        return Solution(game, this@Solver, result.path, time, result.nodesExplored, result.nodesUnexplored)
+        return Solution(
+            game,
+            this,
+            result.path,
+            time,
+            result.nodesExplored,
+            result.nodesUnexplored,
+            cpuTime,
+            allocated
+        )
     }
 
     override fun toString(): String {
-        return name ?: "Solver(heuristics=$heuristics, algorithm=$algorithm)"
+        if (name != null) {
+            return name
+        }
+        return if (limits === Limits.NONE) {
+            "Solver(heuristics=$heuristics, algorithm=$algorithm)"
+        } else {
+            "Solver(heuristics=$heuristics, algorithm=$algorithm, limits=$limits)"
+        }
     }
 
+    /**
+     * Result of a solve. Moves are stored in a compact form, so solutions do not retain any search nodes.
+     *
+     * @param gameParameters parameters of [game], which were used for the solve
+     * @param startState state of the game before the first move
+     * @param startHeuristicsValue heuristics value of [startState]
+     * @param packedMoves moves of the solution
+     * @param time spent time (in nanoseconds)
+     * @param cpuTime CPU time of the solving thread and workers (in nanoseconds), or `-1` if not supported
+     * @param allocatedBytes bytes allocated by the solving thread and workers, or `-1` if not supported
+     */
     class Solution(
         val game: Game,
+        val gameParameters: GameParameters,
         val solver: Solver,
-        val end: Node,
+        private val startState: IntArray,
+        val startHeuristicsValue: Int,
+        val packedMoves: PackedMoves,
         time: Long,
         val nodesExplored: Long,
-        val nodesUnexplored: Long
+        val nodesUnexplored: Long,
+        cpuTime: Long = -1,
+        val allocatedBytes: Long = -1
     ) {
 
-        val moves: Int = end.moves
+        constructor(
+            game: Game,
+            solver: Solver,
+            end: Node,
+            time: Long,
+            nodesExplored: Long,
+            nodesUnexplored: Long,
+            cpuTime: Long = -1,
+            allocatedBytes: Long = -1
+        ) : this(
+            game,
+            end.gameParameters,
+            solver,
+            end.rootState(),
+            end.root().heuristicsValue,
+            PackedMoves.of(end),
+            time,
+            nodesExplored,
+            nodesUnexplored,
+            cpuTime,
+            allocatedBytes
+        )
+
+        val moves: Int
+            get() = packedMoves.size
 
         /**
          * Spent time (in milliseconds)
          */
         val time: Float = time / 1_000_000f
 
-        val start: Node by lazy {
-            var p = end
-            while (p.parent != null) {
-                p = p.parent!!
+        /**
+         * CPU time of the solving thread (in milliseconds), or [Float.NaN] if not supported.
+         *
+         * Unlike [time], does not depend on contention for cores. Includes work of threads, started by parallel
+         * algorithms, if they report it in [Algorithm.Result.workerCpuTime].
+         */
+        val cpuTime: Float = if (cpuTime < 0) Float.NaN else cpuTime / 1_000_000f
+
+        /**
+         * Start node, created on every call from the state before the first move, regardless of the current state of
+         * [game]
+         */
+        val start: Node
+            get() = Node.create(startState.copyOf(), gameParameters, solver.heuristics)
+
+        /**
+         * End node, created on every call with the whole [path]
+         */
+        val end: Node
+            get() = path.last()
+
+        /**
+         * Nodes of the solution, created on every call by replaying [packedMoves]
+         */
+        val path: List<Node>
+            get() {
+                val result = ArrayList<Node>(moves + 1)
+                var node = start
+                result.add(node)
+                packedMoves.replay(startState, game.width) { _, _, state ->
+                    val zeroIndex = state.indexOf(0)
+                    node = node.children().first { it != null && it.zeroIndex == zeroIndex }
+                    result.add(node)
+                }
+                return result
             }
-            p
-        }
 
-        val path: List<Node> by lazy { end.path }
+        /**
+         * State of the game before the first move
+         */
+        val scramble: List<Int>
+            get() = startState.asList()
 
         /**
          * Solution in the form of moved numbers, e.g.:
@@ -55,9 +169,8 @@ class Solver(
          * [4, 7, 1, 6, 8, 5, 3, 1, 7, 4, 1, 8, 5, 3, 2, 1, 4, 7, 8, 5, 6]
          * ```
          */
-        val solution: List<Int> by lazy {
-            path.subList(1, path.size).map(Node::lastMovedNumber)
-        }
+        val solution: List<Int>
+            get() = packedMoves.movedNumbers(startState, game.width)
 
         /**
          * Solution in the form of `L`eft, `R`ight, `U`p and `D`own directions, e.g.:
@@ -65,32 +178,33 @@ class Solver(
          * LUURRDLULDRURDDLURULL
          * ```
          */
-        val symbolicSolution: List<String> by lazy {
-            path.subList(1, path.size)
-                .map { node ->
-                    val numberIndex = node.state.indexOf(node.lastMovedNumber())
-                    when (numberIndex - node.zeroIndex) {
-                        1 -> "R"
-                        -1 -> "L"
-                        node.gameParameters.width -> "D"
-                        -node.gameParameters.width -> "U"
-                        else -> throw IllegalStateException("there is a bug, this should not happen")
-                    }
-                }
-        }
+        val symbolicSolution: List<String>
+            get() = packedMoves.symbols()
 
         override fun toString(): String {
             return buildString {
-                append("scramble: ${start.state.joinToString()}\n")
-                append(start.toString().prependIndent("  "))
+                val path = path
+                append("scramble: ${startState.joinToString()}\n")
+                append(path.first().toString().prependIndent("  "))
                 append('\n')
                 append("solver: ${solver}\n")
                 append("moves: ${moves}\n")
                 append("time: ${time.toString(3)} ms\n")
+                append("cpu time: ${cpuTime.toString(3)} ms\n")
+                append("allocated: $allocatedBytes bytes\n")
                 append("nodesExplored: $nodesExplored (${(nodesExplored / time).toString(3)} nodes/ms)\n")
                 append("solution: ${solution.joinToString()}\n")
-                append("end:\n${end.toString().prependIndent("  ")}")
+                append("end:\n${path.last().toString().prependIndent("  ")}")
             }
         }
     }
 }
+
+private fun Node.root(): Node {
+    var node = this
+    while (true) {
+        node = node.parent ?: return node
+    }
+}
+
+private fun Node.rootState(): IntArray = root().state.copyOf()
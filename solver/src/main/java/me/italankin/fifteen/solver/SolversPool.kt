@@ -1,13 +1,16 @@
 package me.italankin.fifteen.solver
 
+import kotlinx.coroutines.*
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.flow
 import me.italankin.fifteen.game.Game
+import me.italankin.fifteen.solver.algorithm.LimitExceededException
 import java.util.concurrent.atomic.AtomicInteger
 
 internal class SolversPool(
-    private val solvers: List<Solver>
+    private val solvers: List<Solver>,
+    private val parameters: GameParametersRegistry
 ) {
 
     private val inQueue = AtomicInteger()
@@ -22,16 +25,41 @@ internal class SolversPool(
             flow {
                 queueState.value = QueueState(inQueue.decrementAndGet(), inProgress.incrementAndGet(), done.get())
                 try {
-                    val solution = solver.solve(game)
-                    emit(Result.success(solution))
-                } catch (e: Throwable) {
-                    emit(Result.failure(SolveException(game, solver, e)))
+                    val result = try {
+                        Result.success(solveCancellable(solver, game))
+                    } catch (e: Throwable) {
+                        // do not report solves, interrupted by cancellation of the collector
+                        currentCoroutineContext().ensureActive()
+                        Result.failure(SolveException(game, solver, e))
+                    }
+                    emit(result)
+                } finally {
+                    // cancelled solves and failed emits are done too, so the state doesn't drift
+                    queueState.value = QueueState(inQueue.get(), inProgress.decrementAndGet(), done.incrementAndGet())
                 }
-                queueState.value = QueueState(inQueue.get(), inProgress.decrementAndGet(), done.incrementAndGet())
             }
         }
     }
 
+    /**
+     * Solve [game], cancelling the solve's budget when the calling coroutine is cancelled
+     */
+    private suspend fun solveCancellable(solver: Solver, game: Game): Solver.Solution = coroutineScope {
+        val budget = solver.limits.start()
+        val watcher = launch(Dispatchers.Unconfined, start = CoroutineStart.UNDISPATCHED) {
+            try {
+                awaitCancellation()
+            } finally {
+                budget.cancel()
+            }
+        }
+        try {
+            solver.solve(game, budget, parameters)
+        } finally {
+            watcher.cancel()
+        }
+    }
+
     fun queueState(): Flow<QueueState> {
         return queueState
     }
@@ -43,5 +71,11 @@ class SolveException(
     cause: Throwable
 ) : RuntimeException("Solve failed: ${cause.message}", cause) {
 
+    /**
+     * Cause of the failure, if the solve exceeded its [limits][Solver.limits]
+     */
+    val limitExceeded: LimitExceededException?
+        get() = cause as? LimitExceededException
+
     override fun fillInStackTrace(): Throwable? = null
 }
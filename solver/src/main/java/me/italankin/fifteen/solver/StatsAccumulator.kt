@@ -0,0 +1,290 @@
+package me.italankin.fifteen.solver
+
+import me.italankin.fifteen.game.Game
+import me.italankin.fifteen.solver.algorithm.astar.AStar
+import java.math.BigDecimal
+import java.math.MathContext
+import java.math.RoundingMode
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.DoubleAdder
+import java.util.concurrent.atomic.LongAdder
+import kotlin.math.max
+import kotlin.math.sqrt
+
+/**
+ * Calculates [AllStats] incrementally, one result at a time, in fixed memory.
+ *
+ * Results are not retained, so [Solver.Solution]s (and their search graphs) can be collected right after they were
+ * [added][add]. Distributions are kept in [Histogram]s, so percentiles are approximate.
+ *
+ * [add] can be called from solver threads.
+ *
+ * @param solversPerGame number of solvers, which solve every game, required for [AllStats.speedupOverAStar]: results
+ * of a game are compared, when all of them are added. Results are matched to games by [Game.equals], which is
+ * identity for built-in games, so every solver must get the same [Game] instance.
+ * @param baseline solver to compare other solvers with in [AllStats.speedupOverAStar], by default each solver is
+ * compared with the [AStar] solver (including subclasses) with the same heuristics
+ */
+class StatsAccumulator(solversPerGame: Int = 0, baseline: Solver? = null) {
+
+    private val global = Accumulator()
+    private val speedups = SpeedupAccumulator(solversPerGame, baseline)
+    private val bySolver = ConcurrentHashMap<Solver, Accumulator>()
+
+    /**
+     * Solvers in order of their first result
+     */
+    private val solvers = CopyOnWriteArrayList<Solver>()
+
+    /**
+     * Number of added results
+     */
+    val count: Int
+        get() = global.count
+
+    fun add(result: Result<Solver.Solution>) {
+        val solver = result.solver
+        var accumulator = bySolver[solver]
+        if (accumulator == null) {
+            // install the accumulator before publishing the solver, so stats() always finds it
+            val new = Accumulator()
+            accumulator = bySolver.putIfAbsent(solver, new) ?: new.also { solvers.add(solver) }
+        }
+        accumulator.add(result)
+        global.add(result)
+        speedups.add(result)
+    }
+
+    /**
+     * @return stats of results, added so far
+     */
+    fun stats(): AllStats {
+        val bySolver = LinkedHashMap<Solver, Stats>()
+        for (solver in solvers) {
+            bySolver[solver] = this.bySolver.getValue(solver).stats()
+        }
+        return AllStats(
+            global = global.stats(),
+            bySolver = bySolver,
+            speedupOverAStar = speedups.stats(solvers)
+        )
+    }
+
+    /**
+     * Sums solve times of every solver and its baseline over games, which were solved by both of them
+     */
+    private class SpeedupAccumulator(private val solversPerGame: Int, private val baseline: Solver?) {
+
+        /**
+         * Results of games, which are not solved by all solvers yet
+         */
+        private val pending = ConcurrentHashMap<Game, MutableList<Result<Solver.Solution>>>()
+
+        /**
+         * Sums of baseline's and solver's times
+         */
+        private val sums = HashMap<Solver, DoubleArray>()
+
+        fun add(result: Result<Solver.Solution>) {
+            if (solversPerGame < 2) {
+                return
+            }
+            var completed: List<Result<Solver.Solution>>? = null
+            pending.compute(result.game) { _, results ->
+                val list = results ?: ArrayList(solversPerGame)
+                list.add(result)
+                if (list.size == solversPerGame) {
+                    completed = list
+                    null
+                } else {
+                    list
+                }
+            }
+            completed?.let(::addGame)
+        }
+
+        @Synchronized
+        fun stats(solvers: List<Solver>): Map<Solver, Float> {
+            val result = LinkedHashMap<Solver, Float>()
+            for (solver in solvers) {
+                val sum = sums[solver] ?: continue
+                if (sum[1] > 0) {
+                    result[solver] = (sum[0] / sum[1]).toFloat()
+                }
+            }
+            return result
+        }
+
+        @Synchronized
+        private fun addGame(results: List<Result<Solver.Solution>>) {
+            for (result in results) {
+                val solution = result.getOrNull() ?: continue
+                val solver = solution.solver
+                if (isBaseline(solver)) continue
+                // skip, if the baseline is ambiguous or failed to solve the game
+                val baseline = results
+                    .singleOrNull { isBaselineOf(it.solver, solver) }
+                    ?.getOrNull()
+                    ?: continue
+                val sum = sums.getOrPut(solver) { DoubleArray(2) }
+                sum[0] += baseline.time.toDouble()
+                sum[1] += solution.time.toDouble()
+            }
+        }
+
+        private fun isBaseline(solver: Solver): Boolean {
+            return if (baseline != null) solver == baseline else solver.algorithm is AStar
+        }
+
+        private fun isBaselineOf(candidate: Solver, solver: Solver): Boolean {
+            if (baseline != null) {
+                return candidate == baseline
+            }
+            return candidate.algorithm is AStar && candidate.heuristics.toString() == solver.heuristics.toString()
+        }
+    }
+
+    private class Accumulator {
+
+        private val success = LongAdder()
+        private val error = LongAdder()
+        private val limitExceeded = LongAdder()
+        private val nodesExplored = LongAdder()
+        private val nodesUnexplored = LongAdder()
+        private val timeSquares = DoubleAdder()
+        private val movesSquares = DoubleAdder()
+        private val cpuTime = DoubleAdder()
+        private val cpuTimeCount = LongAdder()
+        private val allocatedBytes = LongAdder()
+        private val allocatedBytesCount = LongAdder()
+        private val time = Histogram(scale = 1000.0)
+        private val moves = Histogram()
+        private val nodes = Histogram()
+        private val searchSpeed = Histogram(scale = 1000.0)
+
+        val count: Int
+            get() = (success.sum() + error.sum()).toInt()
+
+        fun add(result: Result<Solver.Solution>) {
+            val solution = result.getOrNull()
+            if (solution == null) {
+                if ((result.exceptionOrNull() as SolveException).limitExceeded != null) {
+                    limitExceeded.increment()
+                }
+                error.increment()
+                return
+            }
+            val time = solution.time.toDouble()
+            val moves = solution.moves.toDouble()
+            nodesExplored.add(solution.nodesExplored)
+            nodesUnexplored.add(solution.nodesUnexplored)
+            timeSquares.add(time * time)
+            movesSquares.add(moves * moves)
+            this.time.record(time)
+            this.moves.record(moves)
+            nodes.record(solution.nodesExplored.toDouble())
+            if (time > 0) {
+                searchSpeed.record(solution.nodesExplored / time)
+            }
+            if (!solution.cpuTime.isNaN()) {
+                cpuTime.add(solution.cpuTime.toDouble())
+                cpuTimeCount.increment()
+            }
+            if (solution.allocatedBytes >= 0) {
+                allocatedBytes.add(solution.allocatedBytes)
+                allocatedBytesCount.increment()
+            }
+            success.increment()
+        }
+
+        fun stats(): Stats {
+            // copy histograms first, so all values are consistent with each other
+            val time = time.copy()
+            val moves = moves.copy()
+            val nodes = nodes.copy()
+            val searchSpeed = searchSpeed.copy()
+            val success = time.count
+            val error = error.sum()
+            val nodesExplored = BigDecimal.valueOf(nodesExplored.sum())
+            val nodesUnexplored = BigDecimal.valueOf(nodesUnexplored.sum())
+            val successSize = BigDecimal.valueOf(success)
+            val total = Stats.Total(
+                success = success.toInt(),
+                error = error.toInt(),
+                limitExceeded = limitExceeded.sum().toInt(),
+                avgSpeed = (time.sum / (success + error)).toFloat(),
+                avgSearchSpeed = if (success > 0) {
+                    nodesExplored.divide(BigDecimal.valueOf(time.sum), MathContext.DECIMAL32).toFloat()
+                } else {
+                    Float.NaN
+                },
+                nodesExplored = nodesExplored,
+                avgNodesExplored = if (success == 0L) {
+                    BigDecimal.ZERO
+                } else {
+                    nodesExplored.divide(successSize, RoundingMode.HALF_UP)
+                },
+                nodesUnexplored = nodesUnexplored,
+                avgNodesUnexplored = if (success == 0L) {
+                    BigDecimal.ZERO
+                } else {
+                    nodesUnexplored.divide(successSize, RoundingMode.HALF_UP)
+                }
+            )
+            return Stats(
+                total = total,
+                time = Stats.Time(
+                    total = Ms(if (success == 0L) Float.NaN else time.sum.toFloat()),
+                    min = Ms(time.min.toFloat()),
+                    max = Ms(time.max.toFloat()),
+                    avg = Ms(time.mean.toFloat()),
+                    stddev = Ms(stddev(time, timeSquares.sum())),
+                    p95 = Ms(time.percentile(0.95).toFloat()),
+                    p50 = Ms(time.percentile(0.5).toFloat()),
+                    p90 = Ms(time.percentile(0.9).toFloat()),
+                    p99 = Ms(time.percentile(0.99).toFloat()),
+                    p999 = Ms(time.percentile(0.999).toFloat()),
+                ),
+                moves = Stats.Moves(
+                    min = moves.min.toLong(),
+                    max = moves.max.toLong(),
+                    avg = moves.mean.toFloat(),
+                    stddev = stddev(moves, movesSquares.sum()),
+                    p95 = moves.percentile(0.95).toInt(),
+                    p50 = moves.percentile(0.5).toInt(),
+                    p90 = moves.percentile(0.9).toInt(),
+                    p99 = moves.percentile(0.99).toInt(),
+                    p999 = moves.percentile(0.999).toInt(),
+                ),
+                histograms = Stats.Histograms(time, moves, nodes, searchSpeed),
+                resources = resources()
+            )
+        }
+
+        private fun resources(): Stats.Resources {
+            val cpuTimeCount = cpuTimeCount.sum()
+            val cpuTime = cpuTime.sum()
+            val allocatedBytesCount = allocatedBytesCount.sum()
+            val allocatedBytes = allocatedBytes.sum()
+            return Stats.Resources(
+                cpuTime = Ms(if (cpuTimeCount == 0L) Float.NaN else cpuTime.toFloat()),
+                avgCpuTime = Ms(if (cpuTimeCount == 0L) Float.NaN else (cpuTime / cpuTimeCount).toFloat()),
+                allocatedBytes = if (allocatedBytesCount == 0L) -1 else allocatedBytes,
+                avgAllocatedBytes = if (allocatedBytesCount == 0L) -1 else allocatedBytes / allocatedBytesCount
+            )
+        }
+
+        /**
+         * Sample standard deviation from the sum of values and the sum of their squares
+         */
+        private fun stddev(histogram: Histogram, squares: Double): Float {
+            val n = histogram.count
+            if (n < 2) {
+                return Float.NaN
+            }
+            val sum = histogram.sum
+            return sqrt(max(0.0, (squares - sum * sum / n) / (n - 1))).toFloat()
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package me.italankin.fifteen.solver
+
+import kotlin.math.sqrt
+import kotlin.time.Duration
+
+/**
+ * Condition to stop pulling new games from a [Session]'s generator. Games, which were already pulled, are solved, so
+ * session finishes gracefully.
+ *
+ * Required for sessions with unbounded generators.
+ */
+interface StopCondition {
+
+    /**
+     * Never stop, session finishes, when its generator is exhausted
+     */
+    object Never : StopCondition {
+        override fun shouldStop(): Boolean = false
+        override fun toString(): String = "Never"
+    }
+
+    /**
+     * Called once, when [session] is started
+     */
+    fun onStarted(session: Session) = Unit
+
+    /**
+     * Called for every result of the session, from the collecting coroutine
+     */
+    fun onResult(result: Result<Solver.Solution>) = Unit
+
+    /**
+     * Called before pulling every game, possibly from other threads than [onResult]
+     *
+     * @return `true`, if no more games should be pulled
+     */
+    fun shouldStop(): Boolean
+
+    /**
+     * Stop after [duration] since the session start
+     */
+    class TimeBudget(private val duration: Duration) : StopCondition {
+
+        @Volatile
+        private var deadline = Long.MAX_VALUE
+
+        init {
+            if (!duration.isPositive()) throw IllegalArgumentException("duration must be positive")
+        }
+
+        override fun onStarted(session: Session) {
+            deadline = System.nanoTime() + duration.inWholeNanoseconds
+        }
+
+        override fun shouldStop(): Boolean = System.nanoTime() - deadline >= 0
+
+        override fun toString(): String = "TimeBudget($duration)"
+    }
+
+    /**
+     * Stop, when confidence intervals of mean solve times of all solvers are narrow enough: for each solver
+     * `z * stddev / sqrt(n) <= relativeError * mean`
+     *
+     * @param relativeError maximum half-width of the interval relative to the mean, e.g. `0.05` for ±5%
+     * @param z critical value of the normal distribution for desired confidence level, e.g. `1.96` for 95%
+     * @param minSamples minimum number of successful solves of each solver of the session
+     */
+    class ConfidenceInterval(
+        private val relativeError: Double,
+        private val z: Double = 1.96,
+        private val minSamples: Int = 30
+    ) : StopCondition {
+
+        private val samples = HashMap<Solver, Welford>()
+
+        @Volatile
+        private var satisfied = false
+
+        init {
+            if (relativeError <= 0) throw IllegalArgumentException("relativeError must be > 0")
+            if (z <= 0) throw IllegalArgumentException("z must be > 0")
+            if (minSamples < 2) throw IllegalArgumentException("minSamples must be >= 2")
+        }
+
+        override fun onStarted(session: Session) {
+            // solvers without successful solves must prevent stopping too
+            session.solvers.forEach { samples[it] = Welford() }
+        }
+
+        override fun onResult(result: Result<Solver.Solution>) {
+            val solution = result.getOrNull() ?: return
+            samples.getOrPut(solution.solver, ::Welford).add(solution.time.toDouble())
+            satisfied = samples.values.all { s ->
+                s.count >= minSamples && z * s.stddev / sqrt(s.count.toDouble()) <= relativeError * s.mean
+            }
+        }
+
+        override fun shouldStop(): Boolean = satisfied
+
+        override fun toString(): String {
+            return "ConfidenceInterval(relativeError=$relativeError, z=$z, minSamples=$minSamples)"
+        }
+
+        private class Welford {
+            var count = 0
+            var mean = 0.0
+            private var m2 = 0.0
+
+            val stddev: Double
+                get() = if (count < 2) Double.NaN else sqrt(m2 / (count - 1))
+
+            fun add(value: Double) {
+                count++
+                val delta = value - mean
+                mean += delta / count
+                m2 += delta * (value - mean)
+            }
+        }
+    }
+
+    /**
+     * Stop, when any of [conditions] is met
+     */
+    class AnyOf(private vararg val conditions: StopCondition) : StopCondition {
+
+        override fun onStarted(session: Session) = conditions.forEach { it.onStarted(session) }
+
+        override fun onResult(result: Result<Solver.Solution>) = conditions.forEach { it.onResult(result) }
+
+        override fun shouldStop(): Boolean = conditions.any(StopCondition::shouldStop)
+
+        override fun toString(): String = conditions.joinToString(prefix = "AnyOf(", postfix = ")")
+    }
+}
+
+infix fun StopCondition.or(other: StopCondition): StopCondition = StopCondition.AnyOf(this, other)
@@ -0,0 +1,40 @@
+package me.italankin.fifteen.solver
+
+import java.lang.management.ManagementFactory
+import com.sun.management.ThreadMXBean as ExtendedThreadMXBean
+
+/**
+ * Resource usage of the current thread, read from [com.sun.management.ThreadMXBean]
+ */
+internal object ThreadMetrics {
+
+    const val UNSUPPORTED = -1L
+
+    private val bean: ExtendedThreadMXBean? = ManagementFactory.getThreadMXBean() as? ExtendedThreadMXBean
+
+    private val cpuTimeSupported: Boolean = bean != null && bean.isThreadCpuTimeSupported &&
+            enable { bean.isThreadCpuTimeEnabled = true; bean.isThreadCpuTimeEnabled }
+
+    private val allocatedMemorySupported: Boolean = bean != null && bean.isThreadAllocatedMemorySupported &&
+            enable { bean.isThreadAllocatedMemoryEnabled = true; bean.isThreadAllocatedMemoryEnabled }
+
+    /**
+     * @return CPU time of the current thread (in nanoseconds) or [UNSUPPORTED]
+     */
+    fun cpuTime(): Long = if (cpuTimeSupported) bean!!.currentThreadCpuTime else UNSUPPORTED
+
+    /**
+     * @return number of bytes, allocated by the current thread, or [UNSUPPORTED]
+     */
+    fun allocatedBytes(): Long = if (allocatedMemorySupported) bean!!.currentThreadAllocatedBytes else UNSUPPORTED
+
+    private inline fun enable(block: () -> Boolean): Boolean {
+        return try {
+            block()
+        } catch (e: UnsupportedOperationException) {
+            false
+        } catch (e: SecurityException) {
+            false
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package me.italankin.fifteen.solver
+
+import me.italankin.fifteen.solver.generator.GameGenerator
+import kotlin.time.Duration
+
+/**
+ * JIT warmup stage of a [Session]: throwaway solves, which are done by every solver on the session's threads before
+ * measurements start. Warmup solves are not reported and are excluded from stats, errors are ignored.
+ *
+ * Warmup games are taken from [games] or, if it's `null`, from a new iterator of the session's generator (bounded
+ * generators are cycled). In the latter case the session's generator must be
+ * [frozen][me.italankin.fifteen.solver.generator.freeze] or
+ * [static][me.italankin.fifteen.solver.generator.StaticGameGenerator], so warmup does not change measured games: e.g.
+ * random generators share their scramblers between iterators.
+ */
+sealed class Warmup(val games: GameGenerator?) {
+
+    /**
+     * No warmup
+     */
+    object None : Warmup(null) {
+        override fun shouldContinue(solves: Int, elapsedNanos: Long): Boolean = false
+        override fun toString(): String = "None"
+    }
+
+    /**
+     * [count] solves per solver
+     */
+    class Solves(private val count: Int, games: GameGenerator? = null) : Warmup(games) {
+
+        init {
+            if (count <= 0) throw IllegalArgumentException("count must be > 0")
+        }
+
+        override fun shouldContinue(solves: Int, elapsedNanos: Long): Boolean = solves < count
+
+        override fun toString(): String = "Solves($count)"
+    }
+
+    /**
+     * Solve games for [duration] per solver
+     */
+    class Timed(private val duration: Duration, games: GameGenerator? = null) : Warmup(games) {
+
+        init {
+            if (!duration.isPositive()) throw IllegalArgumentException("duration must be positive")
+        }
+
+        override fun shouldContinue(solves: Int, elapsedNanos: Long): Boolean {
+            return elapsedNanos < duration.inWholeNanoseconds
+        }
+
+        override fun toString(): String = "Timed($duration)"
+    }
+
+    /**
+     * @param solves number of started solves of the current solver
+     * @param elapsedNanos time since the start of warmup of the current solver
+     * @return `true`, if another warmup solve should be started
+     */
+    internal abstract fun shouldContinue(solves: Int, elapsedNanos: Long): Boolean
+}
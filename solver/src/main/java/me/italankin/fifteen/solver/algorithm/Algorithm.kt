@@ -9,10 +9,73 @@ interface Algorithm {
      */
     fun run(start: Node): Result
 
+    /**
+     * Find a solution for [start] node within [budget].
+     *
+     * Default implementation ignores [budget], built-in algorithms check it periodically.
+     *
+     * @throws LimitExceededException if [budget] is exceeded or cancelled
+     */
+    fun run(start: Node, budget: Budget): Result = run(start)
+
     /**
      * @param path
      * @param nodesExplored explored (visited) nodes count
      * @param nodesUnexplored unexplored (expanded, but not visited) nodes count
+     * @param closedSet closed set statistics, if algorithm uses one
+     * @param nodesExploredPerWorker explored nodes count of each worker thread, if algorithm uses several threads
+     * @param workerCpuTime CPU time of worker threads, started by the algorithm (in nanoseconds), `0` if the
+     * algorithm runs in the calling thread only, or `-1` if not supported, see [WorkerMetrics]
+     * @param workerAllocatedBytes bytes allocated by worker threads, started by the algorithm, `0` if the algorithm
+     * runs in the calling thread only, or `-1` if not supported
      */
-    class Result(val path: Node, val nodesExplored: Long, val nodesUnexplored: Long)
+    class Result @JvmOverloads constructor(
+        val path: Node,
+        val nodesExplored: Long,
+        val nodesUnexplored: Long,
+        val closedSet: ClosedSetStats? = null,
+        val nodesExploredPerWorker: List<Long>? = null,
+        val workerCpuTime: Long = 0,
+        val workerAllocatedBytes: Long = 0
+    ) {
+
+        /**
+         * @return copy of this result with resources, used by worker threads
+         */
+        fun withWorkerMetrics(metrics: WorkerMetrics): Result {
+            return Result(
+                path,
+                nodesExplored,
+                nodesUnexplored,
+                closedSet,
+                nodesExploredPerWorker,
+                metrics.totalCpuTime,
+                metrics.totalAllocatedBytes
+            )
+        }
+    }
+
+    /**
+     * @param size number of entries
+     * @param capacity number of slots in the table
+     * @param resizes number of times the table was grown
+     * @param memoryBytes approximate memory retained by the set (in bytes)
+     */
+    class ClosedSetStats(
+        val size: Int,
+        val capacity: Int,
+        val resizes: Int,
+        val memoryBytes: Long
+    ) {
+
+        /**
+         * Load factor of the table
+         */
+        val load: Float
+            get() = if (capacity == 0) 0f else size.toFloat() / capacity
+
+        override fun toString(): String {
+            return "ClosedSetStats(size=$size, capacity=$capacity, load=$load, resizes=$resizes, memoryBytes=$memoryBytes)"
+        }
+    }
 }
@@ -0,0 +1,81 @@
+package me.italankin.fifteen.solver.algorithm
+
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Remaining resources of a running solve, created by [Limits.start].
+ *
+ * Algorithms should call [checkpoint] every [CHECK_INTERVAL] expansions (or so), which throws
+ * [LimitExceededException], when any of the limits is exceeded or the solve was [cancelled][cancel]. Limits are
+ * therefore checked with [CHECK_INTERVAL] granularity. Budget can be shared between threads of a parallel algorithm.
+ */
+class Budget internal constructor(val limits: Limits) {
+
+    companion object {
+
+        /**
+         * Recommended number of expansions between [checkpoint]s
+         */
+        const val CHECK_INTERVAL = 1024
+
+        /**
+         * Budget without limits, which cannot be cancelled
+         */
+        @JvmField
+        val UNLIMITED = Budget(Limits.NONE)
+    }
+
+    /**
+     * `false`, if there is no time limit: [deadline] is compared with overflow-safe difference of [System.nanoTime]
+     * values, so it can't be set to a sentinel value
+     */
+    private val hasDeadline = limits.timeoutMs != Limits.UNLIMITED
+    private val deadline: Long = if (hasDeadline) System.nanoTime() + limits.timeoutMs * 1_000_000 else 0
+    private val expansions = AtomicLong()
+
+    @Volatile
+    private var exceeded: LimitExceededException.Reason? = null
+
+    /**
+     * Number of expansions, reported by [checkpoint]s
+     */
+    val expanded: Long
+        get() = expansions.get()
+
+    /**
+     * Cancel the solve, next [checkpoint] will throw [LimitExceededException]
+     */
+    fun cancel() {
+        if (this !== UNLIMITED && exceeded == null) {
+            exceeded = LimitExceededException.Reason.CANCELLED
+        }
+    }
+
+    /**
+     * @return `true`, if [checkpoint] will throw
+     */
+    val isExceeded: Boolean
+        get() = exceeded != null
+
+    /**
+     * Report progress of the search and check limits.
+     *
+     * @param expanded number of nodes expanded since the previous call by the caller
+     * @param openListSize current size of the caller's open list
+     * @throws LimitExceededException if any of the limits is exceeded or the solve was cancelled
+     */
+    fun checkpoint(expanded: Long, openListSize: Long) {
+        if (this === UNLIMITED) {
+            return
+        }
+        exceeded?.let { throw LimitExceededException(it, limits) }
+        val reason = when {
+            expansions.addAndGet(expanded) > limits.maxExpansions -> LimitExceededException.Reason.EXPANSIONS
+            openListSize > limits.maxOpenListSize -> LimitExceededException.Reason.OPEN_LIST_SIZE
+            hasDeadline && System.nanoTime() - deadline > 0 -> LimitExceededException.Reason.TIME
+            else -> return
+        }
+        exceeded = reason
+        throw LimitExceededException(reason, limits)
+    }
+}
@@ -0,0 +1,21 @@
+package me.italankin.fifteen.solver.algorithm
+
+/**
+ * Thrown by [Algorithm]s, when a solve exceeds its [Limits] or is cancelled
+ *
+ * @param reason which limit was exceeded
+ */
+class LimitExceededException(
+    val reason: Reason,
+    limits: Limits
+) : RuntimeException("Limit exceeded: ${reason.description} ($limits)") {
+
+    enum class Reason(internal val description: String) {
+        TIME("timeout"),
+        EXPANSIONS("max expansions"),
+        OPEN_LIST_SIZE("max open list size"),
+        CANCELLED("cancelled"),
+    }
+
+    override fun fillInStackTrace(): Throwable? = null
+}
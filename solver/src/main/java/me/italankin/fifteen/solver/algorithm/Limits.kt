@@ -0,0 +1,43 @@
+package me.italankin.fifteen.solver.algorithm
+
+/**
+ * Limits of a single solve. Use [UNLIMITED] to disable a limit.
+ *
+ * @param timeoutMs wall-clock time limit (in milliseconds)
+ * @param maxExpansions maximum number of explored nodes
+ * @param maxOpenListSize maximum size of an open list, for algorithms which use one
+ */
+class Limits @JvmOverloads constructor(
+    val timeoutMs: Long = UNLIMITED,
+    val maxExpansions: Long = UNLIMITED,
+    val maxOpenListSize: Long = UNLIMITED
+) {
+
+    companion object {
+
+        const val UNLIMITED = Long.MAX_VALUE
+
+        /**
+         * No limits
+         */
+        @JvmField
+        val NONE = Limits()
+    }
+
+    init {
+        if (timeoutMs <= 0) throw IllegalArgumentException("timeoutMs must be > 0")
+        if (maxExpansions <= 0) throw IllegalArgumentException("maxExpansions must be > 0")
+        if (maxOpenListSize <= 0) throw IllegalArgumentException("maxOpenListSize must be > 0")
+    }
+
+    /**
+     * Start a new [Budget] for a solve, time limit is counted from this moment
+     */
+    fun start(): Budget = Budget(this)
+
+    override fun toString(): String {
+        fun Long.fmt(): String = if (this == UNLIMITED) "unlimited" else toString()
+        return "Limits(timeoutMs=${timeoutMs.fmt()}, maxExpansions=${maxExpansions.fmt()}, " +
+                "maxOpenListSize=${maxOpenListSize.fmt()})"
+    }
+}
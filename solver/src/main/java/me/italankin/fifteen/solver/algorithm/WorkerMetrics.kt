@@ -0,0 +1,79 @@
+package me.italankin.fifteen.solver.algorithm
+
+import me.italankin.fifteen.solver.ThreadMetrics
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.ForkJoinWorkerThread
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Resources, used by worker threads of a parallel algorithm, which are reported in [Algorithm.Result.workerCpuTime]
+ * and [Algorithm.Result.workerAllocatedBytes]. Each worker adds its own usage, once it's finished.
+ */
+class WorkerMetrics {
+
+    private val cpuTime = AtomicLong()
+    private val allocatedBytes = AtomicLong()
+
+    /**
+     * CPU time of finished workers (in nanoseconds), or `-1` if not supported
+     */
+    val totalCpuTime: Long
+        get() = cpuTime.get()
+
+    /**
+     * Bytes allocated by finished workers, or `-1` if not supported
+     */
+    val totalAllocatedBytes: Long
+        get() = allocatedBytes.get()
+
+    /**
+     * Run [block] in the current thread and add resources used by it
+     */
+    fun measure(block: Runnable) {
+        val cpuTimeStart = ThreadMetrics.cpuTime()
+        val allocatedStart = ThreadMetrics.allocatedBytes()
+        try {
+            block.run()
+        } finally {
+            add(cpuTimeStart, allocatedStart)
+        }
+    }
+
+    /**
+     * @return factory of [ForkJoinPool] threads, which add resources used by them on termination, so the pool must be
+     * terminated before reading the metrics
+     */
+    fun forkJoinThreadFactory(): ForkJoinPool.ForkJoinWorkerThreadFactory {
+        return ForkJoinPool.ForkJoinWorkerThreadFactory { pool -> Worker(pool) }
+    }
+
+    private fun add(cpuTimeStart: Long, allocatedStart: Long) {
+        cpuTime.accumulateAndGet(delta(cpuTimeStart, ThreadMetrics.cpuTime()), ::sum)
+        allocatedBytes.accumulateAndGet(delta(allocatedStart, ThreadMetrics.allocatedBytes()), ::sum)
+    }
+
+    private inner class Worker(pool: ForkJoinPool) : ForkJoinWorkerThread(pool) {
+
+        private var cpuTimeStart = ThreadMetrics.UNSUPPORTED
+        private var allocatedStart = ThreadMetrics.UNSUPPORTED
+
+        override fun onStart() {
+            super.onStart()
+            cpuTimeStart = ThreadMetrics.cpuTime()
+            allocatedStart = ThreadMetrics.allocatedBytes()
+        }
+
+        override fun onTermination(exception: Throwable?) {
+            add(cpuTimeStart, allocatedStart)
+            super.onTermination(exception)
+        }
+    }
+}
+
+private fun delta(start: Long, end: Long): Long {
+    return if (start < 0 || end < 0) ThreadMetrics.UNSUPPORTED else end - start
+}
+
+private fun sum(a: Long, b: Long): Long {
+    return if (a < 0 || b < 0) ThreadMetrics.UNSUPPORTED else a + b
+}
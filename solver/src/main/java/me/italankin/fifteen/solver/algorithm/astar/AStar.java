@@ -2,45 +2,72 @@ package me.italankin.fifteen.solver.algorithm.astar;
 
 import me.italankin.fifteen.solver.Node;
 import me.italankin.fifteen.solver.algorithm.Algorithm;
-import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
+import me.italankin.fifteen.solver.algorithm.Budget;
 
 import java.util.Comparator;
-import java.util.PriorityQueue;
 
 /**
  * @see <a href="https://en.wikipedia.org/wiki/A*_search_algorithm">Wikipedia</a>
  */
 public class AStar implements Algorithm {
 
-    private final Comparator<Node> nodeComparator;
+    private final OpenList.Factory openListFactory;
+    private final String name;
 
+    /**
+     * Optimal A*, which uses {@link OpenList#buckets() bucket} open list. It keeps the name {@code A*(Default)} of
+     * the former default configuration, so results of solvers can be compared with the ones recorded before.
+     */
     public AStar() {
-        this(new DefaultNodeComparator());
+        this(OpenList.buckets(), "Default");
     }
 
     /**
      * @param nodeComparator comparator used for prioritizing nodes for analysis
      */
     public AStar(Comparator<Node> nodeComparator) {
-        this.nodeComparator = nodeComparator;
+        this(OpenList.priorityQueue(nodeComparator));
+    }
+
+    /**
+     * @param openListFactory factory of open lists, which are used for prioritizing nodes for analysis
+     */
+    public AStar(OpenList.Factory openListFactory) {
+        this(openListFactory, openListFactory.toString());
+    }
+
+    private AStar(OpenList.Factory openListFactory, String name) {
+        this.openListFactory = openListFactory;
+        this.name = name;
     }
 
     @Override
     public Result run(Node start) {
-        // use hashCode values to lower memory consumption
-        IntHashSet explored = new IntHashSet();
-        int initialCapacity = 1 << (start.gameParameters.size - 2);
-        PriorityQueue<Node> queue = new PriorityQueue<>(initialCapacity, nodeComparator);
+        return run(start, Budget.UNLIMITED);
+    }
+
+    @Override
+    public Result run(Node start, Budget budget) {
+        ClosedSet explored = ClosedSet.create(start);
+        OpenList queue = openListFactory.create(start);
         queue.add(start);
+        int sinceCheckpoint = 0;
         while (!queue.isEmpty()) {
-            Node node = queue.remove();
-            explored.add(node.hashCode());
+            Node node = queue.poll();
+            if (!explored.add(node)) {
+                // the same position was queued more than once and is already explored
+                continue;
+            }
+            if (++sinceCheckpoint == Budget.CHECK_INTERVAL) {
+                budget.checkpoint(sinceCheckpoint, queue.size());
+                sinceCheckpoint = 0;
+            }
             if (node.isGoal()) {
-                return new Result(node, explored.size(), queue.size());
+                return new Result(node, explored.size(), queue.size(), explored.stats());
             }
             for (Node child : node.children()) {
                 if (child == null) break;
-                if (!explored.contains(child.hashCode())) {
+                if (!explored.contains(child)) {
                     queue.add(child);
                 }
             }
@@ -49,10 +76,13 @@ public class AStar implements Algorithm {
     }
 
     public String toString() {
-        return "A*(" + nodeComparator.toString() + ")";
+        return "A*(" + name + ")";
     }
 
-    private static class DefaultNodeComparator implements Comparator<Node> {
+    /**
+     * Compares nodes by {@code f = moves + heuristicsValue}
+     */
+    public static class DefaultNodeComparator implements Comparator<Node> {
 
         @Override
         public int compare(Node lhs, Node rhs) {
@@ -0,0 +1,129 @@
+package me.italankin.fifteen.solver.algorithm.astar;
+
+import me.italankin.fifteen.solver.Node;
+
+import java.util.Arrays;
+
+/**
+ * Two-level bucket queue: nodes are grouped by {@code f = g + h} and then by {@code g}. Within the same {@code f}
+ * deeper nodes are preferred, nodes in the same bucket are polled in LIFO order.
+ * <br/>
+ * Works only for integer priorities, which is the case for {@code f = moves + heuristicsValue}.
+ */
+class BucketOpenList implements OpenList {
+
+    static final OpenList.Factory FACTORY = new OpenList.Factory() {
+        @Override
+        public OpenList create(Node start) {
+            return new BucketOpenList();
+        }
+
+        @Override
+        public String toString() {
+            return "Buckets";
+        }
+    };
+
+    private static final int INITIAL_F = 64;
+    private static final int INITIAL_BUCKET_SIZE = 16;
+
+    /**
+     * {@code [f][g]}, lazily allocated
+     */
+    private Bucket[][] buckets = new Bucket[INITIAL_F][];
+    /**
+     * Number of nodes with given {@code f}
+     */
+    private int[] counts = new int[INITIAL_F];
+    /**
+     * Upper bound of max {@code g} of nodes with given {@code f}
+     */
+    private int[] maxG = new int[INITIAL_F];
+    /**
+     * Lower bound of min {@code f} of nodes in the list
+     */
+    private int minF = Integer.MAX_VALUE;
+    private int size;
+
+    @Override
+    public void add(Node node) {
+        int g = node.moves;
+        int f = g + node.heuristicsValue;
+        if (f < 0) {
+            throw new IllegalArgumentException("f must be >= 0, f=" + f + ", node=\n" + node);
+        }
+        if (f >= counts.length) {
+            int newLength = Math.max(f + 1, counts.length << 1);
+            buckets = Arrays.copyOf(buckets, newLength);
+            counts = Arrays.copyOf(counts, newLength);
+            maxG = Arrays.copyOf(maxG, newLength);
+        }
+        Bucket[] byG = buckets[f];
+        if (byG == null) {
+            byG = buckets[f] = new Bucket[Math.max(g + 1, f + 1)];
+        } else if (g >= byG.length) {
+            byG = buckets[f] = Arrays.copyOf(byG, g + 1);
+        }
+        Bucket bucket = byG[g];
+        if (bucket == null) {
+            bucket = byG[g] = new Bucket();
+        }
+        bucket.push(node);
+        if (counts[f]++ == 0 || g > maxG[f]) {
+            maxG[f] = g;
+        }
+        if (f < minF) {
+            minF = f;
+        }
+        size++;
+    }
+
+    @Override
+    public Node poll() {
+        if (size == 0) {
+            return null;
+        }
+        int f = minF;
+        while (counts[f] == 0) {
+            f++;
+        }
+        minF = f;
+        Bucket[] byG = buckets[f];
+        int g = maxG[f];
+        while (byG[g] == null || byG[g].size == 0) {
+            g--;
+        }
+        maxG[f] = g;
+        counts[f]--;
+        size--;
+        return byG[g].pop();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private static final class Bucket {
+        Node[] nodes = new Node[INITIAL_BUCKET_SIZE];
+        int size;
+
+        void push(Node node) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size << 1);
+            }
+            nodes[size++] = node;
+        }
+
+        Node pop() {
+            Node node = nodes[--size];
+            nodes[size] = null;
+            return node;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package me.italankin.fifteen.solver.algorithm.astar;
+
+import me.italankin.fifteen.solver.Node;
+import me.italankin.fifteen.solver.PackedNode;
+import me.italankin.fifteen.solver.algorithm.Algorithm;
+
+/**
+ * Set of already explored positions. Unlike a set of hash codes, positions are compared exactly.
+ */
+public interface ClosedSet {
+
+    /**
+     * Create a set, suitable for storing positions of the same kind as {@code start}
+     */
+    static ClosedSet create(Node start) {
+        return create(start, false);
+    }
+
+    /**
+     * Create a set, suitable for storing positions of the same kind as {@code start}, which also keeps the lowest
+     * known cost ({@link Node#moves}) of each position
+     *
+     * @see #addIfCheaper(Node)
+     */
+    static ClosedSet withCosts(Node start) {
+        return create(start, true);
+    }
+
+    private static ClosedSet create(Node start, boolean costs) {
+        if (start instanceof PackedNode) {
+            return new LongClosedSet(costs);
+        }
+        if (WideClosedSet.isSupported(start.gameParameters)) {
+            return new WideClosedSet(costs);
+        }
+        return new StateClosedSet(costs);
+    }
+
+    /**
+     * @return {@code true}, if position of {@code node} was not in the set before
+     */
+    boolean add(Node node);
+
+    boolean contains(Node node);
+
+    /**
+     * Add position of {@code node} or lower its cost to {@link Node#moves}. Only for sets created by
+     * {@link #withCosts(Node)}.
+     *
+     * @return {@code true}, if position of {@code node} was not in the set before or had a higher cost
+     */
+    boolean addIfCheaper(Node node);
+
+    /**
+     * @return the lowest cost of position of {@code node}, or {@code -1} if it's not in the set. Only for sets
+     * created by {@link #withCosts(Node)}.
+     */
+    int cost(Node node);
+
+    int size();
+
+    Algorithm.ClosedSetStats stats();
+}
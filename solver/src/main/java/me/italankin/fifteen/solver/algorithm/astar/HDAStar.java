@@ -0,0 +1,317 @@
+package me.italankin.fifteen.solver.algorithm.astar;
+
+import me.italankin.fifteen.solver.Node;
+import me.italankin.fifteen.solver.algorithm.Algorithm;
+import me.italankin.fifteen.solver.algorithm.Budget;
+import me.italankin.fifteen.solver.algorithm.LimitExceededException;
+import me.italankin.fifteen.solver.algorithm.WorkerMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hash Distributed A* (HDA*).
+ * <br/>
+ * Every state is owned by one of the worker threads, selected by the state's hash. Each worker keeps its own
+ * {@link OpenList} and {@link ClosedSet#withCosts(Node) table} of best known costs of states and expands only the
+ * nodes it owns. Generated children are sent to their owners in batches through lock-free multiple-producer queues.
+ * <br/>
+ * Since nodes are expanded out of the global {@code f} order, a node may be expanded before a shorter path to it is
+ * found; such nodes are reopened. The first solution found is kept as an incumbent, and the search continues until
+ * all nodes with {@code f} below the incumbent's cost are expanded and no messages are in flight, so the result is
+ * optimal for admissible heuristics.
+ *
+ * @see <a href="https://doi.org/10.1609/icaps.v19i1.13367">Kishimoto, Fukunaga, Botea. Scalable, Parallel Best-First
+ * Search for Optimal Sequential Planning</a>
+ */
+public class HDAStar implements Algorithm {
+
+    /**
+     * Number of nodes in a message
+     */
+    private static final int BATCH_SIZE = 64;
+    /**
+     * Partially filled batches are sent after this number of expansions
+     */
+    private static final int FLUSH_INTERVAL = 256;
+
+    private final int numThreads;
+    private final OpenList.Factory openListFactory;
+
+    public HDAStar() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public HDAStar(int numThreads) {
+        this(numThreads, OpenList.buckets());
+    }
+
+    /**
+     * @param numThreads      number of worker threads
+     * @param openListFactory factory for open lists of workers
+     */
+    public HDAStar(int numThreads, OpenList.Factory openListFactory) {
+        if (numThreads <= 0) {
+            throw new IllegalArgumentException("numThreads must be > 0");
+        }
+        this.numThreads = numThreads;
+        this.openListFactory = openListFactory;
+    }
+
+    @Override
+    public Result run(Node start) {
+        return run(start, Budget.UNLIMITED);
+    }
+
+    @Override
+    public Result run(Node start, Budget budget) {
+        if (start.isGoal()) {
+            return new Result(start, 1, 0);
+        }
+        return new Search(start, budget).run();
+    }
+
+    @Override
+    public String toString() {
+        return "HDA*(" + openListFactory + ")";
+    }
+
+    private final class Search {
+
+        private final Node start;
+        private final Budget budget;
+        private final Worker[] workers;
+        /**
+         * Number of busy workers plus number of messages in flight, search is finished, when it reaches zero
+         */
+        private final AtomicLong active = new AtomicLong(numThreads);
+        /**
+         * Best solution found so far
+         */
+        private final AtomicReference<Node> incumbent = new AtomicReference<>();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private final WorkerMetrics metrics = new WorkerMetrics();
+        private volatile int incumbentCost = Integer.MAX_VALUE;
+        private volatile boolean done;
+
+        Search(Node start, Budget budget) {
+            this.start = start;
+            this.budget = budget;
+            this.workers = new Worker[numThreads];
+            for (int i = 0; i < numThreads; i++) {
+                workers[i] = new Worker(i);
+            }
+        }
+
+        Result run() {
+            workers[owner(start)].receive(start);
+            Thread[] threads = new Thread[numThreads];
+            for (int i = 0; i < numThreads; i++) {
+                Worker worker = workers[i];
+                threads[i] = new Thread(worker, "HDAStar-worker-" + i);
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    done = true;
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("interrupted", e);
+                }
+            }
+            Throwable t = error.get();
+            if (t instanceof LimitExceededException) {
+                throw (LimitExceededException) t;
+            }
+            if (t != null) {
+                throw new IllegalStateException("HDA* worker failed", t);
+            }
+            Node solution = incumbent.get();
+            if (solution == null) {
+                throw new IllegalStateException("no solution found");
+            }
+            long explored = 0;
+            long stored = 0;
+            List<Long> perWorker = new ArrayList<>(numThreads);
+            for (Worker worker : workers) {
+                explored += worker.explored;
+                stored += worker.best.size();
+                perWorker.add(worker.explored);
+            }
+            return new Result(solution, explored, Math.max(0, stored - explored), null, perWorker,
+                    metrics.getTotalCpuTime(), metrics.getTotalAllocatedBytes());
+        }
+
+        private int owner(Node node) {
+            return ((node.hashCode() * 0x9E3779B9) >>> 1) % numThreads;
+        }
+
+        private void updateIncumbent(Node node) {
+            while (true) {
+                Node current = incumbent.get();
+                if (current != null && current.moves <= node.moves) {
+                    return;
+                }
+                if (incumbent.compareAndSet(current, node)) {
+                    incumbentCost = node.moves;
+                    return;
+                }
+            }
+        }
+
+        private final class Worker implements Runnable {
+
+            private final int id;
+            private final ConcurrentLinkedQueue<Node[]> inbox = new ConcurrentLinkedQueue<>();
+            private final OpenList open = openListFactory.create(start);
+            /**
+             * Best known cost of each state owned by this worker
+             */
+            private final ClosedSet best = ClosedSet.withCosts(start);
+            private final Node[][] outbox = new Node[numThreads][];
+            private final int[] outboxSizes = new int[numThreads];
+            private long explored;
+
+            Worker(int id) {
+                this.id = id;
+            }
+
+            @Override
+            public void run() {
+                metrics.measure(() -> {
+                    try {
+                        loop();
+                    } catch (Throwable t) {
+                        error.compareAndSet(null, t);
+                        done = true;
+                    }
+                });
+            }
+
+            private void loop() {
+                int sinceFlush = 0;
+                while (!done) {
+                    drainInbox();
+                    Node node = open.poll();
+                    if (node == null) {
+                        flush();
+                        if (idle()) {
+                            return;
+                        }
+                        continue;
+                    }
+                    if (node.moves + node.heuristicsValue >= incumbentCost || best.cost(node) < node.moves) {
+                        // cannot improve the incumbent or a shorter path was found after the node was added
+                        continue;
+                    }
+                    if (++explored % Budget.CHECK_INTERVAL == 0) {
+                        // open list limit is applied to each worker
+                        budget.checkpoint(Budget.CHECK_INTERVAL, open.size());
+                    }
+                    if (node.isGoal()) {
+                        updateIncumbent(node);
+                        continue;
+                    }
+                    for (Node child : node.children()) {
+                        if (child == null) break;
+                        if (child.moves + child.heuristicsValue >= incumbentCost) {
+                            continue;
+                        }
+                        int owner = owner(child);
+                        if (owner == id) {
+                            receive(child);
+                        } else {
+                            send(owner, child);
+                        }
+                    }
+                    if (++sinceFlush == FLUSH_INTERVAL) {
+                        sinceFlush = 0;
+                        flush();
+                    }
+                }
+            }
+
+            /**
+             * Add node owned by this worker to the open list, if it is the best path to its state
+             */
+            void receive(Node node) {
+                if (best.addIfCheaper(node)) {
+                    open.add(node);
+                }
+            }
+
+            private void drainInbox() {
+                Node[] batch;
+                while ((batch = inbox.poll()) != null) {
+                    for (Node node : batch) {
+                        if (node == null) break;
+                        receive(node);
+                    }
+                    active.decrementAndGet();
+                }
+            }
+
+            private void send(int owner, Node node) {
+                Node[] batch = outbox[owner];
+                if (batch == null) {
+                    batch = outbox[owner] = new Node[BATCH_SIZE];
+                }
+                batch[outboxSizes[owner]++] = node;
+                if (outboxSizes[owner] == BATCH_SIZE) {
+                    post(owner);
+                }
+            }
+
+            private void flush() {
+                for (int owner = 0; owner < numThreads; owner++) {
+                    if (outboxSizes[owner] > 0) {
+                        post(owner);
+                    }
+                }
+            }
+
+            private void post(int owner) {
+                // count message before it becomes visible to the receiver
+                active.incrementAndGet();
+                workers[owner].inbox.add(outbox[owner]);
+                outbox[owner] = null;
+                outboxSizes[owner] = 0;
+            }
+
+            /**
+             * Wait for new messages or termination
+             *
+             * @return {@code true}, if the search is finished
+             */
+            private boolean idle() {
+                if (active.decrementAndGet() == 0) {
+                    done = true;
+                    return true;
+                }
+                int spins = 0;
+                while (!done) {
+                    if (!inbox.isEmpty()) {
+                        // become busy before consuming the message, so the counter never drops to zero
+                        active.incrementAndGet();
+                        return false;
+                    }
+                    if (active.get() == 0) {
+                        done = true;
+                        return true;
+                    }
+                    if (++spins < 100) {
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(50_000);
+                    }
+                }
+                return true;
+            }
+        }
+    }
+}
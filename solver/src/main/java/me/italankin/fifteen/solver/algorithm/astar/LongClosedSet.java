@@ -0,0 +1,226 @@
+package me.italankin.fifteen.solver.algorithm.astar;
+
+import me.italankin.fifteen.solver.Node;
+import me.italankin.fifteen.solver.PackedNode;
+import me.italankin.fifteen.solver.algorithm.Algorithm;
+
+/**
+ * {@link ClosedSet} for {@link PackedNode}s: open addressing (linear probing) table of packed states.
+ * <br/>
+ * Takes 8 bytes per slot, which is twice as much as a table of {@code int} hash codes, but never drops a position
+ * because of a hash collision. Sets with costs take 4 more bytes per slot.
+ */
+class LongClosedSet implements ClosedSet {
+
+    private static final int DEFAULT_CAPACITY = 1 << 10;
+    private static final float MAX_LOAD = 0.7f;
+    /**
+     * Marks an empty slot. {@code 0} is not a valid packed state (cells' values are distinct), but it's still
+     * handled separately, just in case.
+     */
+    private static final long EMPTY = 0;
+
+    private long[] keys;
+    /**
+     * Costs of positions in {@link #keys}, {@code null} if costs are not tracked
+     */
+    private int[] costs;
+    private final boolean withCosts;
+    private int mask;
+    private int shift;
+    private int threshold;
+    private int size;
+    private int resizes;
+    private boolean containsEmpty;
+    private int emptyCost;
+
+    LongClosedSet() {
+        this(false);
+    }
+
+    /**
+     * @param withCosts keep costs of positions
+     */
+    LongClosedSet(boolean withCosts) {
+        this(DEFAULT_CAPACITY, withCosts);
+    }
+
+    /**
+     * @param capacity  initial capacity, must be a power of 2
+     * @param withCosts keep costs of positions
+     */
+    LongClosedSet(int capacity, boolean withCosts) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of 2, capacity=" + capacity);
+        }
+        this.withCosts = withCosts;
+        allocate(capacity);
+    }
+
+    @Override
+    public boolean add(Node node) {
+        return add(((PackedNode) node).packedState);
+    }
+
+    @Override
+    public boolean contains(Node node) {
+        return contains(((PackedNode) node).packedState);
+    }
+
+    @Override
+    public boolean addIfCheaper(Node node) {
+        checkCosts();
+        return addIfCheaper(((PackedNode) node).packedState, node.moves);
+    }
+
+    @Override
+    public int cost(Node node) {
+        checkCosts();
+        return cost(((PackedNode) node).packedState);
+    }
+
+    boolean add(long key) {
+        if (key == EMPTY) {
+            if (containsEmpty) {
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        long[] keys = this.keys;
+        int i = index(key);
+        long k;
+        while ((k = keys[i]) != EMPTY) {
+            if (k == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        if (++size > threshold) {
+            grow();
+        }
+        return true;
+    }
+
+    boolean contains(long key) {
+        if (key == EMPTY) {
+            return containsEmpty;
+        }
+        long[] keys = this.keys;
+        int i = index(key);
+        long k;
+        while ((k = keys[i]) != EMPTY) {
+            if (k == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    boolean addIfCheaper(long key, int cost) {
+        if (key == EMPTY) {
+            if (containsEmpty && emptyCost <= cost) {
+                return false;
+            }
+            if (!containsEmpty) {
+                containsEmpty = true;
+                size++;
+            }
+            emptyCost = cost;
+            return true;
+        }
+        long[] keys = this.keys;
+        int i = index(key);
+        long k;
+        while ((k = keys[i]) != EMPTY) {
+            if (k == key) {
+                if (costs[i] <= cost) {
+                    return false;
+                }
+                costs[i] = cost;
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        costs[i] = cost;
+        if (++size > threshold) {
+            grow();
+        }
+        return true;
+    }
+
+    int cost(long key) {
+        if (key == EMPTY) {
+            return containsEmpty ? emptyCost : -1;
+        }
+        long[] keys = this.keys;
+        int i = index(key);
+        long k;
+        while ((k = keys[i]) != EMPTY) {
+            if (k == key) {
+                return costs[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Algorithm.ClosedSetStats stats() {
+        // array headers + slots
+        long memory = 16L + 8L * keys.length + (costs != null ? 16L + 4L * costs.length : 0);
+        return new Algorithm.ClosedSetStats(size, keys.length, resizes, memory);
+    }
+
+    private void checkCosts() {
+        if (!withCosts) {
+            throw new UnsupportedOperationException("costs are not tracked");
+        }
+    }
+
+    private int index(long key) {
+        // fibonacci hashing, spreads packed states (which differ in a few nibbles) over the whole table
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private void grow() {
+        long[] old = keys;
+        int[] oldCosts = costs;
+        allocate(old.length << 1);
+        long[] keys = this.keys;
+        for (int j = 0; j < old.length; j++) {
+            long key = old[j];
+            if (key == EMPTY) {
+                continue;
+            }
+            int i = index(key);
+            while (keys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            if (oldCosts != null) {
+                costs[i] = oldCosts[j];
+            }
+        }
+        resizes++;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        if (withCosts) {
+            costs = new int[capacity];
+        }
+        mask = capacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        threshold = (int) (capacity * MAX_LOAD);
+    }
+}
@@ -0,0 +1,55 @@
+package me.italankin.fifteen.solver.algorithm.astar;
+
+import me.italankin.fifteen.solver.Node;
+
+import java.util.Comparator;
+
+/**
+ * Nodes waiting to be explored by {@link AStar}, ordered by their priority
+ */
+public interface OpenList {
+
+    /**
+     * Bucket-based open list, ordered by {@code f = g + h} and then by the highest {@code g} (deeper nodes first).
+     * {@link #add(Node)} and {@link #poll()} are {@code O(1)}.
+     *
+     * @see BucketOpenList
+     */
+    static Factory buckets() {
+        return BucketOpenList.FACTORY;
+    }
+
+    /**
+     * Open list backed by {@link java.util.PriorityQueue}, works with any {@code comparator}, including
+     * non-integer priorities (e.g. {@link StaticWeighting} or {@link DynamicWeighting}).
+     * {@link #add(Node)} and {@link #poll()} are {@code O(log n)}.
+     */
+    static Factory priorityQueue(Comparator<Node> comparator) {
+        return new PriorityQueueOpenList.Factory(comparator);
+    }
+
+    void add(Node node);
+
+    /**
+     * Retrieve and remove node with the highest priority
+     *
+     * @return node or {@code null}, if the list is empty
+     */
+    Node poll();
+
+    boolean isEmpty();
+
+    int size();
+
+    interface Factory {
+
+        /**
+         * @param start start node of the search
+         * @return new empty open list
+         */
+        OpenList create(Node start);
+
+        @Override
+        String toString();
+    }
+}
@@ -0,0 +1,55 @@
+package me.italankin.fifteen.solver.algorithm.astar;
+
+import me.italankin.fifteen.solver.Node;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+class PriorityQueueOpenList implements OpenList {
+
+    private final PriorityQueue<Node> queue;
+
+    PriorityQueueOpenList(int initialCapacity, Comparator<Node> comparator) {
+        this.queue = new PriorityQueue<>(initialCapacity, comparator);
+    }
+
+    @Override
+    public void add(Node node) {
+        queue.add(node);
+    }
+
+    @Override
+    public Node poll() {
+        return queue.poll();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    static class Factory implements OpenList.Factory {
+
+        private final Comparator<Node> comparator;
+
+        Factory(Comparator<Node> comparator) {
+            this.comparator = comparator;
+        }
+
+        @Override
+        public OpenList create(Node start) {
+            int initialCapacity = 1 << (start.gameParameters.size - 2);
+            return new PriorityQueueOpenList(initialCapacity, comparator);
+        }
+
+        @Override
+        public String toString() {
+            return comparator.toString();
+        }
+    }
+}
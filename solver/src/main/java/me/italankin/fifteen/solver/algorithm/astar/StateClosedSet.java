@@ -0,0 +1,168 @@
+package me.italankin.fifteen.solver.algorithm.astar;
+
+import me.italankin.fifteen.solver.Node;
+import me.italankin.fifteen.solver.algorithm.Algorithm;
+
+import java.util.Arrays;
+
+/**
+ * {@link ClosedSet} for boards, which are too large for {@link WideClosedSet}: open addressing (linear probing) table
+ * of state arrays.
+ * <br/>
+ * State arrays are shared with nodes, but the set keeps them alive after nodes are discarded, so every position
+ * retains about {@code 16 + 4 * size} bytes in addition to a reference per slot, which is included in
+ * {@link #stats()}. Sets with costs take 4 more bytes per slot.
+ */
+class StateClosedSet implements ClosedSet {
+
+    private static final int DEFAULT_CAPACITY = 1 << 10;
+    private static final float MAX_LOAD = 0.7f;
+
+    private int[][] keys;
+    /**
+     * Costs of positions in {@link #keys}, {@code null} if costs are not tracked
+     */
+    private int[] costs;
+    private final boolean withCosts;
+    private int mask;
+    private int shift;
+    private int threshold;
+    private int size;
+    private int resizes;
+    private int stateSize;
+
+    StateClosedSet() {
+        this(false);
+    }
+
+    /**
+     * @param withCosts keep costs of positions
+     */
+    StateClosedSet(boolean withCosts) {
+        this.withCosts = withCosts;
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public boolean add(Node node) {
+        int[] key = node.getState();
+        int i = find(key, node.hashCode());
+        if (keys[i] != null) {
+            return false;
+        }
+        insert(i, key);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Node node) {
+        return keys[find(node.getState(), node.hashCode())] != null;
+    }
+
+    @Override
+    public boolean addIfCheaper(Node node) {
+        checkCosts();
+        int[] key = node.getState();
+        int i = find(key, node.hashCode());
+        if (keys[i] != null) {
+            if (costs[i] <= node.moves) {
+                return false;
+            }
+            costs[i] = node.moves;
+            return true;
+        }
+        costs[i] = node.moves;
+        insert(i, key);
+        return true;
+    }
+
+    @Override
+    public int cost(Node node) {
+        checkCosts();
+        int i = find(node.getState(), node.hashCode());
+        return keys[i] != null ? costs[i] : -1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Algorithm.ClosedSetStats stats() {
+        // array headers + references (assuming compressed oops) + costs + retained state arrays
+        long memory = 16L + 4L * keys.length + (costs != null ? 16L + 4L * costs.length : 0)
+                + (long) size * (16L + 4L * stateSize);
+        return new Algorithm.ClosedSetStats(size, keys.length, resizes, memory);
+    }
+
+    /**
+     * @return index of {@code key} in {@link #keys}, or of an empty slot, where it should be inserted
+     */
+    private int find(int[] key, int hash) {
+        int[][] keys = this.keys;
+        int i = index(hash);
+        int[] k;
+        while ((k = keys[i]) != null) {
+            if (Arrays.equals(k, key)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Put {@code key} into an empty slot {@code i}, found by {@link #find(int[], int)}
+     */
+    private void insert(int i, int[] key) {
+        keys[i] = key;
+        stateSize = key.length;
+        if (++size > threshold) {
+            grow();
+        }
+    }
+
+    private void checkCosts() {
+        if (!withCosts) {
+            throw new UnsupportedOperationException("costs are not tracked");
+        }
+    }
+
+    private int index(int hash) {
+        return (hash * 0x9E3779B9) >>> shift;
+    }
+
+    private void grow() {
+        int[][] old = keys;
+        int[] oldCosts = costs;
+        allocate(old.length << 1);
+        int[][] keys = this.keys;
+        for (int j = 0; j < old.length; j++) {
+            int[] key = old[j];
+            if (key == null) {
+                continue;
+            }
+            // same as Node.hashCode()
+            int i = index(Arrays.hashCode(key));
+            while (keys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            if (oldCosts != null) {
+                costs[i] = oldCosts[j];
+            }
+        }
+        resizes++;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity][];
+        if (withCosts) {
+            costs = new int[capacity];
+        }
+        mask = capacity - 1;
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        threshold = (int) (capacity * MAX_LOAD);
+    }
+}
@@ -0,0 +1,211 @@
+package me.italankin.fifteen.solver.algorithm.astar;
+
+import me.italankin.fifteen.solver.GameParameters;
+import me.italankin.fifteen.solver.Node;
+import me.italankin.fifteen.solver.algorithm.Algorithm;
+
+/**
+ * {@link ClosedSet} for boards, which are too large for {@link LongClosedSet}, but have up to {@link #MAX_SIZE}
+ * cells: open addressing (linear probing) table of states, packed into two {@code long}s, 5 bits per cell.
+ * <br/>
+ * The last cell is not stored, because a state is a permutation of the goal, so it's determined by others. Takes 16
+ * bytes per slot (20 bytes, if costs are kept) and keeps no references to nodes or their states.
+ */
+class WideClosedSet implements ClosedSet {
+
+    /**
+     * Maximum number of cells, which can be packed
+     */
+    static final int MAX_SIZE = 25;
+
+    private static final int BITS = 5;
+    private static final int CELLS_PER_LONG = 12;
+    private static final int DEFAULT_CAPACITY = 1 << 10;
+    private static final float MAX_LOAD = 0.7f;
+
+    /**
+     * Low and high parts of keys, interleaved. Low part of a valid key is never {@code 0}: it holds at least two
+     * cells and only one of them can be empty, so {@code 0} marks an empty slot.
+     */
+    private long[] keys;
+    /**
+     * Costs of positions, one per slot, {@code null} if costs are not tracked
+     */
+    private int[] costs;
+    private final boolean withCosts;
+    private int mask;
+    private int shift;
+    private int threshold;
+    private int size;
+    private int resizes;
+
+    /**
+     * @return {@code true}, if states of a board with {@code params} can be stored
+     */
+    static boolean isSupported(GameParameters params) {
+        return params.size <= MAX_SIZE;
+    }
+
+    WideClosedSet() {
+        this(false);
+    }
+
+    /**
+     * @param withCosts keep costs of positions
+     */
+    WideClosedSet(boolean withCosts) {
+        this.withCosts = withCosts;
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public boolean add(Node node) {
+        int[] state = node.getState();
+        long lo = pack(state, 0);
+        long hi = pack(state, CELLS_PER_LONG);
+        int i = find(lo, hi);
+        if (keys[i] != 0) {
+            return false;
+        }
+        insert(i, lo, hi);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Node node) {
+        int[] state = node.getState();
+        int i = find(pack(state, 0), pack(state, CELLS_PER_LONG));
+        return keys[i] != 0;
+    }
+
+    @Override
+    public boolean addIfCheaper(Node node) {
+        checkCosts();
+        int[] state = node.getState();
+        long lo = pack(state, 0);
+        long hi = pack(state, CELLS_PER_LONG);
+        int i = find(lo, hi);
+        if (keys[i] != 0) {
+            if (costs[i >> 1] <= node.moves) {
+                return false;
+            }
+            costs[i >> 1] = node.moves;
+            return true;
+        }
+        costs[i >> 1] = node.moves;
+        insert(i, lo, hi);
+        return true;
+    }
+
+    @Override
+    public int cost(Node node) {
+        checkCosts();
+        int[] state = node.getState();
+        int i = find(pack(state, 0), pack(state, CELLS_PER_LONG));
+        return keys[i] != 0 ? costs[i >> 1] : -1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Algorithm.ClosedSetStats stats() {
+        // array headers + slots
+        long memory = 16L + 8L * keys.length + (costs != null ? 16L + 4L * costs.length : 0);
+        return new Algorithm.ClosedSetStats(size, keys.length / 2, resizes, memory);
+    }
+
+    /**
+     * @return cells of {@code state}, starting from {@code from}, packed into a {@code long}
+     */
+    private static long pack(int[] state, int from) {
+        // the last cell is skipped
+        int to = Math.min(from + CELLS_PER_LONG, state.length - 1);
+        long result = 0;
+        for (int i = from, shift = 0; i < to; i++, shift += BITS) {
+            result |= (long) state[i] << shift;
+        }
+        return result;
+    }
+
+    /**
+     * @return index of the low part of the key in {@link #keys}, or of an empty slot, where it should be inserted
+     */
+    private int find(long lo, long hi) {
+        long[] keys = this.keys;
+        int i = index(lo, hi);
+        long k;
+        while ((k = keys[i]) != 0) {
+            if (k == lo && keys[i + 1] == hi) {
+                return i;
+            }
+            i = (i + 2) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Put a key into an empty slot {@code i}, found by {@link #find(long, long)}
+     */
+    private void insert(int i, long lo, long hi) {
+        keys[i] = lo;
+        keys[i + 1] = hi;
+        if (++size > threshold) {
+            grow();
+        }
+    }
+
+    private void checkCosts() {
+        if (!withCosts) {
+            throw new UnsupportedOperationException("costs are not tracked");
+        }
+    }
+
+    /**
+     * @return index of the low part of a key in {@link #keys}
+     */
+    private int index(long lo, long hi) {
+        long h = (lo ^ Long.rotateLeft(hi, 31)) * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> shift) << 1;
+    }
+
+    private void grow() {
+        long[] old = keys;
+        int[] oldCosts = costs;
+        // twice as many slots, since each slot takes two elements
+        allocate(old.length);
+        long[] keys = this.keys;
+        for (int j = 0; j < old.length; j += 2) {
+            long lo = old[j];
+            if (lo == 0) {
+                continue;
+            }
+            long hi = old[j + 1];
+            int i = index(lo, hi);
+            while (keys[i] != 0) {
+                i = (i + 2) & mask;
+            }
+            keys[i] = lo;
+            keys[i + 1] = hi;
+            if (oldCosts != null) {
+                costs[i >> 1] = oldCosts[j >> 1];
+            }
+        }
+        resizes++;
+    }
+
+    /**
+     * @param capacity number of slots, must be a power of 2
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity << 1];
+        if (withCosts) {
+            costs = new int[capacity];
+        }
+        mask = (capacity << 1) - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        threshold = (int) (capacity * MAX_LOAD);
+    }
+}
@@ -2,6 +2,7 @@ package me.italankin.fifteen.solver.algorithm.idastar;
 
 import me.italankin.fifteen.solver.Node;
 import me.italankin.fifteen.solver.algorithm.Algorithm;
+import me.italankin.fifteen.solver.algorithm.Budget;
 
 import java.util.ArrayDeque;
 import java.util.Deque;
@@ -16,22 +17,33 @@ public class IDAStar implements Algorithm {
 
     @Override
     public Result run(Node start) {
+        return run(start, Budget.UNLIMITED);
+    }
+
+    @Override
+    public Result run(Node start, Budget budget) {
         AtomicInteger visitedNodes = new AtomicInteger();
         int threshold = start.heuristicsValue;
         Deque<Node> path = new ArrayDeque<>(64);
         path.add(start);
         while (true) {
-            int t = search(path, 0, threshold, visitedNodes);
+            int t = search(path, 0, threshold, visitedNodes, budget);
             if (t == FOUND) {
                 return new Result(path.getLast(), visitedNodes.get(), 0);
             }
+            if (t == Integer.MAX_VALUE) {
+                // no node exceeded the threshold, the whole space is searched
+                throw new IllegalStateException("No solution! " + visitedNodes.get() + " nodes explored");
+            }
             threshold = t;
         }
     }
 
-    private static int search(Deque<Node> path, int g, int threshold, AtomicInteger visitedNodes) {
+    private static int search(Deque<Node> path, int g, int threshold, AtomicInteger visitedNodes, Budget budget) {
         Node node = path.getLast();
-        visitedNodes.incrementAndGet();
+        if (visitedNodes.incrementAndGet() % Budget.CHECK_INTERVAL == 0) {
+            budget.checkpoint(Budget.CHECK_INTERVAL, 0);
+        }
         int f = g + node.heuristicsValue;
         if (f > threshold) {
             return f;
@@ -40,11 +52,12 @@ public class IDAStar implements Algorithm {
             return FOUND;
         }
         int min = Integer.MAX_VALUE;
-        for (Node child : node.children()) {
+        // children above the threshold are pruned, so their heuristics can be calculated lazily
+        for (Node child : node.children(threshold - g - 1)) {
             if (child == null) break;
             if (!path.contains(child)) {
                 path.addLast(child);
-                int t = search(path, g + 1, threshold, visitedNodes);
+                int t = search(path, g + 1, threshold, visitedNodes, budget);
                 if (t == FOUND) {
                     return FOUND;
                 }
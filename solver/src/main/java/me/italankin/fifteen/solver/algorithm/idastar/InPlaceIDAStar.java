@@ -0,0 +1,296 @@
+package me.italankin.fifteen.solver.algorithm.idastar;
+
+import me.italankin.fifteen.solver.GameParameters;
+import me.italankin.fifteen.solver.Node;
+import me.italankin.fifteen.solver.PackedNode;
+import me.italankin.fifteen.solver.algorithm.Algorithm;
+import me.italankin.fifteen.solver.algorithm.Budget;
+import me.italankin.fifteen.solver.heuristics.ComposedHeuristics;
+import me.italankin.fifteen.solver.heuristics.Heuristics;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Iterative (non-recursive) IDA*, which does not allocate anything per node: moves are made and undone in place on a
+ * single mutable board, search state is kept in preallocated per-depth stacks and heuristic values are updated
+ * incrementally.
+ * <br/>
+ * Unlike {@link IDAStar}, only immediate move reversals are pruned (instead of checking the whole path), which is
+ * enough for correctness and keeps each step {@code O(1)}, but may explore more nodes.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Iterative_deepening_A*">Wikipedia</a>
+ */
+public class InPlaceIDAStar implements Algorithm {
+
+    private static final int INITIAL_DEPTH = 128;
+    /**
+     * Move directions of the empty cell, in the same order as {@link Node#children()}
+     */
+    private static final int DOWN = 0, UP = 1, LEFT = 2, RIGHT = 3, EXHAUSTED = 4;
+
+    @Override
+    public Result run(Node start) {
+        return run(start, Budget.UNLIMITED);
+    }
+
+    @Override
+    public Result run(Node start, Budget budget) {
+        Search search = new Search(start, budget, null);
+        if (start.isGoal()) {
+            return new Result(start, 1, 0);
+        }
+        int threshold = start.heuristicsValue;
+        while (true) {
+            int t = search.search(threshold);
+            if (t == Search.FOUND) {
+                return new Result(search.path(), search.nodes() + 1, 0);
+            }
+            if (t == Integer.MAX_VALUE) {
+                // no node exceeded the threshold, the whole space is searched
+                throw new IllegalStateException("No solution! " + (search.nodes() + 1) + " nodes explored");
+            }
+            threshold = t;
+        }
+    }
+
+    public String toString() {
+        return "IDA*(in-place)";
+    }
+
+    /**
+     * Depth-first search with in-place moves from a single node, which can be reused for several thresholds
+     */
+    static final class Search {
+
+        static final int FOUND = -1;
+
+        private final Node start;
+        private final Budget budget;
+        @Nullable
+        private final AtomicBoolean stop;
+        private final int startMoves;
+        private final int parentZeroIndex;
+        private final GameParameters params;
+        private final Heuristics heuristics;
+        @Nullable
+        private final ComposedHeuristics composedHeuristics;
+        private final int[] goal;
+        private final int width;
+        private final int[] columns;
+        private final int size;
+        private final int[] board;
+
+        /**
+         * Index of the empty cell at each depth
+         */
+        private int[] zeroIndices = new int[INITIAL_DEPTH];
+        /**
+         * Heuristics value at each depth
+         */
+        private int[] hValues = new int[INITIAL_DEPTH];
+        /**
+         * Values of {@link #composedHeuristics} components at each depth, {@code null} if heuristics is not composed
+         */
+        @Nullable
+        private int[][] hComponents;
+        /**
+         * Number of misplaced cells (including the empty one) at each depth
+         */
+        private int[] misplaced = new int[INITIAL_DEPTH];
+        /**
+         * Next direction to try at each depth
+         */
+        private int[] directions = new int[INITIAL_DEPTH];
+
+        private long nodes;
+        private int foundDepth;
+
+        /**
+         * @param start  root of the search, may be a non-root node
+         * @param budget budget, which is checked periodically
+         * @param stop   flag, which is checked periodically to stop the search early
+         */
+        Search(Node start, Budget budget, @Nullable AtomicBoolean stop) {
+            this.start = start;
+            this.budget = budget;
+            this.stop = stop;
+            this.startMoves = start.moves;
+            this.parentZeroIndex = start.parent != null ? start.parent.zeroIndex : -1;
+            this.params = start.gameParameters;
+            this.heuristics = start.heuristics;
+            this.composedHeuristics = heuristics instanceof ComposedHeuristics c ? c : null;
+            this.goal = params.goal;
+            this.width = params.width;
+            this.columns = params.columns;
+            this.size = params.size;
+            // packed nodes unpack their state into a new array
+            this.board = start instanceof PackedNode ? start.getState() : start.getState().clone();
+            int misplacedCount = 0;
+            for (int i = 0; i < size; i++) {
+                if (board[i] != goal[i]) {
+                    misplacedCount++;
+                }
+            }
+            zeroIndices[0] = start.zeroIndex;
+            hValues[0] = start.heuristicsValue;
+            misplaced[0] = misplacedCount;
+            if (composedHeuristics != null) {
+                hComponents = new int[INITIAL_DEPTH][];
+                for (int i = 0; i < INITIAL_DEPTH; i++) {
+                    hComponents[i] = new int[composedHeuristics.getVectorSize()];
+                }
+                System.arraycopy(start.heuristicsComponents, 0, hComponents[0], 0, composedHeuristics.getVectorSize());
+            }
+        }
+
+        /**
+         * Search descendants of the start node (start node itself is not checked).
+         * <br/>
+         * If the search was stopped, the returned value is meaningless.
+         *
+         * @return {@link #FOUND}, if the goal was found, or the next threshold value
+         * @throws me.italankin.fifteen.solver.algorithm.LimitExceededException if the budget is exceeded
+         */
+        int search(int threshold) {
+            int[] board = this.board;
+            AtomicBoolean stop = this.stop;
+            int min = Integer.MAX_VALUE;
+            int depth = 0;
+            directions[0] = DOWN;
+            while (depth >= 0) {
+                int zeroIndex = zeroIndices[depth];
+                int direction = directions[depth];
+                if (direction == EXHAUSTED) {
+                    if (depth > 0) {
+                        // undo the move which led to this depth
+                        int prevZeroIndex = zeroIndices[depth - 1];
+                        board[zeroIndex] = board[prevZeroIndex];
+                        board[prevZeroIndex] = 0;
+                    }
+                    depth--;
+                    continue;
+                }
+                directions[depth] = direction + 1;
+                int next = neighbour(zeroIndex, direction);
+                if (next < 0 || next == (depth > 0 ? zeroIndices[depth - 1] : parentZeroIndex)) {
+                    continue;
+                }
+                if (nodes % Budget.CHECK_INTERVAL == 0 && nodes > 0) {
+                    budget.checkpoint(Budget.CHECK_INTERVAL, 0);
+                    if (stop != null && stop.get()) {
+                        // restore the board for subsequent searches
+                        while (depth > 0) {
+                            int z = zeroIndices[depth];
+                            int p = zeroIndices[depth - 1];
+                            board[z] = board[p];
+                            board[p] = 0;
+                            depth--;
+                        }
+                        return Integer.MAX_VALUE;
+                    }
+                }
+                // move tile at 'next' to the empty cell
+                int tile = board[next];
+                board[zeroIndex] = tile;
+                board[next] = 0;
+                nodes++;
+                if (depth + 1 == zeroIndices.length) {
+                    grow();
+                }
+                int h;
+                if (composedHeuristics != null) {
+                    // next depth is not used until the move is accepted, so its components can be overwritten
+                    int bound = threshold - startMoves - depth - 1;
+                    h = composedHeuristics.calc(board, params, hComponents[depth], hComponents[depth + 1],
+                            zeroIndex, next, bound);
+                } else {
+                    h = heuristics.calc(board, params, hValues[depth], zeroIndex, next);
+                }
+                int f = startMoves + depth + 1 + h;
+                if (f > threshold) {
+                    if (f < min) {
+                        min = f;
+                    }
+                    board[next] = tile;
+                    board[zeroIndex] = 0;
+                    continue;
+                }
+                int m = misplaced[depth]
+                        + (goal[zeroIndex] != tile ? 1 : 0) - (goal[zeroIndex] != 0 ? 1 : 0)
+                        + (goal[next] != 0 ? 1 : 0) - (goal[next] != tile ? 1 : 0);
+                depth++;
+                zeroIndices[depth] = next;
+                hValues[depth] = h;
+                misplaced[depth] = m;
+                directions[depth] = DOWN;
+                if (m == 0) {
+                    foundDepth = depth;
+                    return FOUND;
+                }
+            }
+            return min;
+        }
+
+        /**
+         * @return index of the cell where empty cell will be after a move in {@code direction}, or {@code -1} if
+         * such move is not possible
+         */
+        private int neighbour(int zeroIndex, int direction) {
+            switch (direction) {
+                case DOWN: {
+                    int down = zeroIndex + width;
+                    return down < size ? down : -1;
+                }
+                case UP:
+                    return zeroIndex - width;
+                case LEFT:
+                    return columns[zeroIndex] > 0 ? zeroIndex - 1 : -1;
+                default:
+                    return columns[zeroIndex] < width - 1 ? zeroIndex + 1 : -1;
+            }
+        }
+
+        private void grow() {
+            int newLength = zeroIndices.length << 1;
+            zeroIndices = Arrays.copyOf(zeroIndices, newLength);
+            hValues = Arrays.copyOf(hValues, newLength);
+            misplaced = Arrays.copyOf(misplaced, newLength);
+            directions = Arrays.copyOf(directions, newLength);
+            if (hComponents != null) {
+                int oldLength = hComponents.length;
+                hComponents = Arrays.copyOf(hComponents, newLength);
+                for (int i = oldLength; i < newLength; i++) {
+                    hComponents[i] = new int[composedHeuristics.getVectorSize()];
+                }
+            }
+        }
+
+        /**
+         * @return number of nodes visited by all searches
+         */
+        long nodes() {
+            return nodes;
+        }
+
+        /**
+         * Replay moves from the stack to create {@link Node}s of the solution, must be called only after
+         * {@link #search(int)} returned {@link #FOUND}
+         */
+        Node path() {
+            Node node = start;
+            for (int d = 1; d <= foundDepth; d++) {
+                int zeroIndex = zeroIndices[d];
+                for (Node child : node.children()) {
+                    if (child != null && child.zeroIndex == zeroIndex) {
+                        node = child;
+                        break;
+                    }
+                }
+            }
+            return node;
+        }
+    }
+}
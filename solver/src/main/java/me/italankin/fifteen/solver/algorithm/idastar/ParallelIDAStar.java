@@ -0,0 +1,243 @@
+package me.italankin.fifteen.solver.algorithm.idastar;
+
+import me.italankin.fifteen.solver.Node;
+import me.italankin.fifteen.solver.algorithm.Algorithm;
+import me.italankin.fifteen.solver.algorithm.Budget;
+import me.italankin.fifteen.solver.algorithm.WorkerMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parallel IDA*, which uses all cores for a single game.
+ * <br/>
+ * The top of the search tree is expanded (breadth-first) into a frontier, subtrees of which are searched by
+ * {@link InPlaceIDAStar in-place} depth-first searches in a {@link ForkJoinPool}. When there are not enough queued
+ * tasks for other workers to steal, a subtree is split into its children.
+ * <br/>
+ * All workers share the threshold of the current iteration and stop as soon as the goal is found: there are no
+ * solutions below the threshold (checked by the previous iteration), so any solution found is optimal.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Iterative_deepening_A*">Wikipedia</a>
+ */
+public class ParallelIDAStar implements Algorithm {
+
+    /**
+     * Number of frontier nodes per thread
+     */
+    private static final int FRONTIER_PER_THREAD = 16;
+    /**
+     * Subtrees are split, when the number of queued tasks of a worker is below this value
+     */
+    private static final int SPLIT_SURPLUS = 2;
+    /**
+     * Maximum depth below the frontier, at which subtrees are split
+     */
+    private static final int MAX_SPLIT_DEPTH = 16;
+
+    private final int numThreads;
+
+    public ParallelIDAStar() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param numThreads number of worker threads
+     */
+    public ParallelIDAStar(int numThreads) {
+        if (numThreads <= 0) {
+            throw new IllegalArgumentException("numThreads must be > 0");
+        }
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public Result run(Node start) {
+        return run(start, Budget.UNLIMITED);
+    }
+
+    @Override
+    public Result run(Node start, Budget budget) {
+        if (start.isGoal()) {
+            return new Result(start, 1, 0);
+        }
+        WorkerMetrics metrics = new WorkerMetrics();
+        ForkJoinPool pool = new ForkJoinPool(numThreads, metrics.forkJoinThreadFactory(), null, false);
+        Result result;
+        try {
+            result = new Search(start, pool, budget).run();
+        } finally {
+            pool.shutdownNow();
+        }
+        // workers report their metrics on termination
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        }
+        return result.withWorkerMetrics(metrics);
+    }
+
+    public String toString() {
+        return "IDA*(parallel)";
+    }
+
+    private final class Search {
+
+        private final Node start;
+        private final ForkJoinPool pool;
+        private final Budget budget;
+        private final AtomicBoolean stop = new AtomicBoolean();
+        private final AtomicReference<Node> solution = new AtomicReference<>();
+        private final AtomicInteger nextThreshold = new AtomicInteger();
+        /**
+         * Explored nodes count of each worker, updated only by its owner thread
+         */
+        private final Map<Thread, long[]> workerNodes = new ConcurrentHashMap<>();
+        /**
+         * Nodes explored while building the frontier
+         */
+        private long frontierNodes = 1;
+        private int frontierDepth;
+
+        Search(Node start, ForkJoinPool pool, Budget budget) {
+            this.start = start;
+            this.pool = pool;
+            this.budget = budget;
+        }
+
+        Result run() {
+            List<Node> frontier = frontier();
+            Node found = solution.get();
+            if (found != null) {
+                return new Result(found, frontierNodes, 0);
+            }
+            int threshold = start.heuristicsValue;
+            while (true) {
+                nextThreshold.set(Integer.MAX_VALUE);
+                List<SubtreeTask> tasks = new ArrayList<>(frontier.size());
+                for (Node node : frontier) {
+                    tasks.add(new SubtreeTask(node, threshold));
+                }
+                pool.invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        invokeAll(tasks);
+                    }
+                });
+                found = solution.get();
+                if (found != null) {
+                    List<Long> perWorker = new ArrayList<>(workerNodes.size());
+                    long nodes = frontierNodes;
+                    for (long[] count : workerNodes.values()) {
+                        perWorker.add(count[0]);
+                        nodes += count[0];
+                    }
+                    return new Result(found, nodes, 0, null, perWorker);
+                }
+                threshold = nextThreshold.get();
+                if (threshold == Integer.MAX_VALUE) {
+                    // no node exceeded the threshold, the whole space is searched
+                    throw new IllegalStateException("No solution! Search space is exhausted");
+                }
+            }
+        }
+
+        /**
+         * Expand the top of the tree breadth-first, until there are enough nodes for all threads.
+         * If the goal is found during expansion, it is set to {@link #solution} (and it is optimal).
+         */
+        private List<Node> frontier() {
+            List<Node> level = new ArrayList<>();
+            level.add(start);
+            while (!level.isEmpty() && level.size() < numThreads * FRONTIER_PER_THREAD) {
+                List<Node> next = new ArrayList<>(level.size() * 3);
+                for (Node node : level) {
+                    for (Node child : node.children()) {
+                        if (child == null) break;
+                        frontierNodes++;
+                        if (child.isGoal()) {
+                            solution.set(child);
+                            return next;
+                        }
+                        next.add(child);
+                    }
+                }
+                level = next;
+                frontierDepth++;
+            }
+            return level;
+        }
+
+        private void addNodes(long count) {
+            workerNodes.computeIfAbsent(Thread.currentThread(), t -> new long[1])[0] += count;
+        }
+
+        private void updateThreshold(int t) {
+            nextThreshold.accumulateAndGet(t, Math::min);
+        }
+
+        private void found(Node node) {
+            if (solution.compareAndSet(null, node)) {
+                stop.set(true);
+            }
+        }
+
+        private final class SubtreeTask extends RecursiveAction {
+
+            private static final long serialVersionUID = 1L;
+
+            private final Node node;
+            private final int threshold;
+
+            SubtreeTask(Node node, int threshold) {
+                this.node = node;
+                this.threshold = threshold;
+            }
+
+            @Override
+            protected void compute() {
+                if (stop.get()) {
+                    return;
+                }
+                addNodes(1);
+                int f = node.moves + node.heuristicsValue;
+                if (f > threshold) {
+                    updateThreshold(f);
+                    return;
+                }
+                if (node.isGoal()) {
+                    found(node);
+                    return;
+                }
+                int depth = node.moves - start.moves - frontierDepth;
+                if (getSurplusQueuedTaskCount() < SPLIT_SURPLUS && depth < MAX_SPLIT_DEPTH) {
+                    List<SubtreeTask> subtasks = new ArrayList<>(3);
+                    for (Node child : node.children(threshold - node.moves - 1)) {
+                        if (child == null) break;
+                        subtasks.add(new SubtreeTask(child, threshold));
+                    }
+                    invokeAll(subtasks);
+                    return;
+                }
+                InPlaceIDAStar.Search search = new InPlaceIDAStar.Search(node, budget, stop);
+                int t = search.search(threshold);
+                addNodes(search.nodes());
+                if (t == InPlaceIDAStar.Search.FOUND) {
+                    found(search.path());
+                } else {
+                    updateThreshold(t);
+                }
+            }
+        }
+    }
+}
@@ -23,6 +23,12 @@ class FrozenGameGenerator(
     }
 }
 
+/**
+ * `true`, if every iterator of this generator produces the same games and does not affect other iterators
+ */
+internal val GameGenerator.isFrozen: Boolean
+    get() = this is FrozenGameGenerator || this is StaticGameGenerator
+
 fun BoundedGameGenerator.freeze(): BoundedGameGenerator {
     if (this is FrozenGameGenerator) {
         return this
@@ -0,0 +1,567 @@
+package me.italankin.fifteen.solver.heuristics
+
+import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.PackedNode
+
+/**
+ * Heuristics, composed of [components] with [plus], [times], [div] and [max], e.g.
+ * `2 * ManhattanDistance() + Inversions()`.
+ *
+ * The combined value can't be split back into values of components, so incremental calculation needs the previous
+ * value of every component. Callers keep a vector of [size] component values per node and use [calc] overloads with
+ * `values`: each component is updated incrementally from its own previous value and the combined value is computed
+ * from the updated vector. Overloads without vectors recalculate all components from scratch.
+ *
+ * [StatefulHeuristics] components keep their data in the same vector after all component values, so vectors have
+ * [vectorSize] elements.
+ *
+ * Nested compositions are flattened, so [components] are never [ComposedHeuristics] themselves.
+ *
+ * Every component is a separate [Heuristics] call, which [fuse] replaces with a single specialized evaluator for
+ * built-in heuristics.
+ *
+ * If the expression is a [max][Term.Max], its arguments are evaluated lazily in order of their
+ * [cost][Heuristics.cost], see [max]: incremental calculation with
+ * a `bound` stops as soon as the value exceeds it. Such value is the maximum of the evaluated arguments only, and
+ * values of the remaining components are not updated, so a state with the value above `bound` must be pruned by the
+ * caller and never used as a previous state.
+ */
+class ComposedHeuristics private constructor(
+    /**
+     * Heuristics, whose values are combined
+     */
+    val components: List<Heuristics>,
+    /**
+     * Expression, which combines values of [components]
+     */
+    val term: Term,
+    /**
+     * `true`, if components are calculated by a [HeuristicsFusion]
+     */
+    val fused: Boolean = false
+) : Heuristics {
+
+    companion object {
+
+        /**
+         * @return vector for component values of [heuristics] or `null`, if [heuristics] is not composed
+         */
+        @JvmStatic
+        fun newValues(heuristics: Heuristics): IntArray? {
+            return if (heuristics is ComposedHeuristics) IntArray(heuristics.vectorSize) else null
+        }
+
+        /**
+         * @return composition of the single [heuristics], if it is [StatefulHeuristics] and can be updated
+         * incrementally only with vectors, or [heuristics] itself
+         */
+        @JvmStatic
+        fun incremental(heuristics: Heuristics): Heuristics {
+            return if (heuristics is StatefulHeuristics) of(heuristics) else heuristics
+        }
+
+        internal fun plus(left: Heuristics, right: Heuristics): ComposedHeuristics {
+            val l = of(left)
+            val r = of(right)
+            return ComposedHeuristics(l.components + r.components, Term.Sum(l.term, r.term.shift(l.size)))
+        }
+
+        internal fun times(multiplier: Int, heuristics: Heuristics): ComposedHeuristics {
+            val h = of(heuristics)
+            return ComposedHeuristics(h.components, Term.Product(multiplier, h.term))
+        }
+
+        internal fun div(heuristics: Heuristics, divider: Int): ComposedHeuristics {
+            val h = of(heuristics)
+            return ComposedHeuristics(h.components, Term.Quotient(h.term, divider))
+        }
+
+        internal fun max(heuristics: List<Heuristics>): ComposedHeuristics {
+            // arguments of nested maximums are arguments of this one
+            val arguments = ArrayList<ComposedHeuristics>()
+            for (h in heuristics.map(::of)) {
+                val term = h.term
+                if (term is Term.Max) {
+                    var first = 0
+                    for (t in term.terms) {
+                        val last = t.lastComponent
+                        arguments += ComposedHeuristics(h.components.subList(first, last + 1), t.shift(-first))
+                        first = last + 1
+                    }
+                } else {
+                    arguments += h
+                }
+            }
+            // stable sort keeps the order of arguments of the same cost
+            arguments.sortBy { it.cost }
+            val components = ArrayList<Heuristics>()
+            val terms = ArrayList<Term>()
+            for (argument in arguments) {
+                terms += argument.term.shift(components.size)
+                components += argument.components
+            }
+            return ComposedHeuristics(components, Term.Max(terms))
+        }
+
+        private fun of(heuristics: Heuristics): ComposedHeuristics {
+            if (heuristics is ComposedHeuristics) {
+                return heuristics
+            }
+            return ComposedHeuristics(listOf(heuristics), Term.Component(0, heuristics))
+        }
+    }
+
+    /**
+     * Number of component values
+     */
+    val size: Int
+        get() = components.size
+
+    private val componentsArray = components.toTypedArray()
+
+    /**
+     * Offsets of data of [StatefulHeuristics] components in vectors, `-1` for other components
+     */
+    private val dataOffsets = IntArray(size)
+
+    /**
+     * Number of elements in vectors for component values and data of [StatefulHeuristics] components
+     */
+    val vectorSize: Int
+
+    init {
+        var offset = size
+        for (i in componentsArray.indices) {
+            val component = componentsArray[i]
+            if (component is StatefulHeuristics) {
+                dataOffsets[i] = offset
+                offset += component.dataSize
+            } else {
+                dataOffsets[i] = -1
+            }
+        }
+        vectorSize = offset
+    }
+
+    private val fusion = if (fused) HeuristicsFusion(componentsArray, dataOffsets) else null
+
+    /**
+     * Arguments of the lazy [max][Term.Max], `null` if [term] is not a max
+     */
+    private val maxTerms = if (term is Term.Max) term.terms.toTypedArray() else null
+
+    /**
+     * Sum of costs of [components]
+     */
+    override val cost: Int = components.sumOf { it.cost }
+
+    /**
+     * "Compile" this expression: calculate values of built-in [ManhattanDistance], [LinearConflict] and
+     * [HammingDistance] components together, in one pass over the state, sharing manhattan distance between them and
+     * without interface calls. Values and [toString] are the same as of this heuristics. Arguments of a
+     * [max][Term.Max] are still evaluated lazily: deltas, shared by components of different arguments, are found
+     * for each of them.
+     *
+     * @return fused copy of this heuristics
+     */
+    fun fuse(): ComposedHeuristics {
+        return if (fused) this else ComposedHeuristics(components, term, fused = true)
+    }
+
+    override fun calc(state: IntArray, params: GameParameters): Int {
+        if (fusion != null) {
+            return calc(state, params, IntArray(vectorSize))
+        }
+        return term.calc(state, params)
+    }
+
+    /**
+     * Component values can't be derived from [prevValue], so all components are recalculated
+     */
+    override fun calc(
+        state: IntArray,
+        params: GameParameters,
+        prevValue: Int,
+        prevZeroIndex: Int,
+        newZeroIndex: Int
+    ): Int {
+        return calc(state, params)
+    }
+
+    override fun calc(state: Long, params: GameParameters): Int {
+        if (fusion != null) {
+            return calc(state, params, IntArray(vectorSize))
+        }
+        return term.calc(state, params)
+    }
+
+    /**
+     * Component values can't be derived from [prevValue], so all components are recalculated
+     */
+    override fun calc(
+        state: Long,
+        params: GameParameters,
+        prevValue: Int,
+        prevZeroIndex: Int,
+        newZeroIndex: Int
+    ): Int {
+        return calc(state, params)
+    }
+
+    /**
+     * Calculate initial heuristic value
+     *
+     * @param values vector of [vectorSize] elements to store component values
+     */
+    fun calc(state: IntArray, params: GameParameters, values: IntArray): Int {
+        val fusion = fusion
+        if (fusion != null) {
+            fusion.calc(state, params, values)
+            return term.value(values)
+        }
+        val components = componentsArray
+        val dataOffsets = dataOffsets
+        for (i in components.indices) {
+            values[i] = components[i].calcComponent(state, params, values, dataOffsets[i])
+        }
+        return term.value(values)
+    }
+
+    /**
+     * Calculate new heuristic value, given previous values of components
+     *
+     * @param prevValues component values of the previous state
+     * @param values vector of [vectorSize] elements to store component values, may be the same as [prevValues]
+     * @param bound calculation of a lazy [max][Term.Max] stops, once its value exceeds [bound]
+     */
+    @JvmOverloads
+    fun calc(
+        state: IntArray,
+        params: GameParameters,
+        prevValues: IntArray,
+        values: IntArray,
+        prevZeroIndex: Int,
+        newZeroIndex: Int,
+        bound: Int = Int.MAX_VALUE
+    ): Int {
+        val maxTerms = maxTerms
+        if (maxTerms != null) {
+            var result = Int.MIN_VALUE
+            var first = 0
+            for (maxTerm in maxTerms) {
+                val last = maxTerm.lastComponent
+                update(state, params, prevValues, values, prevZeroIndex, newZeroIndex, first, last)
+                first = last + 1
+                result = maxOf(result, maxTerm.value(values))
+                if (result > bound) {
+                    break
+                }
+            }
+            return result
+        }
+        update(state, params, prevValues, values, prevZeroIndex, newZeroIndex, 0, size - 1)
+        return term.value(values)
+    }
+
+    /**
+     * Calculate initial heuristic value for a [packed][PackedNode] state
+     *
+     * @param values vector of [vectorSize] elements to store component values
+     */
+    fun calc(state: Long, params: GameParameters, values: IntArray): Int {
+        val fusion = fusion
+        if (fusion != null) {
+            fusion.calc(state, params, values)
+            return term.value(values)
+        }
+        val components = componentsArray
+        val dataOffsets = dataOffsets
+        for (i in components.indices) {
+            values[i] = components[i].calcComponent(state, params, values, dataOffsets[i])
+        }
+        return term.value(values)
+    }
+
+    /**
+     * Calculate new heuristic value for a [packed][PackedNode] state, given previous values of components
+     *
+     * @param prevValues component values of the previous state
+     * @param values vector of [vectorSize] elements to store component values, may be the same as [prevValues]
+     * @param bound calculation of a lazy [max][Term.Max] stops, once its value exceeds [bound]
+     */
+    @JvmOverloads
+    fun calc(
+        state: Long,
+        params: GameParameters,
+        prevValues: IntArray,
+        values: IntArray,
+        prevZeroIndex: Int,
+        newZeroIndex: Int,
+        bound: Int = Int.MAX_VALUE
+    ): Int {
+        val maxTerms = maxTerms
+        if (maxTerms != null) {
+            var result = Int.MIN_VALUE
+            var first = 0
+            for (maxTerm in maxTerms) {
+                val last = maxTerm.lastComponent
+                update(state, params, prevValues, values, prevZeroIndex, newZeroIndex, first, last)
+                first = last + 1
+                result = maxOf(result, maxTerm.value(values))
+                if (result > bound) {
+                    break
+                }
+            }
+            return result
+        }
+        update(state, params, prevValues, values, prevZeroIndex, newZeroIndex, 0, size - 1)
+        return term.value(values)
+    }
+
+    /**
+     * Update values of components from [first] to [last] (inclusive)
+     */
+    private fun update(
+        state: IntArray,
+        params: GameParameters,
+        prevValues: IntArray,
+        values: IntArray,
+        prevZeroIndex: Int,
+        newZeroIndex: Int,
+        first: Int,
+        last: Int
+    ) {
+        val fusion = fusion
+        if (fusion != null) {
+            fusion.calc(state, params, prevValues, values, prevZeroIndex, newZeroIndex, first, last)
+            return
+        }
+        val components = componentsArray
+        val dataOffsets = dataOffsets
+        for (i in first..last) {
+            values[i] = components[i].calcComponent(
+                state, params, prevValues[i], prevValues, values, dataOffsets[i], prevZeroIndex, newZeroIndex
+            )
+        }
+    }
+
+    /**
+     * Update values of components from [first] to [last] (inclusive) for a [packed][PackedNode] state
+     */
+    private fun update(
+        state: Long,
+        params: GameParameters,
+        prevValues: IntArray,
+        values: IntArray,
+        prevZeroIndex: Int,
+        newZeroIndex: Int,
+        first: Int,
+        last: Int
+    ) {
+        val fusion = fusion
+        if (fusion != null) {
+            fusion.calc(state, params, prevValues, values, prevZeroIndex, newZeroIndex, first, last)
+            return
+        }
+        val components = componentsArray
+        val dataOffsets = dataOffsets
+        for (i in first..last) {
+            values[i] = components[i].calcComponent(
+                state, params, prevValues[i], prevValues, values, dataOffsets[i], prevZeroIndex, newZeroIndex
+            )
+        }
+    }
+
+    override fun toString(): String = term.toString()
+
+    /**
+     * Node of an expression, which combines values of components
+     */
+    sealed class Term {
+
+        /**
+         * @return value of the expression for component [values]
+         */
+        abstract fun value(values: IntArray): Int
+
+        internal abstract fun calc(state: IntArray, params: GameParameters): Int
+
+        internal abstract fun calc(state: Long, params: GameParameters): Int
+
+        /**
+         * @return the same expression with component indices shifted by [offset]
+         */
+        internal abstract fun shift(offset: Int): Term
+
+        /**
+         * Index of the last component, used by the expression. Components of an expression have consecutive indices.
+         */
+        internal abstract val lastComponent: Int
+
+        /**
+         * Value of the component at [index]
+         */
+        class Component(val index: Int, val heuristics: Heuristics) : Term() {
+
+            override fun value(values: IntArray): Int = values[index]
+
+            override fun calc(state: IntArray, params: GameParameters): Int = heuristics.calc(state, params)
+
+            override fun calc(state: Long, params: GameParameters): Int = heuristics.calc(state, params)
+
+            override fun shift(offset: Int): Term = Component(index + offset, heuristics)
+
+            override val lastComponent: Int
+                get() = index
+
+            override fun toString(): String = heuristics.toString()
+        }
+
+        class Sum(val left: Term, val right: Term) : Term() {
+
+            override fun value(values: IntArray): Int = left.value(values) + right.value(values)
+
+            override fun calc(state: IntArray, params: GameParameters): Int {
+                return left.calc(state, params) + right.calc(state, params)
+            }
+
+            override fun calc(state: Long, params: GameParameters): Int {
+                return left.calc(state, params) + right.calc(state, params)
+            }
+
+            override fun shift(offset: Int): Term = Sum(left.shift(offset), right.shift(offset))
+
+            override val lastComponent: Int
+                get() = right.lastComponent
+
+            override fun toString(): String = "$left + $right"
+        }
+
+        class Product(val multiplier: Int, val term: Term) : Term() {
+
+            override fun value(values: IntArray): Int = multiplier * term.value(values)
+
+            override fun calc(state: IntArray, params: GameParameters): Int = multiplier * term.calc(state, params)
+
+            override fun calc(state: Long, params: GameParameters): Int = multiplier * term.calc(state, params)
+
+            override fun shift(offset: Int): Term = Product(multiplier, term.shift(offset))
+
+            override val lastComponent: Int
+                get() = term.lastComponent
+
+            override fun toString(): String = "$multiplier * ($term)"
+        }
+
+        class Quotient(val term: Term, val divider: Int) : Term() {
+
+            override fun value(values: IntArray): Int = term.value(values) / divider
+
+            override fun calc(state: IntArray, params: GameParameters): Int = term.calc(state, params) / divider
+
+            override fun calc(state: Long, params: GameParameters): Int = term.calc(state, params) / divider
+
+            override fun shift(offset: Int): Term = Quotient(term.shift(offset), divider)
+
+            override val lastComponent: Int
+                get() = term.lastComponent
+
+            override fun toString(): String = "($term) / $divider"
+        }
+
+        /**
+         * Maximum of [terms], which are evaluated in order, see [ComposedHeuristics]
+         */
+        class Max(val terms: List<Term>) : Term() {
+
+            override fun value(values: IntArray): Int {
+                var result = Int.MIN_VALUE
+                for (term in terms) {
+                    result = maxOf(result, term.value(values))
+                }
+                return result
+            }
+
+            override fun calc(state: IntArray, params: GameParameters): Int {
+                var result = Int.MIN_VALUE
+                for (term in terms) {
+                    result = maxOf(result, term.calc(state, params))
+                }
+                return result
+            }
+
+            override fun calc(state: Long, params: GameParameters): Int {
+                var result = Int.MIN_VALUE
+                for (term in terms) {
+                    result = maxOf(result, term.calc(state, params))
+                }
+                return result
+            }
+
+            override fun shift(offset: Int): Term = Max(terms.map { it.shift(offset) })
+
+            override val lastComponent: Int
+                get() = terms.last().lastComponent
+
+            override fun toString(): String = terms.joinToString(prefix = "max(", postfix = ")")
+        }
+    }
+}
+
+/**
+ * Calculate initial value of a component with data at [offset] of [values], if it is [StatefulHeuristics]
+ * (`offset >= 0`)
+ */
+internal fun Heuristics.calcComponent(state: IntArray, params: GameParameters, values: IntArray, offset: Int): Int {
+    return if (offset < 0) calc(state, params) else (this as StatefulHeuristics).calc(state, params, values, offset)
+}
+
+/**
+ * Calculate new value of a component with data at [offset] of [prevValues] and [values], if it is
+ * [StatefulHeuristics] (`offset >= 0`)
+ */
+internal fun Heuristics.calcComponent(
+    state: IntArray,
+    params: GameParameters,
+    prevValue: Int,
+    prevValues: IntArray,
+    values: IntArray,
+    offset: Int,
+    prevZeroIndex: Int,
+    newZeroIndex: Int
+): Int {
+    if (offset < 0) {
+        return calc(state, params, prevValue, prevZeroIndex, newZeroIndex)
+    }
+    return (this as StatefulHeuristics).calc(
+        state, params, prevValue, prevValues, values, offset, prevZeroIndex, newZeroIndex
+    )
+}
+
+/**
+ * Calculate initial value of a component for a [packed][PackedNode] state, see [Heuristics.calcComponent]
+ */
+internal fun Heuristics.calcComponent(state: Long, params: GameParameters, values: IntArray, offset: Int): Int {
+    return if (offset < 0) calc(state, params) else (this as StatefulHeuristics).calc(state, params, values, offset)
+}
+
+/**
+ * Calculate new value of a component for a [packed][PackedNode] state, see [Heuristics.calcComponent]
+ */
+internal fun Heuristics.calcComponent(
+    state: Long,
+    params: GameParameters,
+    prevValue: Int,
+    prevValues: IntArray,
+    values: IntArray,
+    offset: Int,
+    prevZeroIndex: Int,
+    newZeroIndex: Int
+): Int {
+    if (offset < 0) {
+        return calc(state, params, prevValue, prevZeroIndex, newZeroIndex)
+    }
+    return (this as StatefulHeuristics).calc(
+        state, params, prevValue, prevValues, values, offset, prevZeroIndex, newZeroIndex
+    )
+}
@@ -2,6 +2,7 @@ package me.italankin.fifteen.solver.heuristics
 
 import me.italankin.fifteen.game.euclidean
 import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.PackedNode
 import kotlin.math.roundToInt
 
 /**
@@ -10,14 +11,33 @@ import kotlin.math.roundToInt
 class EuclideanDistance : Heuristics {
 
     override fun calc(state: IntArray, params: GameParameters): Int {
-        val width = params.width
+        val rows = params.rows
+        val columns = params.columns
+        val goalRows = params.goalRows
+        val goalColumns = params.goalColumns
         var distance = 0f
         for ((i, n) in state.withIndex()) {
             distance += euclidean(
-                params.goalIndices[n] % width,
-                params.goalIndices[n] / width,
-                i % width,
-                i / width
+                goalColumns[n],
+                goalRows[n],
+                columns[i],
+                rows[i]
+            )
+        }
+        return distance.roundToInt()
+    }
+
+    override fun calc(state: Long, params: GameParameters): Int {
+        val rows = params.rows
+        val columns = params.columns
+        var distance = 0f
+        for (i in 0 until params.size) {
+            val index = PackedNode.get(state, i)
+            distance += euclidean(
+                columns[index],
+                rows[index],
+                columns[i],
+                rows[i]
             )
         }
         return distance.roundToInt()
@@ -1,6 +1,7 @@
 package me.italankin.fifteen.solver.heuristics
 
 import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.PackedNode
 
 /**
  * Number of misplaced tiles
@@ -21,5 +22,20 @@ class HammingDistance : Heuristics {
         return distance
     }
 
+    override fun calc(state: Long, params: GameParameters): Int {
+        val blank = params.goalIndices[0]
+        var distance = 0
+        for (i in 0 until params.size) {
+            if (i == blank) continue
+            if (PackedNode.get(state, i) != i) {
+                distance++
+            }
+        }
+        return distance
+    }
+
+    override val cost: Int
+        get() = 1
+
     override fun toString(): String = "HammingDistance"
 }
@@ -1,6 +1,7 @@
 package me.italankin.fifteen.solver.heuristics
 
 import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.PackedNode
 
 interface Heuristics {
 
@@ -11,6 +12,8 @@ interface Heuristics {
 
     /**
      * Calculate new heuristic value, given its previous value
+     *
+     * @see ComposedHeuristics
      */
     fun calc(
         state: IntArray,
@@ -20,70 +23,80 @@ interface Heuristics {
         newZeroIndex: Int
     ): Int = calc(state, params)
 
+    /**
+     * Calculate initial heuristic value for a [packed][PackedNode] state.
+     *
+     * Default implementation unpacks [state], built-in heuristics work with packed state directly.
+     */
+    fun calc(state: Long, params: GameParameters): Int = calc(PackedNode.unpack(state, params), params)
+
+    /**
+     * Calculate new heuristic value for a [packed][PackedNode] state, given its previous value
+     */
+    fun calc(
+        state: Long,
+        params: GameParameters,
+        prevValue: Int,
+        prevZeroIndex: Int,
+        newZeroIndex: Int
+    ): Int = calc(state, params)
+
+    /**
+     * Relative cost of calculating a new value after a move, used by [max] to evaluate cheaper heuristics first.
+     *
+     * Built-in heuristics: [HammingDistance] and [ManhattanDistance] - `1`, [LinearConflict] - `2`,
+     * [WalkingDistance] - `3`, [PatternDatabase][me.italankin.fifteen.solver.heuristics.pdb.PatternDatabase] - `4`,
+     * heuristics without incremental calculation - `5` (default).
+     */
+    val cost: Int
+        get() = 5
+
     override fun toString(): String
 }
 
+/**
+ * @return [ComposedHeuristics], which adds values of this heuristics and [other]
+ */
 operator fun Heuristics.plus(other: Heuristics): Heuristics {
-    return object : Heuristics {
-        override fun calc(state: IntArray, params: GameParameters): Int {
-            return this@plus.calc(state, params) + other.calc(state, params)
-        }
-
-        override fun calc(
-            state: IntArray,
-            params: GameParameters,
-            prevValue: Int,
-            prevZeroIndex: Int,
-            newZeroIndex: Int
-        ): Int {
-            return this@plus.calc(state, params, prevValue, prevZeroIndex, newZeroIndex) +
-                    other.calc(state, params, prevValue, prevZeroIndex, newZeroIndex)
-        }
-
-        override fun toString(): String = "${this@plus} + $other"
-    }
+    return ComposedHeuristics.plus(this, other)
 }
 
+/**
+ * @return [ComposedHeuristics], which multiplies values of [heuristics] by this number
+ */
 operator fun Int.times(heuristics: Heuristics): Heuristics {
-    return object : Heuristics {
-        override fun calc(state: IntArray, params: GameParameters): Int {
-            return this@times * heuristics.calc(state, params)
-        }
-
-        override fun calc(
-            state: IntArray,
-            params: GameParameters,
-            prevValue: Int,
-            prevZeroIndex: Int,
-            newZeroIndex: Int
-        ): Int {
-            return this@times * heuristics.calc(state, params, prevValue, prevZeroIndex, newZeroIndex)
-        }
-
-        override fun toString(): String = "${this@times} * ($heuristics)"
-    }
+    return ComposedHeuristics.times(this, heuristics)
 }
 
 operator fun Heuristics.times(multiplier: Int): Heuristics {
     return multiplier.times(this)
 }
 
+/**
+ * @return [ComposedHeuristics], which divides values of this heuristics by [divider]
+ */
 operator fun Heuristics.div(divider: Int): Heuristics {
-    return object : Heuristics {
-        override fun calc(state: IntArray, params: GameParameters): Int {
-            return this@div.calc(state, params) / divider
-        }
+    return ComposedHeuristics.div(this, divider)
+}
 
-        override fun calc(
-            state: IntArray,
-            params: GameParameters,
-            prevValue: Int,
-            prevZeroIndex: Int,
-            newZeroIndex: Int
-        ): Int {
-            return this@div.calc(state, params, prevValue, prevZeroIndex, newZeroIndex) / divider
-        }
+/**
+ * Maximum of admissible heuristics is admissible and dominates each of them.
+ *
+ * Heuristics are sorted by their [cost][Heuristics.cost] (arguments of the same cost keep their order) and evaluated
+ * from the cheapest to the most expensive. Algorithms, which supply a pruning bound, e.g.
+ * [IDAStar][me.italankin.fifteen.solver.algorithm.idastar.IDAStar], stop the evaluation once the value exceeds the
+ * bound, so expensive heuristics are skipped for states, pruned by cheap ones, e.g.
+ * `max(PatternDatabase(PatternDatabase.PARTITION_4X4_555), WalkingDistance(), ManhattanDistance())`.
+ *
+ * @return [ComposedHeuristics], which takes the maximum of values of [first] and [others]
+ */
+fun max(first: Heuristics, vararg others: Heuristics): Heuristics {
+    return ComposedHeuristics.max(listOf(first, *others))
+}
 
-        override fun toString(): String = "(${this@div}) / $divider"
-    }
+/**
+ * @return [fused][ComposedHeuristics.fuse] version of this heuristics, if it is composed, or this heuristics
+ */
+fun Heuristics.fuse(): Heuristics {
+    return if (this is ComposedHeuristics) fuse() else this
 }
@@ -0,0 +1,201 @@
+package me.italankin.fifteen.solver.heuristics
+
+import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.PackedNode
+
+/**
+ * Specialized evaluator of [ComposedHeuristics] components, see [ComposedHeuristics.fuse].
+ *
+ * Built-in [ManhattanDistance], [LinearConflict] and [HammingDistance] components are calculated together without
+ * calls to them: a single pass over the state finds manhattan distance and misplaced tiles, linear conflicts are added
+ * on top of the same manhattan distance. Incremental calculation finds deltas of the moved tile once for all of them
+ * in the updated range of components, which is a single argument of a lazy [max][ComposedHeuristics.Term.Max] or all
+ * of the components. Other components are calculated as usual.
+ */
+internal class HeuristicsFusion(
+    private val components: Array<Heuristics>,
+    /**
+     * Offsets of data of [StatefulHeuristics] components, see [ComposedHeuristics]
+     */
+    private val dataOffsets: IntArray
+) {
+
+    private companion object {
+        /**
+         * Marker of a delta, which is not calculated yet
+         */
+        const val UNKNOWN = Int.MIN_VALUE
+
+        const val OTHER = 0
+        const val MANHATTAN_DISTANCE = 1
+        const val LINEAR_CONFLICT = 2
+        const val HAMMING_DISTANCE = 3
+    }
+
+    private val kinds = IntArray(components.size) {
+        when (components[it]) {
+            is ManhattanDistance -> MANHATTAN_DISTANCE
+            is LinearConflict -> LINEAR_CONFLICT
+            is HammingDistance -> HAMMING_DISTANCE
+            else -> OTHER
+        }
+    }
+    private val manhattanDistance = kinds.any { it == MANHATTAN_DISTANCE || it == LINEAR_CONFLICT }
+    private val linearConflicts = kinds.any { it == LINEAR_CONFLICT }
+    private val hammingDistance = kinds.any { it == HAMMING_DISTANCE }
+
+    fun calc(state: IntArray, params: GameParameters, values: IntArray) {
+        var md = 0
+        var hd = 0
+        if (manhattanDistance || hammingDistance) {
+            val size = params.size
+            val goal = params.goal
+            val manhattan = params.manhattan
+            for (i in state.indices) {
+                val n = state[i]
+                if (goal[i] != 0 && n != goal[i]) hd++
+                md += manhattan[n * size + i]
+            }
+        }
+        val lc = if (linearConflicts) md + LinearConflict.linearConflicts(state, params) else 0
+        val kinds = kinds
+        for (i in kinds.indices) {
+            values[i] = when (kinds[i]) {
+                MANHATTAN_DISTANCE -> md
+                LINEAR_CONFLICT -> lc
+                HAMMING_DISTANCE -> hd
+                else -> components[i].calcComponent(state, params, values, dataOffsets[i])
+            }
+        }
+    }
+
+    /**
+     * Update values of components from [first] to [last] (inclusive)
+     */
+    fun calc(
+        state: IntArray,
+        params: GameParameters,
+        prevValues: IntArray,
+        values: IntArray,
+        prevZeroIndex: Int,
+        newZeroIndex: Int,
+        first: Int,
+        last: Int
+    ) {
+        val tile = state[prevZeroIndex]
+        var mdDelta = UNKNOWN
+        var lcDelta = UNKNOWN
+        var hdDelta = UNKNOWN
+        val kinds = kinds
+        for (i in first..last) {
+            val kind = kinds[i]
+            if ((kind == MANHATTAN_DISTANCE || kind == LINEAR_CONFLICT) && mdDelta == UNKNOWN) {
+                val offset = tile * params.size
+                mdDelta = params.manhattan[offset + prevZeroIndex] - params.manhattan[offset + newZeroIndex]
+            }
+            if (kind == LINEAR_CONFLICT && lcDelta == UNKNOWN) {
+                lcDelta = LinearConflict.linearConflictsDelta(state, params, prevZeroIndex, newZeroIndex)
+            }
+            if (kind == HAMMING_DISTANCE && hdDelta == UNKNOWN) {
+                val goal = params.goal
+                hdDelta = misplaced(goal[prevZeroIndex], tile) + misplaced(goal[newZeroIndex], 0) -
+                        misplaced(goal[newZeroIndex], tile) - misplaced(goal[prevZeroIndex], 0)
+            }
+            values[i] = when (kind) {
+                MANHATTAN_DISTANCE -> prevValues[i] + mdDelta
+                LINEAR_CONFLICT -> prevValues[i] + mdDelta + lcDelta
+                HAMMING_DISTANCE -> prevValues[i] + hdDelta
+                else -> components[i].calcComponent(
+                    state, params, prevValues[i], prevValues, values, dataOffsets[i], prevZeroIndex, newZeroIndex
+                )
+            }
+        }
+    }
+
+    fun calc(state: Long, params: GameParameters, values: IntArray) {
+        var md = 0
+        var hd = 0
+        if (manhattanDistance || hammingDistance) {
+            val size = params.size
+            val blank = params.goalIndices[0]
+            val manhattan = params.packedManhattan
+            for (i in 0 until size) {
+                // for packed state a tile's goal index is stored instead of a tile number
+                val index = PackedNode.get(state, i)
+                if (i != blank && index != i) hd++
+                md += manhattan[index * size + i]
+            }
+        }
+        val lc = if (linearConflicts) md + LinearConflict.linearConflicts(state, params) else 0
+        val kinds = kinds
+        for (i in kinds.indices) {
+            values[i] = when (kinds[i]) {
+                MANHATTAN_DISTANCE -> md
+                LINEAR_CONFLICT -> lc
+                HAMMING_DISTANCE -> hd
+                else -> components[i].calcComponent(state, params, values, dataOffsets[i])
+            }
+        }
+    }
+
+    /**
+     * Update values of components from [first] to [last] (inclusive) for a [packed][PackedNode] state
+     */
+    fun calc(
+        state: Long,
+        params: GameParameters,
+        prevValues: IntArray,
+        values: IntArray,
+        prevZeroIndex: Int,
+        newZeroIndex: Int,
+        first: Int,
+        last: Int
+    ) {
+        val index = PackedNode.get(state, prevZeroIndex)
+        var mdDelta = UNKNOWN
+        var lcDelta = UNKNOWN
+        var hdDelta = UNKNOWN
+        val kinds = kinds
+        for (i in first..last) {
+            val kind = kinds[i]
+            if ((kind == MANHATTAN_DISTANCE || kind == LINEAR_CONFLICT) && mdDelta == UNKNOWN) {
+                val offset = index * params.size
+                mdDelta = params.packedManhattan[offset + prevZeroIndex] -
+                        params.packedManhattan[offset + newZeroIndex]
+            }
+            if (kind == LINEAR_CONFLICT && lcDelta == UNKNOWN) {
+                lcDelta = LinearConflict.linearConflictsDelta(state, params, prevZeroIndex, newZeroIndex)
+            }
+            if (kind == HAMMING_DISTANCE && hdDelta == UNKNOWN) {
+                val blank = params.goalIndices[0]
+                hdDelta = misplacedPacked(prevZeroIndex, index, blank) +
+                        misplacedPacked(newZeroIndex, blank, blank) -
+                        misplacedPacked(newZeroIndex, index, blank) - misplacedPacked(prevZeroIndex, blank, blank)
+            }
+            values[i] = when (kind) {
+                MANHATTAN_DISTANCE -> prevValues[i] + mdDelta
+                LINEAR_CONFLICT -> prevValues[i] + mdDelta + lcDelta
+                HAMMING_DISTANCE -> prevValues[i] + hdDelta
+                else -> components[i].calcComponent(
+                    state, params, prevValues[i], prevValues, values, dataOffsets[i], prevZeroIndex, newZeroIndex
+                )
+            }
+        }
+    }
+
+    /**
+     * @return `1`, if [HammingDistance] counts a cell with [expected] number, holding [actual] number
+     */
+    @Suppress("NOTHING_TO_INLINE")
+    private inline fun misplaced(expected: Int, actual: Int): Int {
+        return if (expected != 0 && actual != expected) 1 else 0
+    }
+
+    /**
+     * @return `1`, if [HammingDistance] counts [cell] of a packed state, holding goal index [actual]
+     */
+    @Suppress("NOTHING_TO_INLINE")
+    private inline fun misplacedPacked(cell: Int, actual: Int, blank: Int): Int {
+        return if (cell != blank && actual != cell) 1 else 0
+    }
+}
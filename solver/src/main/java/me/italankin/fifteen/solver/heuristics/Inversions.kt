@@ -2,6 +2,7 @@ package me.italankin.fifteen.solver.heuristics
 
 import me.italankin.fifteen.game.inversions
 import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.PackedNode
 
 class Inversions : Heuristics {
 
@@ -9,5 +10,24 @@ class Inversions : Heuristics {
         return inversions(state)
     }
 
+    override fun calc(state: Long, params: GameParameters): Int {
+        val goal = params.goal
+        val size = params.size
+        var inversions = 0
+        for (i in 0 until size) {
+            val n = goal[PackedNode.get(state, i)]
+            if (n <= 1) {
+                continue
+            }
+            for (j in i + 1 until size) {
+                val m = goal[PackedNode.get(state, j)]
+                if (m > 0 && n > m) {
+                    inversions++
+                }
+            }
+        }
+        return inversions
+    }
+
     override fun toString(): String = "Inversions"
 }
@@ -1,6 +1,7 @@
 package me.italankin.fifteen.solver.heuristics
 
 import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.PackedNode
 
 /**
  * Linear conflict heuristic, based on CUCS-219-85.
@@ -9,6 +10,10 @@ import me.italankin.fifteen.solver.GameParameters
  * calculation in one pass. When we encounter a linear conflict, we only count the first one for each tile - because
  * later we count number of tiles we need to remove to get rid of the conflicts. If a tile creates two conflicts, we
  * will remove it one time, so the result will be equivalent to original method.
+ *
+ * Conflicts of a line depend only on the order of tiles in it, so a move changes conflicts of at most two lines:
+ * the columns, which the tile left and entered, for a horizontal move, or the rows for a vertical one. Incremental
+ * calculation recomputes only these lines.
  */
 class LinearConflict : Heuristics {
 
@@ -19,41 +24,180 @@ class LinearConflict : Heuristics {
          */
         @JvmStatic
         fun linearConflicts(state: IntArray, params: GameParameters): Int {
-            val width = params.width
             var removeCount = 0 // tiles we need to remove to resolve linear conflict
-            for ((tki, tk) in state.withIndex()) {
+            for (row in 0 until params.height) {
+                removeCount += rowConflicts(state, params, row, -1, -1)
+            }
+            for (column in 0 until params.width) {
+                removeCount += columnConflicts(state, params, column, -1, -1)
+            }
+            return removeCount * 2
+        }
+
+        /**
+         * @return linear conflicts in [packed][PackedNode] [state] (excluding manhattan distance part)
+         */
+        @JvmStatic
+        fun linearConflicts(state: Long, params: GameParameters): Int {
+            var removeCount = 0 // tiles we need to remove to resolve linear conflict
+            for (row in 0 until params.height) {
+                removeCount += rowConflicts(state, params, row)
+            }
+            for (column in 0 until params.width) {
+                removeCount += columnConflicts(state, params, column)
+            }
+            return removeCount * 2
+        }
+
+        /**
+         * @return change of [linearConflicts] after a tile moved from [newZeroIndex] to [prevZeroIndex], resulting in
+         * [state]
+         */
+        @JvmStatic
+        fun linearConflictsDelta(state: IntArray, params: GameParameters, prevZeroIndex: Int, newZeroIndex: Int): Int {
+            val rows = params.rows
+            val columns = params.columns
+            // the tile moved from newZeroIndex to prevZeroIndex, previous state has these cells swapped
+            val delta = if (rows[prevZeroIndex] == rows[newZeroIndex]) {
+                val from = columns[newZeroIndex]
+                val to = columns[prevZeroIndex]
+                columnConflicts(state, params, from, -1, -1) + columnConflicts(state, params, to, -1, -1) -
+                        columnConflicts(state, params, from, prevZeroIndex, newZeroIndex) -
+                        columnConflicts(state, params, to, prevZeroIndex, newZeroIndex)
+            } else {
+                val from = rows[newZeroIndex]
+                val to = rows[prevZeroIndex]
+                rowConflicts(state, params, from, -1, -1) + rowConflicts(state, params, to, -1, -1) -
+                        rowConflicts(state, params, from, prevZeroIndex, newZeroIndex) -
+                        rowConflicts(state, params, to, prevZeroIndex, newZeroIndex)
+            }
+            return delta * 2
+        }
+
+        /**
+         * @return change of [linearConflicts] after a tile moved from [newZeroIndex] to [prevZeroIndex], resulting in
+         * [packed][PackedNode] [state]
+         */
+        @JvmStatic
+        fun linearConflictsDelta(state: Long, params: GameParameters, prevZeroIndex: Int, newZeroIndex: Int): Int {
+            val rows = params.rows
+            val columns = params.columns
+            val prevState = PackedNode.swap(state, prevZeroIndex, newZeroIndex)
+            val delta = if (rows[prevZeroIndex] == rows[newZeroIndex]) {
+                val from = columns[newZeroIndex]
+                val to = columns[prevZeroIndex]
+                columnConflicts(state, params, from) + columnConflicts(state, params, to) -
+                        columnConflicts(prevState, params, from) - columnConflicts(prevState, params, to)
+            } else {
+                val from = rows[newZeroIndex]
+                val to = rows[prevZeroIndex]
+                rowConflicts(state, params, from) + rowConflicts(state, params, to) -
+                        rowConflicts(prevState, params, from) - rowConflicts(prevState, params, to)
+            }
+            return delta * 2
+        }
+
+        /**
+         * @return number of tiles to remove from [row] of [state] with cells [a] and [b] swapped (`-1` to use
+         * [state] as is)
+         */
+        private fun rowConflicts(state: IntArray, params: GameParameters, row: Int, a: Int, b: Int): Int {
+            val width = params.width
+            val goalIndices = params.goalIndices
+            val goalRows = params.goalRows
+            val start = row * width
+            var removeCount = 0
+            for (tki in start until start + width) {
+                val tk = state.get(tki, a, b)
                 if (tk == 0) continue
-                val tkx = tki % width
-                val tky = tki / width
-                // rows conflicts
                 // see if tk is the same row, as in goal
-                if (tky == params.goalIndices[tk] / width) {
-                    for (dx in (tkx + 1) until width) {
-                        val tj = state[width * tky + dx]
-                        if (tj == 0) continue
-                        // tj is in the same row in goal position as tk
-                        if (tky == params.goalIndices[tj] / width
-                            // compare goal indices to find out if tk comes before tj in goal position
-                            && params.goalIndices[tk] > params.goalIndices[tj]
-                        ) {
-                            removeCount++
-                            break // see class javadoc
-                        }
+                if (row != goalRows[tk]) continue
+                for (tji in (tki + 1) until start + width) {
+                    val tj = state.get(tji, a, b)
+                    if (tj == 0) continue
+                    // tj is in the same row in goal position as tk
+                    if (row == goalRows[tj]
+                        // compare goal indices to find out if tk comes before tj in goal position
+                        && goalIndices[tk] > goalIndices[tj]
+                    ) {
+                        removeCount++
+                        break // see class javadoc
                     }
                 }
-                // conflicts in columns
-                if (tkx == params.goalIndices[tk] % width) {
-                    for (i in (tky + 1) until params.height) {
-                        val tj = state[tkx + width * i]
-                        if (tj == 0) continue
-                        if (tkx == params.goalIndices[tj] % width && params.goalIndices[tk] > params.goalIndices[tj]) {
-                            removeCount++
-                            break // see class javadoc
-                        }
+            }
+            return removeCount
+        }
+
+        /**
+         * @return number of tiles to remove from [column] of [state] with cells [a] and [b] swapped (`-1` to use
+         * [state] as is)
+         */
+        private fun columnConflicts(state: IntArray, params: GameParameters, column: Int, a: Int, b: Int): Int {
+            val width = params.width
+            val goalIndices = params.goalIndices
+            val goalColumns = params.goalColumns
+            var removeCount = 0
+            for (tki in column until params.size step width) {
+                val tk = state.get(tki, a, b)
+                if (tk == 0) continue
+                if (column != goalColumns[tk]) continue
+                for (tji in (tki + width) until params.size step width) {
+                    val tj = state.get(tji, a, b)
+                    if (tj == 0) continue
+                    if (column == goalColumns[tj] && goalIndices[tk] > goalIndices[tj]) {
+                        removeCount++
+                        break // see class javadoc
                     }
                 }
             }
-            return removeCount * 2
+            return removeCount
+        }
+
+        @Suppress("NOTHING_TO_INLINE")
+        private inline fun IntArray.get(index: Int, a: Int, b: Int): Int {
+            return this[if (index == a) b else if (index == b) a else index]
+        }
+
+        private fun rowConflicts(state: Long, params: GameParameters, row: Int): Int {
+            val width = params.width
+            val rows = params.rows
+            val blank = params.goalIndices[0]
+            val start = row * width
+            var removeCount = 0
+            for (tki in start until start + width) {
+                // for packed state a tile's goal index is stored instead of a tile number
+                val tk = PackedNode.get(state, tki)
+                if (tk == blank || row != rows[tk]) continue
+                for (tji in (tki + 1) until start + width) {
+                    val tj = PackedNode.get(state, tji)
+                    if (tj == blank) continue
+                    if (row == rows[tj] && tk > tj) {
+                        removeCount++
+                        break // see class javadoc
+                    }
+                }
+            }
+            return removeCount
+        }
+
+        private fun columnConflicts(state: Long, params: GameParameters, column: Int): Int {
+            val width = params.width
+            val columns = params.columns
+            val blank = params.goalIndices[0]
+            var removeCount = 0
+            for (tki in column until params.size step width) {
+                val tk = PackedNode.get(state, tki)
+                if (tk == blank || column != columns[tk]) continue
+                for (tji in (tki + width) until params.size step width) {
+                    val tj = PackedNode.get(state, tji)
+                    if (tj == blank) continue
+                    if (column == columns[tj] && tk > tj) {
+                        removeCount++
+                        break // see class javadoc
+                    }
+                }
+            }
+            return removeCount
         }
     }
 
@@ -63,6 +207,34 @@ class LinearConflict : Heuristics {
         return linearConflicts(state, params) + manhattanDistance.calc(state, params)
     }
 
+    override fun calc(
+        state: IntArray,
+        params: GameParameters,
+        prevValue: Int,
+        prevZeroIndex: Int,
+        newZeroIndex: Int
+    ): Int {
+        return manhattanDistance.calc(state, params, prevValue, prevZeroIndex, newZeroIndex) +
+                linearConflictsDelta(state, params, prevZeroIndex, newZeroIndex)
+    }
+
+    override fun calc(state: Long, params: GameParameters): Int {
+        return linearConflicts(state, params) + manhattanDistance.calc(state, params)
+    }
+
+    override fun calc(
+        state: Long,
+        params: GameParameters,
+        prevValue: Int,
+        prevZeroIndex: Int,
+        newZeroIndex: Int
+    ): Int {
+        return manhattanDistance.calc(state, params, prevValue, prevZeroIndex, newZeroIndex) +
+                linearConflictsDelta(state, params, prevZeroIndex, newZeroIndex)
+    }
+
+    override val cost: Int
+        get() = 2
 
     override fun toString(): String {
         return "LinearConflict"
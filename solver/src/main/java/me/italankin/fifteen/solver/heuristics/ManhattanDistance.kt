@@ -2,6 +2,7 @@ package me.italankin.fifteen.solver.heuristics
 
 import me.italankin.fifteen.game.manhattan
 import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.PackedNode
 
 /**
  * Sum of [manhattan] distances to tiles' goal positions
@@ -9,14 +10,11 @@ import me.italankin.fifteen.solver.GameParameters
 class ManhattanDistance : Heuristics {
 
     override fun calc(state: IntArray, params: GameParameters): Int {
-        val width = params.width
-        val goalIndices = params.goalIndices
+        val size = params.size
+        val manhattan = params.manhattan
         var distance = 0
         for (i in state.indices) {
-            val n = state[i]
-            if (n == 0) continue
-            val index = goalIndices[n]
-            distance += manhattan(i % width, i / width, index % width, index / width)
+            distance += manhattan[state[i] * size + i]
         }
         return distance
     }
@@ -28,12 +26,36 @@ class ManhattanDistance : Heuristics {
         prevZeroIndex: Int,
         newZeroIndex: Int
     ): Int {
-        val width = params.width
-        val index = params.goalIndices[state[prevZeroIndex]]
-        return prevValue -
-                manhattan(newZeroIndex % width, newZeroIndex / width, index % width, index / width) +
-                manhattan(prevZeroIndex % width, prevZeroIndex / width, index % width, index / width)
+        val offset = state[prevZeroIndex] * params.size
+        val manhattan = params.manhattan
+        return prevValue - manhattan[offset + newZeroIndex] + manhattan[offset + prevZeroIndex]
     }
 
+    override fun calc(state: Long, params: GameParameters): Int {
+        val size = params.size
+        val manhattan = params.packedManhattan
+        var distance = 0
+        for (i in 0 until size) {
+            // for packed state a tile's goal index is stored instead of a tile number
+            distance += manhattan[PackedNode.get(state, i) * size + i]
+        }
+        return distance
+    }
+
+    override fun calc(
+        state: Long,
+        params: GameParameters,
+        prevValue: Int,
+        prevZeroIndex: Int,
+        newZeroIndex: Int
+    ): Int {
+        val offset = PackedNode.get(state, prevZeroIndex) * params.size
+        val manhattan = params.packedManhattan
+        return prevValue - manhattan[offset + newZeroIndex] + manhattan[offset + prevZeroIndex]
+    }
+
+    override val cost: Int
+        get() = 1
+
     override fun toString(): String = "ManhattanDistance"
 }
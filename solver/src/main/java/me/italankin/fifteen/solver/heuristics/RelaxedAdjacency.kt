@@ -1,6 +1,7 @@
 package me.italankin.fifteen.solver.heuristics
 
 import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.PackedNode
 import me.italankin.fifteen.solver.util.swap
 
 /**
@@ -34,5 +35,39 @@ class RelaxedAdjacency : Heuristics {
         return distance
     }
 
+    override fun calc(state: Long, params: GameParameters): Int {
+        // packed state holds goal indices, so the goal tile for a cell is the cell's index
+        val goal = PackedNode.goal(params.size)
+        val blank = params.goalIndices[0]
+        var distance = 0
+        var tmp = state
+        var zeroIdx = indexOf(tmp, blank, params.size)
+        while (tmp != goal) {
+            if (zeroIdx == blank) {
+                // find first non-empty tile
+                for (i in 0 until params.size) {
+                    if (PackedNode.get(tmp, i) == i) continue
+                    tmp = PackedNode.swap(tmp, i, zeroIdx)
+                    zeroIdx = i
+                    break
+                }
+            } else {
+                // select next tile at the current zero pos
+                val i = indexOf(tmp, zeroIdx, params.size)
+                tmp = PackedNode.swap(tmp, i, zeroIdx)
+                zeroIdx = i
+            }
+            distance++
+        }
+        return distance
+    }
+
+    private fun indexOf(state: Long, value: Int, size: Int): Int {
+        for (i in 0 until size) {
+            if (PackedNode.get(state, i) == value) return i
+        }
+        return -1
+    }
+
     override fun toString(): String = "RelaxedAdjacency"
 }
@@ -0,0 +1,68 @@
+package me.italankin.fifteen.solver.heuristics
+
+import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.PackedNode
+
+/**
+ * Heuristics, which can't update their value from the previous value only, but can do it cheaply from a few more
+ * numbers, derived from the previous state, e.g. configurations of [WalkingDistance].
+ *
+ * [ComposedHeuristics] keeps [dataSize] numbers next to component values in its vectors and uses `data` overloads
+ * instead of the plain incremental ones, [ComposedHeuristics.incremental] wraps a single heuristics into such
+ * composition. The plain overloads still work, but don't have the data.
+ */
+interface StatefulHeuristics : Heuristics {
+
+    /**
+     * Number of data elements, which are kept next to the value
+     */
+    val dataSize: Int
+
+    /**
+     * Calculate initial heuristic value
+     *
+     * @param data vector to store [dataSize] elements of data at [offset]
+     */
+    fun calc(state: IntArray, params: GameParameters, data: IntArray, offset: Int): Int
+
+    /**
+     * Calculate new heuristic value, given its previous value and data
+     *
+     * @param prevData vector with data of the previous state at [offset]
+     * @param data vector to store data at [offset], may be the same as [prevData]
+     */
+    fun calc(
+        state: IntArray,
+        params: GameParameters,
+        prevValue: Int,
+        prevData: IntArray,
+        data: IntArray,
+        offset: Int,
+        prevZeroIndex: Int,
+        newZeroIndex: Int
+    ): Int
+
+    /**
+     * Calculate initial heuristic value for a [packed][PackedNode] state
+     *
+     * @param data vector to store [dataSize] elements of data at [offset]
+     */
+    fun calc(state: Long, params: GameParameters, data: IntArray, offset: Int): Int
+
+    /**
+     * Calculate new heuristic value for a [packed][PackedNode] state, given its previous value and data
+     *
+     * @param prevData vector with data of the previous state at [offset]
+     * @param data vector to store data at [offset], may be the same as [prevData]
+     */
+    fun calc(
+        state: Long,
+        params: GameParameters,
+        prevValue: Int,
+        prevData: IntArray,
+        data: IntArray,
+        offset: Int,
+        prevZeroIndex: Int,
+        newZeroIndex: Int
+    ): Int
+}
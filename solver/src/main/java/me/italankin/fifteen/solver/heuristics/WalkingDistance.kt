@@ -0,0 +1,431 @@
+package me.italankin.fifteen.solver.heuristics
+
+import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.PackedNode
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Walking distance heuristic (by Ken'ichiro Takahashi).
+ *
+ * Vertical walking distance is the minimum number of vertical moves to solve a relaxed puzzle, which only tracks,
+ * how many tiles of each goal row are in each row: the blank can swap with any tile of an adjacent row. Horizontal
+ * walking distance is the same for columns. Every move is either vertical or horizontal, so their sum is admissible.
+ * It dominates [ManhattanDistance] and is usually stronger, than [LinearConflict].
+ *
+ * Distances of all configurations are found by BFS from the goal configuration once per number of lines, line
+ * length and goal line of the blank, tables are shared between all instances and threads. Distances are looked up by
+ * direct indexing, see [Table].
+ *
+ * A move changes only one of the configurations. Indices and distances of both configurations are kept as
+ * [data][StatefulHeuristics], so incremental calculation updates the index of the changed configuration in `O(1)` and
+ * looks up its distance only. Without data the value is recalculated.
+ *
+ * Supports boards up to [MAX_SIZE] in each dimension, larger boards have too many configurations.
+ */
+class WalkingDistance : StatefulHeuristics {
+
+    companion object {
+
+        const val MAX_SIZE = 4
+
+        /**
+         * Offsets of the data elements
+         */
+        private const val ROWS_INDEX = 0
+        private const val ROWS_DISTANCE = 1
+        private const val COLUMNS_INDEX = 2
+        private const val COLUMNS_DISTANCE = 3
+
+        /**
+         * Bits per number of tiles in a configuration code
+         */
+        private const val BITS = 3
+
+        private val tables = ConcurrentHashMap<Key, Lazy<Table>>()
+
+        /**
+         * @return distances table for [lines] of [length] with the blank in [blankLine] in goal configuration
+         */
+        private fun table(lines: Int, length: Int, blankLine: Int): Table {
+            return tables.computeIfAbsent(Key(lines, length, blankLine)) { lazy { Table(it) } }.value
+        }
+    }
+
+    @Volatile
+    private var tablesCache: Tables? = null
+
+    override val dataSize: Int = 4
+
+    override fun calc(state: IntArray, params: GameParameters): Int {
+        val t = tables(params)
+        val row = params.rows
+        val column = params.columns
+        val goalIndices = params.goalIndices
+        var rows = 0L
+        var columns = 0L
+        for (i in state.indices) {
+            val n = state[i]
+            if (n == 0) continue
+            val goal = goalIndices[n]
+            rows += t.rows.unit(row[i], row[goal])
+            columns += t.columns.unit(column[i], column[goal])
+        }
+        return t.rows.distance(rows) + t.columns.distance(columns)
+    }
+
+    override fun calc(state: IntArray, params: GameParameters, data: IntArray, offset: Int): Int {
+        val t = tables(params)
+        val row = params.rows
+        val column = params.columns
+        val goalIndices = params.goalIndices
+        var rows = 0L
+        var columns = 0L
+        for (i in state.indices) {
+            val n = state[i]
+            if (n == 0) continue
+            val goal = goalIndices[n]
+            rows += t.rows.unit(row[i], row[goal])
+            columns += t.columns.unit(column[i], column[goal])
+        }
+        return t.store(rows, columns, data, offset)
+    }
+
+    override fun calc(
+        state: IntArray,
+        params: GameParameters,
+        prevValue: Int,
+        prevData: IntArray,
+        data: IntArray,
+        offset: Int,
+        prevZeroIndex: Int,
+        newZeroIndex: Int
+    ): Int {
+        return tables(params).update(
+            params, params.goalIndices[state[prevZeroIndex]], prevData, data, offset, prevZeroIndex, newZeroIndex
+        )
+    }
+
+    override fun calc(state: Long, params: GameParameters): Int {
+        val t = tables(params)
+        val row = params.rows
+        val column = params.columns
+        val blank = params.goalIndices[0]
+        var rows = 0L
+        var columns = 0L
+        for (i in 0 until params.size) {
+            // for packed state a tile's goal index is stored instead of a tile number
+            val goal = PackedNode.get(state, i)
+            if (goal == blank) continue
+            rows += t.rows.unit(row[i], row[goal])
+            columns += t.columns.unit(column[i], column[goal])
+        }
+        return t.rows.distance(rows) + t.columns.distance(columns)
+    }
+
+    override fun calc(state: Long, params: GameParameters, data: IntArray, offset: Int): Int {
+        val t = tables(params)
+        val row = params.rows
+        val column = params.columns
+        val blank = params.goalIndices[0]
+        var rows = 0L
+        var columns = 0L
+        for (i in 0 until params.size) {
+            val goal = PackedNode.get(state, i)
+            if (goal == blank) continue
+            rows += t.rows.unit(row[i], row[goal])
+            columns += t.columns.unit(column[i], column[goal])
+        }
+        return t.store(rows, columns, data, offset)
+    }
+
+    override fun calc(
+        state: Long,
+        params: GameParameters,
+        prevValue: Int,
+        prevData: IntArray,
+        data: IntArray,
+        offset: Int,
+        prevZeroIndex: Int,
+        newZeroIndex: Int
+    ): Int {
+        return tables(params).update(
+            params, PackedNode.get(state, prevZeroIndex), prevData, data, offset, prevZeroIndex, newZeroIndex
+        )
+    }
+
+    override val cost: Int
+        get() = 3
+
+    override fun toString(): String = "WalkingDistance"
+
+    private fun tables(params: GameParameters): Tables {
+        val blankCell = params.goalIndices[0]
+        val cached = tablesCache
+        if (cached != null && cached.width == params.width && cached.height == params.height &&
+            cached.blankCell == blankCell
+        ) {
+            return cached
+        }
+        if (params.width > MAX_SIZE || params.height > MAX_SIZE) {
+            throw IllegalArgumentException(
+                "WalkingDistance supports boards up to ${MAX_SIZE}x$MAX_SIZE, got: ${params.width}x${params.height}"
+            )
+        }
+        val width = params.width
+        return Tables(
+            width = width,
+            height = params.height,
+            blankCell = blankCell,
+            rows = table(params.height, width, blankCell / width),
+            columns = table(width, params.height, blankCell % width)
+        ).also { tablesCache = it }
+    }
+
+    private class Tables(
+        val width: Int,
+        val height: Int,
+        val blankCell: Int,
+        /**
+         * Table for rows (vertical moves)
+         */
+        val rows: Table,
+        /**
+         * Table for columns (horizontal moves)
+         */
+        val columns: Table
+    ) {
+
+        /**
+         * Store indices and distances of configurations [rows] and [columns] in [data]
+         *
+         * @return walking distance
+         */
+        fun store(rows: Long, columns: Long, data: IntArray, offset: Int): Int {
+            val rowsIndex = this.rows.index(rows)
+            val columnsIndex = this.columns.index(columns)
+            val rowsDistance = this.rows.distanceAt(rowsIndex)
+            val columnsDistance = this.columns.distanceAt(columnsIndex)
+            data[offset + ROWS_INDEX] = rowsIndex
+            data[offset + ROWS_DISTANCE] = rowsDistance
+            data[offset + COLUMNS_INDEX] = columnsIndex
+            data[offset + COLUMNS_DISTANCE] = columnsDistance
+            return rowsDistance + columnsDistance
+        }
+
+        /**
+         * Update data of the previous state after a tile with [goal] cell moved from [newZeroIndex] to
+         * [prevZeroIndex]
+         *
+         * @return walking distance
+         */
+        fun update(
+            params: GameParameters,
+            goal: Int,
+            prevData: IntArray,
+            data: IntArray,
+            offset: Int,
+            prevZeroIndex: Int,
+            newZeroIndex: Int
+        ): Int {
+            val row = params.rows
+            val rowsDistance: Int
+            val columnsDistance: Int
+            if (row[prevZeroIndex] != row[newZeroIndex]) {
+                val index = rows.move(prevData[offset + ROWS_INDEX], row[goal], row[newZeroIndex], row[prevZeroIndex])
+                rowsDistance = rows.distanceAt(index)
+                columnsDistance = prevData[offset + COLUMNS_DISTANCE]
+                data[offset + ROWS_INDEX] = index
+                data[offset + ROWS_DISTANCE] = rowsDistance
+                data[offset + COLUMNS_INDEX] = prevData[offset + COLUMNS_INDEX]
+                data[offset + COLUMNS_DISTANCE] = columnsDistance
+            } else {
+                val column = params.columns
+                val index = columns.move(
+                    prevData[offset + COLUMNS_INDEX], column[goal], column[newZeroIndex], column[prevZeroIndex]
+                )
+                rowsDistance = prevData[offset + ROWS_DISTANCE]
+                columnsDistance = columns.distanceAt(index)
+                data[offset + ROWS_INDEX] = prevData[offset + ROWS_INDEX]
+                data[offset + ROWS_DISTANCE] = rowsDistance
+                data[offset + COLUMNS_INDEX] = index
+                data[offset + COLUMNS_DISTANCE] = columnsDistance
+            }
+            return rowsDistance + columnsDistance
+        }
+    }
+
+    private data class Key(val lines: Int, val length: Int, val blankLine: Int)
+
+    /**
+     * Distances of configurations of [Key.lines] lines of [Key.length] cells.
+     *
+     * Configuration is a matrix of numbers of tiles in each line for each goal line. It is encoded in a code, which
+     * stores numbers of all lines, but the last one, [BITS] bits per number: numbers in the last line are determined
+     * by numbers of tiles of each goal line.
+     *
+     * Each line of a code is mapped to a rank among all lines, found in reachable configurations, ranks of lines are
+     * digits of the configuration's index in [distances].
+     */
+    private class Table(key: Key) {
+
+        private val lines = key.lines
+
+        private val lineBits = lines * BITS
+
+        private val lineMask = (1L shl lineBits) - 1
+
+        /**
+         * Ranks of line codes, `-1` for lines, which are not found in any configuration
+         */
+        private val lineRanks = IntArray(1 shl lineBits) { -1 }
+
+        /**
+         * Line codes by their ranks
+         */
+        private val lineCodes: IntArray
+
+        /**
+         * Number of distinct line codes
+         */
+        private val radix: Int
+
+        /**
+         * Multipliers of line ranks in [index] for each line, but the last one
+         */
+        private val multipliers: IntArray
+
+        /**
+         * Distances of configurations by their [index], `-1` for unreachable configurations
+         */
+        private val distances: ByteArray
+
+        init {
+            val length = key.length
+            val start = IntArray(lines * lines)
+            for (line in 0 until lines) {
+                start[line * lines + line] = if (line == key.blankLine) length - 1 else length
+            }
+            // BFS from the goal configuration, every entry is a matrix and the blank line
+            val visited = HashMap<Long, Int>()
+            var frontier = listOf(start to key.blankLine)
+            visited[encode(start)] = 0
+            var distance = 0
+            while (frontier.isNotEmpty()) {
+                distance++
+                val next = ArrayList<Pair<IntArray, Int>>()
+                for ((matrix, blankLine) in frontier) {
+                    for (line in intArrayOf(blankLine - 1, blankLine + 1)) {
+                        if (line < 0 || line >= lines) continue
+                        for (goalLine in 0 until lines) {
+                            if (matrix[line * lines + goalLine] == 0) continue
+                            // move a tile of goalLine from line into the blank's line
+                            val moved = matrix.copyOf()
+                            moved[line * lines + goalLine]--
+                            moved[blankLine * lines + goalLine]++
+                            val code = encode(moved)
+                            if (code !in visited) {
+                                visited[code] = distance
+                                next += moved to line
+                            }
+                        }
+                    }
+                }
+                frontier = next
+            }
+            val codes = ArrayList<Int>()
+            for (code in visited.keys) {
+                for (line in 0 until lines - 1) {
+                    val lineCode = ((code ushr (line * lineBits)) and lineMask).toInt()
+                    if (lineRanks[lineCode] < 0) {
+                        lineRanks[lineCode] = codes.size
+                        codes += lineCode
+                    }
+                }
+            }
+            lineCodes = codes.toIntArray()
+            radix = codes.size
+            multipliers = IntArray(lines - 1)
+            var count = 1
+            for (line in 0 until lines - 1) {
+                multipliers[line] = count
+                count *= radix
+            }
+            distances = ByteArray(count) { -1 }
+            for ((code, moves) in visited) {
+                distances[index(code)] = moves.toByte()
+            }
+        }
+
+        /**
+         * @return code of a single tile of [goalLine] in [line]
+         */
+        fun unit(line: Int, goalLine: Int): Long {
+            if (line == lines - 1) {
+                return 0
+            }
+            return 1L shl ((line * lines + goalLine) * BITS)
+        }
+
+        fun distance(code: Long): Int {
+            return distanceAt(index(code))
+        }
+
+        /**
+         * @return distance of a configuration by its [index]
+         */
+        fun distanceAt(index: Int): Int {
+            val distance = if (index < 0) -1 else distances[index].toInt()
+            if (distance < 0) {
+                throw IllegalStateException("Unreachable configuration: $index")
+            }
+            return distance
+        }
+
+        /**
+         * @return index of a configuration with [index] after a tile of [goalLine] moved from [fromLine] to [toLine]
+         */
+        fun move(index: Int, goalLine: Int, fromLine: Int, toLine: Int): Int {
+            // a tile in a line adds a unit to its line code, see unit()
+            val unit = 1 shl (goalLine * BITS)
+            return move(move(index, fromLine, -unit), toLine, unit)
+        }
+
+        /**
+         * @return [index] with [delta] added to the code of [line]
+         */
+        private fun move(index: Int, line: Int, delta: Int): Int {
+            if (line == lines - 1) {
+                // the last line is not encoded
+                return index
+            }
+            val multiplier = multipliers[line]
+            val rank = index / multiplier % radix
+            return index + (lineRanks[lineCodes[rank] + delta] - rank) * multiplier
+        }
+
+        /**
+         * @return index of [code] in [distances] or a negative value, if [code] has unknown lines
+         */
+        fun index(code: Long): Int {
+            var index = 0
+            var multiplier = 1
+            var c = code
+            for (line in 0 until lines - 1) {
+                val rank = lineRanks[(c and lineMask).toInt()]
+                if (rank < 0) return -1
+                index += rank * multiplier
+                multiplier *= radix
+                c = c ushr lineBits
+            }
+            return index
+        }
+
+        private fun encode(matrix: IntArray): Long {
+            var code = 0L
+            for (i in 0 until (lines - 1) * lines) {
+                code = code or (matrix[i].toLong() shl (i * BITS))
+            }
+            return code
+        }
+    }
+}
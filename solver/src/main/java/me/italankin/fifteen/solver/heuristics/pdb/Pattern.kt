@@ -0,0 +1,175 @@
+package me.italankin.fifteen.solver.heuristics.pdb
+
+/**
+ * Group of tiles, identified by their goal [cells], for which distances are stored in a [PatternDatabase].
+ *
+ * Every placement of pattern tiles on the board is mapped to a unique *rank* in `[0, placements)` (partial
+ * permutation ranking), which is used as an index in the distance table.
+ *
+ * @param width board width
+ * @param height board height
+ * @param blankCell goal cell of the empty cell
+ * @param cells goal cells of pattern tiles
+ */
+class Pattern(
+    @JvmField val width: Int,
+    @JvmField val height: Int,
+    @JvmField val blankCell: Int,
+    @JvmField val cells: IntArray
+) {
+
+    companion object {
+
+        /**
+         * Maximum number of tiles in a pattern, limited by [Long] with 5 bits for each position
+         */
+        const val MAX_TILES = 12
+
+        /**
+         * Maximum number of cells on a board, limited by [Int] cell masks
+         */
+        const val MAX_SIZE = 31
+
+        private const val POSITION_BITS = 5
+        private const val POSITION_MASK = (1 shl POSITION_BITS) - 1
+
+        /**
+         * @return [positions] with a tile at [index] placed at [cell]
+         */
+        @JvmStatic
+        fun set(positions: Long, index: Int, cell: Int): Long {
+            val shift = index * POSITION_BITS
+            return (positions and (POSITION_MASK.toLong() shl shift).inv()) or (cell.toLong() shl shift)
+        }
+
+        /**
+         * @return position of a tile at [index] in [positions]
+         */
+        @JvmStatic
+        fun get(positions: Long, index: Int): Int {
+            return (positions ushr (index * POSITION_BITS)).toInt() and POSITION_MASK
+        }
+    }
+
+    /**
+     * Number of cells on the board
+     */
+    @JvmField
+    val size: Int = width * height
+
+    /**
+     * Number of tiles in the pattern
+     */
+    @JvmField
+    val tiles: Int = cells.size
+
+    /**
+     * Number of possible placements of pattern tiles on the board, `size! / (size - tiles)!`
+     */
+    @JvmField
+    val placements: Int
+
+    init {
+        if (size > MAX_SIZE) {
+            throw IllegalArgumentException("Board size must be <= $MAX_SIZE, got: $size")
+        }
+        if (tiles == 0 || tiles > MAX_TILES) {
+            throw IllegalArgumentException("Pattern must contain from 1 to $MAX_TILES tiles, got: $tiles")
+        }
+        var mask = 1 shl blankCell
+        for (cell in cells) {
+            if (cell < 0 || cell >= size) {
+                throw IllegalArgumentException("Cell $cell is out of board bounds")
+            }
+            if (mask and (1 shl cell) != 0) {
+                throw IllegalArgumentException("Duplicate cell $cell or it is the blank cell")
+            }
+            mask = mask or (1 shl cell)
+        }
+        var count = 1L
+        for (i in 0 until tiles) {
+            count *= size - i
+        }
+        if (count > Int.MAX_VALUE) {
+            throw IllegalArgumentException("Pattern of $tiles tiles is too large for a board of $size cells")
+        }
+        placements = count.toInt()
+    }
+
+    /**
+     * Goal [positions] of the pattern
+     */
+    val goal: Long
+        get() {
+            var positions = 0L
+            for (i in 0 until tiles) {
+                positions = set(positions, i, cells[i])
+            }
+            return positions
+        }
+
+    /**
+     * @param positions positions of pattern tiles, in the order of [cells], see [set]
+     * @return rank of the placement
+     */
+    fun rank(positions: Long): Int {
+        var used = 0
+        var rank = 0
+        for (i in 0 until tiles) {
+            val cell = get(positions, i)
+            val digit = cell - Integer.bitCount(used and ((1 shl cell) - 1))
+            rank = rank * (size - i) + digit
+            used = used or (1 shl cell)
+        }
+        return rank
+    }
+
+    /**
+     * @return positions of pattern tiles for a placement with [rank], see [set]
+     */
+    fun unrank(rank: Int): Long {
+        var digits = 0L
+        var r = rank
+        for (i in tiles - 1 downTo 0) {
+            val radix = size - i
+            digits = set(digits, i, r % radix)
+            r /= radix
+        }
+        var used = 0
+        var positions = 0L
+        for (i in 0 until tiles) {
+            // find digit-th free cell
+            var digit = get(digits, i)
+            var cell = 0
+            while (true) {
+                if (used and (1 shl cell) == 0) {
+                    if (digit == 0) break
+                    digit--
+                }
+                cell++
+            }
+            positions = set(positions, i, cell)
+            used = used or (1 shl cell)
+        }
+        return positions
+    }
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) return true
+        if (other !is Pattern) return false
+        return width == other.width && height == other.height && blankCell == other.blankCell &&
+                cells.contentEquals(other.cells)
+    }
+
+    override fun hashCode(): Int {
+        var result = width
+        result = 31 * result + height
+        result = 31 * result + blankCell
+        result = 31 * result + cells.contentHashCode()
+        return result
+    }
+
+    override fun toString(): String {
+        return "Pattern(${width}x$height, blank=$blankCell, cells=${cells.contentToString()})"
+    }
+}
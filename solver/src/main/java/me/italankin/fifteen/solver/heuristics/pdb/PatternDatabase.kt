@@ -0,0 +1,385 @@
+package me.italankin.fifteen.solver.heuristics.pdb
+
+import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.PackedNode
+import me.italankin.fifteen.solver.heuristics.StatefulHeuristics
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Additive disjoint pattern database heuristic.
+ *
+ * Tiles are split into disjoint groups by their goal cells. For every group a table with the minimum number of moves
+ * of the group's tiles, required to put them into their goal cells, is [generated][PatternDatabaseGenerator] for
+ * every placement of the tiles. Since every move moves a tile of exactly one group, values of the groups can be
+ * added, while keeping the heuristic admissible.
+ *
+ * Groups are defined by goal cells, so the same partition can be used for any goal layout. Tables are loaded
+ * lazily on the first use for each board size and goal cell of the blank, and are shared between all instances.
+ *
+ * Positions of tiles of each group are kept in [data][StatefulHeuristics], so a move updates positions of one group
+ * and looks up two values in its table.
+ *
+ * If [directory] is set, tables are stored in [PatternDatabaseFile]s: existing files are mapped into memory, missing
+ * ones are generated and written first. Otherwise, tables are generated and kept in the heap.
+ *
+ * @param groups goal cells of tiles in each group, goal cell of the blank is ignored
+ * @param directory directory for [PatternDatabaseFile]s
+ * @param generator generator for missing tables
+ */
+class PatternDatabase @JvmOverloads constructor(
+    groups: List<List<Int>>,
+    private val directory: Path? = null,
+    private val generator: PatternDatabaseGenerator = PatternDatabaseGenerator()
+) : StatefulHeuristics {
+
+    companion object {
+
+        /**
+         * 5-5-5 partition for 4x4 boards with the blank in the last cell:
+         *
+         * ```
+         * A B B C
+         * A B B C
+         * A B C C
+         * A A C
+         * ```
+         */
+        @JvmField
+        val PARTITION_4X4_555: List<List<Int>> = listOf(
+            listOf(0, 4, 8, 12, 13),
+            listOf(1, 2, 5, 6, 9),
+            listOf(3, 7, 10, 11, 14),
+        )
+
+        /**
+         * 6-6-3 partition for 4x4 boards with the blank in the last cell:
+         *
+         * ```
+         * A A B B
+         * A A B B
+         * A C B B
+         * A C C
+         * ```
+         */
+        @JvmField
+        val PARTITION_4X4_663: List<List<Int>> = listOf(
+            listOf(0, 1, 4, 5, 8, 12),
+            listOf(2, 3, 6, 7, 10, 11),
+            listOf(9, 13, 14),
+        )
+
+        private val tables = ConcurrentHashMap<Pattern, Lazy<ByteArray>>()
+
+        private val files = ConcurrentHashMap<Path, Lazy<PatternDatabaseFile>>()
+
+        /**
+         * @return distance table for [pattern], generating it with [generator] if necessary
+         */
+        @JvmStatic
+        fun table(pattern: Pattern, generator: PatternDatabaseGenerator): ByteArray {
+            return tables.computeIfAbsent(pattern) { lazy { generator.generate(it) } }.value
+        }
+
+        /**
+         * @return mapped file at [path] with tables for [patterns], generating it with [generator] and writing, if
+         * necessary
+         * @throws IllegalStateException if existing file contains different patterns
+         */
+        @JvmStatic
+        fun file(path: Path, patterns: List<Pattern>, generator: PatternDatabaseGenerator): PatternDatabaseFile {
+            val file = files.computeIfAbsent(path.toAbsolutePath().normalize()) { p ->
+                lazy {
+                    if (!Files.exists(p)) {
+                        PatternDatabaseFile.write(p, patterns, patterns.map(generator::generate))
+                    }
+                    PatternDatabaseFile.map(p)
+                }
+            }.value
+            if (file.patterns != patterns) {
+                throw IllegalStateException("$path contains different patterns: ${file.patterns}")
+            }
+            return file
+        }
+    }
+
+    private val groups: List<IntArray> = groups.map { it.toIntArray() }.filter { it.isNotEmpty() }
+
+    /**
+     * Tables for each board, keyed by [key]
+     */
+    private val databases = ConcurrentHashMap<Int, Lazy<Databases>>()
+
+    /**
+     * The last used tables, which are checked before [databases]
+     */
+    @Volatile
+    private var lastDatabases: Databases? = null
+
+    /**
+     * Positions of tiles of each group, two elements per group
+     */
+    override val dataSize: Int = 2 * this.groups.size
+
+    init {
+        if (this.groups.isEmpty()) {
+            throw IllegalArgumentException("groups must not be empty")
+        }
+        val cells = this.groups.flatMap { it.asIterable() }
+        if (cells.size != cells.toSet().size) {
+            throw IllegalArgumentException("groups must be disjoint")
+        }
+    }
+
+    override fun calc(state: IntArray, params: GameParameters): Int {
+        val db = databases(params)
+        return db.sum(db.positions(state, params))
+    }
+
+    override fun calc(
+        state: IntArray,
+        params: GameParameters,
+        prevValue: Int,
+        prevZeroIndex: Int,
+        newZeroIndex: Int
+    ): Int {
+        val db = databases(params)
+        val goalIndices = params.goalIndices
+        val movedCell = goalIndices[state[prevZeroIndex]]
+        val group = db.groupOf[movedCell]
+        if (group < 0) {
+            return prevValue
+        }
+        // no data, collect positions of the group from the state
+        var positions = 0L
+        for (i in state.indices) {
+            val cell = goalIndices[state[i]]
+            if (db.groupOf[cell] == group) {
+                positions = Pattern.set(positions, db.indexInGroup[cell], i)
+            }
+        }
+        return db.update(group, positions, prevValue, db.indexInGroup[movedCell], newZeroIndex)
+    }
+
+    override fun calc(state: IntArray, params: GameParameters, data: IntArray, offset: Int): Int {
+        val db = databases(params)
+        val positions = db.positions(state, params)
+        db.store(positions, data, offset)
+        return db.sum(positions)
+    }
+
+    override fun calc(
+        state: IntArray,
+        params: GameParameters,
+        prevValue: Int,
+        prevData: IntArray,
+        data: IntArray,
+        offset: Int,
+        prevZeroIndex: Int,
+        newZeroIndex: Int
+    ): Int {
+        return databases(params).move(params.goalIndices[state[prevZeroIndex]], prevValue, prevData, data, offset,
+            prevZeroIndex)
+    }
+
+    override fun calc(state: Long, params: GameParameters): Int {
+        val db = databases(params)
+        return db.sum(db.positions(state, params))
+    }
+
+    override fun calc(
+        state: Long,
+        params: GameParameters,
+        prevValue: Int,
+        prevZeroIndex: Int,
+        newZeroIndex: Int
+    ): Int {
+        val db = databases(params)
+        val movedCell = PackedNode.get(state, prevZeroIndex)
+        val group = db.groupOf[movedCell]
+        if (group < 0) {
+            return prevValue
+        }
+        // no data, collect positions of the group from the state
+        var positions = 0L
+        for (i in 0 until params.size) {
+            val cell = PackedNode.get(state, i)
+            if (db.groupOf[cell] == group) {
+                positions = Pattern.set(positions, db.indexInGroup[cell], i)
+            }
+        }
+        return db.update(group, positions, prevValue, db.indexInGroup[movedCell], newZeroIndex)
+    }
+
+    override fun calc(state: Long, params: GameParameters, data: IntArray, offset: Int): Int {
+        val db = databases(params)
+        val positions = db.positions(state, params)
+        db.store(positions, data, offset)
+        return db.sum(positions)
+    }
+
+    override fun calc(
+        state: Long,
+        params: GameParameters,
+        prevValue: Int,
+        prevData: IntArray,
+        data: IntArray,
+        offset: Int,
+        prevZeroIndex: Int,
+        newZeroIndex: Int
+    ): Int {
+        return databases(params).move(PackedNode.get(state, prevZeroIndex), prevValue, prevData, data, offset,
+            prevZeroIndex)
+    }
+
+    override val cost: Int
+        get() = 4
+
+    override fun toString(): String = "PatternDatabase(${groups.joinToString("-") { it.size.toString() }})"
+
+    private fun databases(params: GameParameters): Databases {
+        val blankCell = params.goalIndices[0]
+        val last = lastDatabases
+        if (last != null && last.width == params.width && last.height == params.height &&
+            last.blankCell == blankCell
+        ) {
+            return last
+        }
+        val key = key(params.width, params.height, blankCell)
+        return databases.computeIfAbsent(key) { lazy { Databases(params.width, params.height, blankCell) } }
+            .value
+            .also { lastDatabases = it }
+    }
+
+    /**
+     * @return key of tables for a board, boards have at most [Pattern.MAX_SIZE] cells, so 5 bits are enough for each
+     * parameter
+     */
+    private fun key(width: Int, height: Int, blankCell: Int): Int = (width shl 10) or (height shl 5) or blankCell
+
+    /**
+     * Tables of all groups for a board of a specific size and blank goal cell
+     */
+    private inner class Databases(val width: Int, val height: Int, val blankCell: Int) {
+
+        /**
+         * Index of a group for each goal cell, or `-1`, if the cell is not covered by any group
+         */
+        val groupOf = IntArray(width * height) { -1 }
+
+        /**
+         * Index of a tile inside of its group for each goal cell
+         */
+        val indexInGroup = IntArray(width * height)
+
+        val patterns: Array<Pattern>
+
+        val tables: Array<ByteBuffer>
+
+        init {
+            patterns = groups
+                .map { cells -> cells.filter { it != blankCell }.toIntArray() }
+                .filter { it.isNotEmpty() }
+                .map { Pattern(width, height, blankCell, it) }
+                .toTypedArray()
+            for ((group, pattern) in patterns.withIndex()) {
+                for ((index, cell) in pattern.cells.withIndex()) {
+                    groupOf[cell] = group
+                    indexInGroup[cell] = index
+                }
+            }
+            tables = if (directory != null) {
+                val name = "${width}x$height-$blankCell-${groups.joinToString("-") { it.joinToString(".") }}.pdb"
+                file(directory.resolve(name), patterns.asList(), generator).tables.toTypedArray()
+            } else {
+                Array(patterns.size) { ByteBuffer.wrap(table(patterns[it], generator)) }
+            }
+        }
+
+        /**
+         * @return positions of tiles of each group in [state]
+         */
+        fun positions(state: IntArray, params: GameParameters): LongArray {
+            val goalIndices = params.goalIndices
+            val positions = LongArray(patterns.size)
+            for (i in state.indices) {
+                val cell = goalIndices[state[i]]
+                val group = groupOf[cell]
+                if (group >= 0) {
+                    positions[group] = Pattern.set(positions[group], indexInGroup[cell], i)
+                }
+            }
+            return positions
+        }
+
+        /**
+         * @return positions of tiles of each group in packed [state]
+         */
+        fun positions(state: Long, params: GameParameters): LongArray {
+            val positions = LongArray(patterns.size)
+            for (i in 0 until params.size) {
+                val cell = PackedNode.get(state, i)
+                val group = groupOf[cell]
+                if (group >= 0) {
+                    positions[group] = Pattern.set(positions[group], indexInGroup[cell], i)
+                }
+            }
+            return positions
+        }
+
+        /**
+         * Store [positions] of groups into [data]
+         */
+        fun store(positions: LongArray, data: IntArray, offset: Int) {
+            for (group in positions.indices) {
+                val i = offset + 2 * group
+                data[i] = positions[group].toInt()
+                data[i + 1] = (positions[group] ushr 32).toInt()
+            }
+        }
+
+        /**
+         * Update value and positions of groups in [data] after a tile with goal cell [movedCell] was moved to [toCell]
+         */
+        fun move(movedCell: Int, prevValue: Int, prevData: IntArray, data: IntArray, offset: Int, toCell: Int): Int {
+            if (data !== prevData) {
+                System.arraycopy(prevData, offset, data, offset, 2 * patterns.size)
+            }
+            val group = groupOf[movedCell]
+            if (group < 0) {
+                return prevValue
+            }
+            val i = offset + 2 * group
+            val prevPositions = (prevData[i].toLong() and 0xFFFFFFFFL) or (prevData[i + 1].toLong() shl 32)
+            val positions = Pattern.set(prevPositions, indexInGroup[movedCell], toCell)
+            data[i] = positions.toInt()
+            data[i + 1] = (positions ushr 32).toInt()
+            val pattern = patterns[group]
+            val table = tables[group]
+            return prevValue - table.get(pattern.rank(prevPositions)) + table.get(pattern.rank(positions))
+        }
+
+        fun sum(positions: LongArray): Int {
+            var result = 0
+            for (group in patterns.indices) {
+                result += tables[group].get(patterns[group].rank(positions[group]))
+            }
+            return result
+        }
+
+        /**
+         * @param positions current positions of tiles in [group]
+         * @param index index of the moved tile in the [group]
+         * @param prevCell previous position of the moved tile
+         */
+        fun update(group: Int, positions: Long, prevValue: Int, index: Int, prevCell: Int): Int {
+            val pattern = patterns[group]
+            val table = tables[group]
+            return prevValue -
+                    table.get(pattern.rank(Pattern.set(positions, index, prevCell))) +
+                    table.get(pattern.rank(positions))
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package me.italankin.fifteen.solver.heuristics.pdb
+
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.Channels
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption
+import java.util.zip.CRC32
+
+/**
+ * Binary file with [PatternDatabase] tables, which is [mapped][FileChannel.map] into memory, so several processes
+ * on the same host share the same pages.
+ *
+ * File format (big-endian):
+ *
+ * ```
+ * int    magic, "FPDB"
+ * int    version
+ * int    width
+ * int    height
+ * int    goal cell of the blank
+ * int    number of patterns
+ * for each pattern:
+ *   int    number of tiles
+ *   int[]  goal cells of tiles
+ * for each pattern:
+ *   int    table length
+ * int    CRC32 of tables
+ * byte[] tables
+ * ```
+ *
+ * Tables depend on the goal layout only via the blank cell, because patterns are defined by goal cells of tiles.
+ */
+class PatternDatabaseFile private constructor(
+    @JvmField val width: Int,
+    @JvmField val height: Int,
+    @JvmField val blankCell: Int,
+    @JvmField val patterns: List<Pattern>,
+    /**
+     * Read-only tables of [patterns], indexed by [Pattern.rank]
+     */
+    @JvmField val tables: List<ByteBuffer>
+) {
+
+    companion object {
+
+        const val MAGIC = 0x46504442 // "FPDB"
+
+        const val VERSION = 1
+
+        /**
+         * Write [tables] of [patterns] into [path]. File is written to a temporary file first, which is atomically
+         * moved to [path] afterwards, so concurrent readers will never see partially written files.
+         */
+        @JvmStatic
+        fun write(path: Path, patterns: List<Pattern>, tables: List<ByteArray>) {
+            if (patterns.isEmpty()) {
+                throw IllegalArgumentException("patterns must not be empty")
+            }
+            if (patterns.size != tables.size) {
+                throw IllegalArgumentException("patterns and tables must have the same size")
+            }
+            val first = patterns[0]
+            for ((pattern, table) in patterns.zip(tables)) {
+                if (pattern.width != first.width || pattern.height != first.height ||
+                    pattern.blankCell != first.blankCell
+                ) {
+                    throw IllegalArgumentException("All patterns must have the same board and blank cell")
+                }
+                if (pattern.placements != table.size) {
+                    throw IllegalArgumentException("Invalid table size for $pattern: ${table.size}")
+                }
+            }
+            val crc = CRC32()
+            tables.forEach(crc::update)
+            path.toAbsolutePath().parent?.let(Files::createDirectories)
+            val tmp = Files.createTempFile(path.toAbsolutePath().parent, path.fileName.toString(), ".tmp")
+            try {
+                DataOutputStream(BufferedOutputStream(Files.newOutputStream(tmp))).use { out ->
+                    out.writeInt(MAGIC)
+                    out.writeInt(VERSION)
+                    out.writeInt(first.width)
+                    out.writeInt(first.height)
+                    out.writeInt(first.blankCell)
+                    out.writeInt(patterns.size)
+                    for (pattern in patterns) {
+                        out.writeInt(pattern.tiles)
+                        pattern.cells.forEach(out::writeInt)
+                    }
+                    tables.forEach { out.writeInt(it.size) }
+                    out.writeInt(crc.value.toInt())
+                    tables.forEach(out::write)
+                }
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+            } finally {
+                Files.deleteIfExists(tmp)
+            }
+        }
+
+        /**
+         * Map file at [path] into memory.
+         *
+         * @param verify verify checksum of the tables, which requires reading the whole file
+         * @throws IOException if the file cannot be read or has an invalid format
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun map(path: Path, verify: Boolean = true): PatternDatabaseFile {
+            FileChannel.open(path, StandardOpenOption.READ).use { channel ->
+                val input = DataInputStream(Channels.newInputStream(channel).buffered())
+                if (input.readInt() != MAGIC) {
+                    throw IOException("$path is not a pattern database file")
+                }
+                val version = input.readInt()
+                if (version != VERSION) {
+                    throw IOException("Unsupported version of $path: $version")
+                }
+                val width = input.readInt()
+                val height = input.readInt()
+                val blankCell = input.readInt()
+                val count = input.readInt()
+                if (count <= 0 || width <= 0 || height <= 0 || width * height > Pattern.MAX_SIZE) {
+                    throw IOException("Invalid header of $path")
+                }
+                var headerSize = 6 * Int.SIZE_BYTES
+                val patterns = try {
+                    List(count) {
+                        val tiles = input.readInt()
+                        if (tiles <= 0 || tiles > Pattern.MAX_TILES) {
+                            throw IOException("Invalid header of $path")
+                        }
+                        headerSize += (tiles + 1) * Int.SIZE_BYTES
+                        Pattern(width, height, blankCell, IntArray(tiles) { input.readInt() })
+                    }
+                } catch (e: IllegalArgumentException) {
+                    throw IOException("Invalid header of $path", e)
+                }
+                val lengths = IntArray(count) { input.readInt() }
+                val checksum = input.readInt()
+                headerSize += (count + 1) * Int.SIZE_BYTES
+                var offset = headerSize.toLong()
+                for ((pattern, length) in patterns.zip(lengths.asIterable())) {
+                    if (pattern.placements != length) {
+                        throw IOException("Invalid table size for $pattern in $path: $length")
+                    }
+                    offset += length
+                }
+                if (channel.size() != offset) {
+                    throw IOException("Invalid size of $path: expected $offset, got ${channel.size()}")
+                }
+                offset = headerSize.toLong()
+                val tables = lengths.map { length ->
+                    channel.map(FileChannel.MapMode.READ_ONLY, offset, length.toLong()).also { offset += length }
+                }
+                if (verify) {
+                    val crc = CRC32()
+                    tables.forEach { crc.update(it.duplicate()) }
+                    if (crc.value.toInt() != checksum) {
+                        throw IOException("Checksum mismatch in $path")
+                    }
+                }
+                return PatternDatabaseFile(width, height, blankCell, patterns, tables)
+            }
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package me.italankin.fifteen.solver.heuristics.pdb
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Generates distance tables for [Pattern]s by backward breadth-first search from the goal.
+ *
+ * The search runs over *(placement, blank)* states, where only moves of pattern tiles cost `1`, and moves of the
+ * blank into cells, not occupied by pattern tiles, are free (other tiles are indistinguishable). States are
+ * processed layer by layer: every layer is first closed under free moves and then expanded into the next one.
+ *
+ * Visited states and frontiers are stored as bitsets over `rank * size + blank`. Each layer is processed in
+ * parallel by a [ForkJoinPool]: placement ranks are split into chunks, aligned to 64 ranks, so closure of a layer
+ * (which never changes a placement) does not need synchronization between chunks.
+ *
+ * Resulting table contains, for every placement, the minimum number of pattern tile moves over all blank positions.
+ *
+ * @param numThreads number of threads used for generation
+ * @param maxMemory memory ceiling (in bytes), generation of a pattern requiring more memory will fail
+ * @param listener listener for generation progress
+ */
+class PatternDatabaseGenerator @JvmOverloads constructor(
+    private val numThreads: Int = Runtime.getRuntime().availableProcessors(),
+    private val maxMemory: Long = Runtime.getRuntime().maxMemory(),
+    private val listener: Listener = Listener.NoOp
+) {
+
+    companion object {
+
+        /**
+         * Maximum distance, which can be stored in a table
+         */
+        const val MAX_DISTANCE = Byte.MAX_VALUE - 1
+
+        private const val UNVISITED: Byte = -1
+
+        /**
+         * Number of ranks in a chunk must be a multiple of this value, so chunks never share bitset words
+         */
+        private const val CHUNK_ALIGNMENT = 64
+
+        /**
+         * @return memory (in bytes), required for generation of a table for [pattern]
+         */
+        @JvmStatic
+        fun requiredMemory(pattern: Pattern): Long {
+            val words = (pattern.placements.toLong() * pattern.size + 63) / 64
+            // visited, current and next bitsets + table
+            return 3 * words * Long.SIZE_BYTES + pattern.placements
+        }
+    }
+
+    init {
+        if (numThreads <= 0) throw IllegalArgumentException("numThreads must be > 0")
+        if (maxMemory <= 0) throw IllegalArgumentException("maxMemory must be > 0")
+    }
+
+    /**
+     * @return distance table for [pattern], indexed by [Pattern.rank]
+     * @throws IllegalStateException if generation requires more than [maxMemory]
+     */
+    fun generate(pattern: Pattern): ByteArray {
+        val required = requiredMemory(pattern)
+        if (required > maxMemory) {
+            throw IllegalStateException(
+                "Generation of $pattern requires ${required shr 20} MB, which exceeds the limit of ${maxMemory shr 20} MB"
+            )
+        }
+        val pool = ForkJoinPool(numThreads)
+        try {
+            return Generation(pattern, pool).run()
+        } finally {
+            pool.shutdownNow()
+        }
+    }
+
+    override fun toString(): String = "PatternDatabaseGenerator(numThreads=$numThreads)"
+
+    /**
+     * Listener for generation progress
+     */
+    interface Listener {
+
+        object NoOp : Listener
+
+        fun onGenerationStarted(pattern: Pattern) = Unit
+        fun onLayerCompleted(pattern: Pattern, layer: Layer) = Unit
+        fun onGenerationFinished(pattern: Pattern, timeMs: Long) = Unit
+    }
+
+    /**
+     * Reports generation progress to [System.out]
+     */
+    class SystemOutListener : Listener {
+
+        override fun onGenerationStarted(pattern: Pattern) {
+            println("Generating $pattern, ${pattern.placements} placements")
+        }
+
+        override fun onLayerCompleted(pattern: Pattern, layer: Layer) {
+            val progress = layer.totalPlacements * 100.0 / pattern.placements
+            println(
+                "  distance ${layer.distance}: ${layer.states} states, ${layer.placements} placements" +
+                        " (%.2f%%), %d ms".format(progress, layer.timeMs)
+            )
+        }
+
+        override fun onGenerationFinished(pattern: Pattern, timeMs: Long) {
+            println("Generated $pattern in $timeMs ms")
+        }
+    }
+
+    /**
+     * Statistics of a single BFS layer
+     *
+     * @param distance distance of the layer
+     * @param states number of *(placement, blank)* states in the layer
+     * @param placements number of placements first reached in the layer
+     * @param totalPlacements number of placements reached so far
+     * @param timeMs time spent on the layer
+     */
+    class Layer(
+        val distance: Int,
+        val states: Long,
+        val placements: Long,
+        val totalPlacements: Long,
+        val timeMs: Long
+    )
+
+    private inner class Generation(private val pattern: Pattern, private val pool: ForkJoinPool) {
+
+        private val size = pattern.size
+        private val placements = pattern.placements
+        private val words = ((placements.toLong() * size + 63) / 64).toInt()
+        private val visited = AtomicLongArray(words)
+        private var current = AtomicLongArray(words)
+        private var next = AtomicLongArray(words)
+        private val table = ByteArray(placements)
+
+        /**
+         * Mask of neighbour cells for each cell
+         */
+        private val neighbours = IntArray(size) { cell ->
+            val width = pattern.width
+            var mask = 0
+            if (cell + width < size) mask = mask or (1 shl (cell + width))
+            if (cell - width >= 0) mask = mask or (1 shl (cell - width))
+            if (cell % width > 0) mask = mask or (1 shl (cell - 1))
+            if (cell % width < width - 1) mask = mask or (1 shl (cell + 1))
+            mask
+        }
+
+        private val chunks: List<IntRange>
+
+        init {
+            val target = maxOf(1, placements / (numThreads * 16))
+            val chunkSize = ((target + CHUNK_ALIGNMENT - 1) / CHUNK_ALIGNMENT) * CHUNK_ALIGNMENT
+            chunks = (0 until placements step chunkSize).map { it until minOf(placements, it + chunkSize) }
+        }
+
+        fun run(): ByteArray {
+            listener.onGenerationStarted(pattern)
+            val startTime = System.currentTimeMillis()
+            table.fill(UNVISITED)
+            val start = pattern.rank(pattern.goal).toLong() * size + pattern.blankCell
+            setBit(visited, start)
+            setBit(current, start)
+            var distance = 0
+            var totalPlacements = 0L
+            while (true) {
+                val layerStart = System.currentTimeMillis()
+                val states = LongAdder()
+                val newPlacements = LongAdder()
+                val d = distance.toByte()
+                invokeAll { ranks -> close(ranks, d, states, newPlacements) }
+                if (states.sum() == 0L) {
+                    break
+                }
+                invokeAll { ranks -> expand(ranks) }
+                totalPlacements += newPlacements.sum()
+                val layer = Layer(
+                    distance,
+                    states.sum(),
+                    newPlacements.sum(),
+                    totalPlacements,
+                    System.currentTimeMillis() - layerStart
+                )
+                listener.onLayerCompleted(pattern, layer)
+                val tmp = current
+                current = next
+                next = tmp
+                distance++
+                if (distance > MAX_DISTANCE) {
+                    throw IllegalStateException("Distance in $pattern exceeds $MAX_DISTANCE")
+                }
+            }
+            for (i in table.indices) {
+                if (table[i] == UNVISITED) {
+                    table[i] = 0
+                }
+            }
+            listener.onGenerationFinished(pattern, System.currentTimeMillis() - startTime)
+            return table
+        }
+
+        private inline fun invokeAll(crossinline action: (IntRange) -> Unit) {
+            val tasks = chunks.map { ranks -> Callable { action(ranks) } }
+            for (future in pool.invokeAll(tasks)) {
+                future.get()
+            }
+        }
+
+        /**
+         * Close the current layer under free moves for [ranks]: flood blank through the cells, not occupied by
+         * pattern tiles
+         */
+        private fun close(ranks: IntRange, distance: Byte, states: LongAdder, newPlacements: LongAdder) {
+            var stateCount = 0L
+            var placementCount = 0L
+            for (rank in ranks) {
+                val base = rank.toLong() * size
+                val frontier = getBits(current, base)
+                if (frontier == 0) continue
+                val positions = pattern.unrank(rank)
+                var occupied = 0
+                for (i in 0 until pattern.tiles) {
+                    occupied = occupied or (1 shl Pattern.get(positions, i))
+                }
+                val blocked = occupied or getBits(visited, base)
+                var reached = frontier
+                var todo = frontier
+                while (todo != 0) {
+                    val cell = Integer.numberOfTrailingZeros(todo)
+                    todo = todo and (todo - 1)
+                    val added = neighbours[cell] and (blocked or reached).inv()
+                    reached = reached or added
+                    todo = todo or added
+                }
+                val added = reached and frontier.inv()
+                if (added != 0) {
+                    orBits(visited, base, added)
+                    orBits(current, base, added)
+                }
+                stateCount += Integer.bitCount(reached)
+                if (table[rank] == UNVISITED) {
+                    table[rank] = distance
+                    placementCount++
+                }
+            }
+            states.add(stateCount)
+            newPlacements.add(placementCount)
+        }
+
+        /**
+         * Expand the current layer for [ranks] into the next one by moving pattern tiles and clear the current layer
+         */
+        private fun expand(ranks: IntRange) {
+            for (rank in ranks) {
+                val base = rank.toLong() * size
+                var frontier = getBits(current, base)
+                if (frontier == 0) continue
+                val positions = pattern.unrank(rank)
+                while (frontier != 0) {
+                    val blank = Integer.numberOfTrailingZeros(frontier)
+                    frontier = frontier and (frontier - 1)
+                    for (tile in 0 until pattern.tiles) {
+                        val cell = Pattern.get(positions, tile)
+                        if (neighbours[blank] and (1 shl cell) == 0) continue
+                        val target = pattern.rank(Pattern.set(positions, tile, blank)).toLong() * size + cell
+                        if (setBit(visited, target)) {
+                            setBit(next, target)
+                        }
+                    }
+                }
+            }
+            // clear words of this chunk, chunks are aligned to words
+            val fromWord = (ranks.first.toLong() * size ushr 6).toInt()
+            val toWord = minOf(words.toLong(), ((ranks.last + 1).toLong() * size + 63) ushr 6).toInt()
+            for (w in fromWord until toWord) {
+                current.set(w, 0)
+            }
+        }
+
+        /**
+         * @return [size] bits starting at [base]
+         */
+        private fun getBits(bits: AtomicLongArray, base: Long): Int {
+            val word = (base ushr 6).toInt()
+            val offset = (base and 63).toInt()
+            var result = bits.get(word) ushr offset
+            if (offset + size > 64) {
+                result = result or (bits.get(word + 1) shl (64 - offset))
+            }
+            return result.toInt() and ((1 shl size) - 1)
+        }
+
+        /**
+         * Set [size] bits starting at [base], must not be called concurrently for the same words
+         */
+        private fun orBits(bits: AtomicLongArray, base: Long, value: Int) {
+            val word = (base ushr 6).toInt()
+            val offset = (base and 63).toInt()
+            val v = value.toLong() and 0xFFFFFFFFL
+            bits.set(word, bits.get(word) or (v shl offset))
+            if (offset + size > 64) {
+                bits.set(word + 1, bits.get(word + 1) or (v ushr (64 - offset)))
+            }
+        }
+
+        /**
+         * Atomically set bit at [index]
+         *
+         * @return `true`, if the bit was not set before
+         */
+        private fun setBit(bits: AtomicLongArray, index: Long): Boolean {
+            val word = (index ushr 6).toInt()
+            val mask = 1L shl (index and 63).toInt()
+            while (true) {
+                val value = bits.get(word)
+                if (value and mask != 0L) {
+                    return false
+                }
+                if (bits.compareAndSet(word, value, value or mask)) {
+                    return true
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package me.italankin.fifteen.solver.reporter
 
 import me.italankin.fifteen.game.Game
+import me.italankin.fifteen.solver.AllStats
 import me.italankin.fifteen.solver.QueueState
 import me.italankin.fifteen.solver.Session
 import me.italankin.fifteen.solver.SolveException
@@ -40,9 +41,9 @@ class CompositeReporter(
         }
     }
 
-    override fun onSessionFinished(session: Session, results: List<Result<Solver.Solution>>) {
+    override fun onSessionFinished(session: Session, stats: AllStats) {
         for (reporter in reporters) {
-            reporter.onSessionFinished(session, results)
+            reporter.onSessionFinished(session, stats)
         }
     }
 
@@ -1,6 +1,8 @@
 package me.italankin.fifteen.solver.reporter
 
+import me.italankin.fifteen.solver.AllStats
 import me.italankin.fifteen.solver.Session
+import me.italankin.fifteen.solver.SolveException
 import me.italankin.fifteen.solver.Solver
 import java.io.File
 import java.io.Writer
@@ -9,7 +11,7 @@ import kotlin.math.roundToInt
 private const val SEPARATOR = ";"
 
 /**
- * Write session data to CSV.
+ * Write session data to CSV, rows are written as soon as solutions are found.
  *
  * @param output where to put data
  * @param columns list of columns to render
@@ -27,17 +29,39 @@ class CsvReporter(
         }
     }
 
-    override fun onSessionFinished(session: Session, results: List<Result<Solver.Solution>>) {
-        output.writer().use { writer ->
-            writer.write(columns.joinToString(separator, transform = Column::title))
-            for ((index, result) in results.withIndex()) {
-                val solution = result.getOrNull() ?: continue
-                writer.write("\n")
-                writer.write(columns.joinToString(separator, transform = { it.invoke(index, solution) }))
-            }
+    private var writer: Writer? = null
+    private var index = 0
+
+    override fun onSessionStarted(session: Session) {
+        writer = output.writer().apply {
+            write(columns.joinToString(separator, transform = Column::title))
         }
     }
 
+    override fun onSessionSolutionFound(session: Session, solution: Solver.Solution) {
+        val writer = writer ?: return
+        writer.write("\n")
+        writer.write(columns.joinToString(separator, transform = { it.invoke(index++, solution) }))
+    }
+
+    override fun onSessionSolutionError(session: Session, error: SolveException) {
+        // keep indices consistent with session results
+        index++
+    }
+
+    override fun onSessionFinished(session: Session, stats: AllStats) {
+        close()
+    }
+
+    override fun onSessionCancelled(session: Session) {
+        close()
+    }
+
+    private fun close() {
+        writer?.close()
+        writer = null
+    }
+
     fun interface Output {
 
         fun writer(): Writer
@@ -100,7 +124,7 @@ class CsvReporter(
         },
         HEURISTICS_VALUE("heuristics value") {
             override fun invoke(index: Int, solution: Solver.Solution): String {
-                return solution.start.heuristicsValue.toString()
+                return solution.startHeuristicsValue.toString()
             }
         },
         ALGORITHM("algorithm") {
@@ -112,5 +136,15 @@ class CsvReporter(
         MOVES("moves") {
             override fun invoke(index: Int, solution: Solver.Solution): String = solution.moves.toString()
         },
+        CPU_TIME("cpu time") {
+            override fun invoke(index: Int, solution: Solver.Solution): String {
+                return if (solution.cpuTime.isNaN()) "" else solution.cpuTime.roundToInt().toString()
+            }
+        },
+        ALLOCATED_BYTES("allocated bytes") {
+            override fun invoke(index: Int, solution: Solver.Solution): String {
+                return if (solution.allocatedBytes < 0) "" else solution.allocatedBytes.toString()
+            }
+        },
     }
 }
@@ -4,14 +4,14 @@ import kotlinx.serialization.ExperimentalSerializationApi
 import kotlinx.serialization.Serializable
 import kotlinx.serialization.json.Json
 import kotlinx.serialization.json.decodeFromStream
-import kotlinx.serialization.json.encodeToStream
+import me.italankin.fifteen.solver.AllStats
 import me.italankin.fifteen.solver.Session
 import me.italankin.fifteen.solver.Solver
 import java.io.File
 import java.io.OutputStream
 
 /**
- * Writes solve data in JSON:
+ * Writes solve data in JSON, entries are written as soon as solutions are found:
  *
  * ```json
  * [
@@ -21,7 +21,9 @@ import java.io.OutputStream
  *     "solution": [...],
  *     "timeMs": 103.081245,
  *     "nodesExplored": 372,
- *     "nodesUnexplored": 231
+ *     "nodesUnexplored": 231,
+ *     "cpuTimeMs": 101.52,
+ *     "allocatedBytes": 10485760
  *   }
  * ]
  * ```
@@ -46,10 +48,23 @@ class JsonReporter(
             throw IllegalStateException("file '${output.file.absolutePath}' already exists")
     }
 
+    private var stream: OutputStream? = null
+    private var entries = 0
+
     @OptIn(ExperimentalSerializationApi::class)
-    override fun onSessionFinished(session: Session, results: List<Result<Solver.Solution>>) {
-        val data = results.mapNotNullTo(ArrayList()) {
-            val solution = it.getOrNull() ?: return@mapNotNullTo null
+    override fun onSessionStarted(session: Session) {
+        val existingData = if (output is Output.ToFile && output.append && output.file.exists()) {
+            output.file.inputStream().use { json.decodeFromStream<List<SolutionJson>>(it) }
+        } else {
+            emptyList()
+        }
+        stream = output.outputStream().buffered().apply { write('['.code) }
+        entries = 0
+        existingData.forEach(::write)
+    }
+
+    override fun onSessionSolutionFound(session: Session, solution: Solver.Solution) {
+        write(
             SolutionJson(
                 solver = solution.solver.toString(),
                 scramble = solution.game.state.joinToString(", "),
@@ -57,15 +72,44 @@ class JsonReporter(
                 timeMs = solution.time,
                 nodesExplored = solution.nodesExplored,
                 nodesUnexplored = solution.nodesUnexplored,
+                cpuTimeMs = solution.cpuTime.takeUnless(Float::isNaN),
+                allocatedBytes = solution.allocatedBytes.takeIf { it >= 0 },
                 tags = tags
             )
+        )
+    }
+
+    override fun onSessionFinished(session: Session, stats: AllStats) {
+        close()
+    }
+
+    override fun onSessionCancelled(session: Session) {
+        close()
+    }
+
+    private fun write(data: SolutionJson) {
+        val stream = stream ?: return
+        val element = json.encodeToString(SolutionJson.serializer(), data)
+        val text = buildString {
+            if (entries++ > 0) append(',')
+            if (prettify) {
+                append('\n')
+                append(element.prependIndent("    "))
+            } else {
+                append(element)
+            }
         }
-        if (output is Output.ToFile && output.append && output.file.exists()) {
-            val existingData = output.file.inputStream()
-                .use { json.decodeFromStream<List<SolutionJson>>(it) }
-            data.addAll(0, existingData)
+        stream.write(text.toByteArray())
+    }
+
+    private fun close() {
+        val stream = stream ?: return
+        if (prettify && entries > 0) {
+            stream.write('\n'.code)
         }
-        output.outputStream().use { json.encodeToStream(data, it) }
+        stream.write(']'.code)
+        stream.close()
+        this.stream = null
     }
 
     fun interface Output {
@@ -91,6 +135,8 @@ class JsonReporter(
         val timeMs: Float,
         val nodesExplored: Long,
         val nodesUnexplored: Long,
+        val cpuTimeMs: Float? = null,
+        val allocatedBytes: Long? = null,
         val tags: List<String>? = null
     )
 }
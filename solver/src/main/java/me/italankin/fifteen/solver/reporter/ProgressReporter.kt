@@ -1,9 +1,9 @@
 package me.italankin.fifteen.solver.reporter
 
 import kotlinx.coroutines.*
+import me.italankin.fifteen.solver.AllStats
 import me.italankin.fifteen.solver.QueueState
 import me.italankin.fifteen.solver.Session
-import me.italankin.fifteen.solver.Solver
 import java.util.concurrent.Executors
 import kotlin.time.Duration
 import kotlin.time.Duration.Companion.milliseconds
@@ -37,17 +37,24 @@ class ProgressReporter(
 
     override fun onSessionStarted(session: Session) {
         val totalCount = session.stats.totalCount
+        val unbounded = totalCount == Session.UNKNOWN_COUNT
         val startTime = System.currentTimeMillis()
 
         progressScope.launch {
             do {
                 val sb = StringBuilder()
-                sb.append("\rqueue: ${queueState.inQueue}/${queueState.inProgress}/${queueState.done}/$totalCount")
+                sb.append("\rqueue: ${queueState.inQueue}/${queueState.inProgress}/${queueState.done}")
                 val elapsed = System.currentTimeMillis() - startTime
                 val done = queueState.done.toFloat()
-                val progress = done / totalCount
-                sb.append(" (${(progress * 100).toInt()}%)")
+                val progress = if (unbounded) 0f else done / totalCount
+                if (!unbounded) {
+                    sb.append("/$totalCount (${(progress * 100).toInt()}%)")
+                }
                 sb.append(", %.3f games/s".format(done / elapsed * 1000f))
+                val time = session.stats.results.global.time
+                if (!time.p50.rawValue.isNaN()) {
+                    sb.append(", time p50/p99: %.3f/%.3f ms".format(time.p50.rawValue, time.p99.rawValue))
+                }
                 sb.append(", memory: ${session.stats.memoryCurrent shr 20} MB")
                 sb.append(", elapsed: ")
                 val elapsedDur = elapsed.milliseconds
@@ -63,7 +70,7 @@ class ProgressReporter(
                 print(sb.toString())
 
                 delay(interval)
-            } while (queueState.done < totalCount)
+            } while (unbounded || queueState.done < totalCount)
         }
     }
 
@@ -71,7 +78,7 @@ class ProgressReporter(
         this.queueState = queueState
     }
 
-    override fun onSessionFinished(session: Session, results: List<Result<Solver.Solution>>) {
+    override fun onSessionFinished(session: Session, stats: AllStats) {
         print("\r")
         System.out.flush()
 
@@ -1,11 +1,21 @@
 package me.italankin.fifteen.solver.reporter
 
 import me.italankin.fifteen.game.Game
+import me.italankin.fifteen.solver.AllStats
 import me.italankin.fifteen.solver.QueueState
 import me.italankin.fifteen.solver.Session
 import me.italankin.fifteen.solver.SolveException
 import me.italankin.fifteen.solver.Solver
 
+/**
+ * Receives session events. Results are reported one by one as they are found, so reporters should not retain
+ * [Solver.Solution]s, unless necessary: sessions can be arbitrarily large.
+ *
+ * Events are delivered in the coroutine context of the session's collector (e.g. the calling thread of
+ * [Session.executeBlocking]), never from solver threads, so reporters don't need to be thread-safe, unless that context
+ * is multithreaded: [onSessionQueueStateUpdated] is called from a separate coroutine and may run concurrently with
+ * other events in such context.
+ */
 interface Reporter {
 
     object NoOp : Reporter
@@ -15,6 +25,6 @@ interface Reporter {
     fun onSessionSolutionFound(session: Session, solution: Solver.Solution) = Unit
     fun onSessionSolutionError(session: Session, error: SolveException) = Unit
     fun onSessionQueueStateUpdated(session: Session, queueState: QueueState) = Unit
-    fun onSessionFinished(session: Session, results: List<Result<Solver.Solution>>) = Unit
+    fun onSessionFinished(session: Session, stats: AllStats) = Unit
     fun onSessionCancelled(session: Session) = Unit
 }
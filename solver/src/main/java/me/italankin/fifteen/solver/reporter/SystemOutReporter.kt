@@ -28,12 +28,15 @@ class SystemOutReporter(
         if (!printSolutions) {
             return
         }
+        val path = solution.path
         println("\rscramble:")
-        println(solution.start.toString().prependIndent("  "))
+        println(path.first().toString().prependIndent("  "))
         println("solver: ${solution.solver}")
         println("solution (${solution.solution.size}): ${solution.solution.joinToString()}")
+        println("time: ${solution.time.toString(3)} ms, cpu time: ${solution.cpuTime.toString(3)} ms, " +
+                "allocated: ${solution.allocatedBytes} bytes")
         println("end state:")
-        println(solution.end.toString().prependIndent("  "))
+        println(path.last().toString().prependIndent("  "))
         println()
     }
 
@@ -42,29 +45,42 @@ class SystemOutReporter(
         System.err.println("game:")
         System.err.println(error.game.javaClass.simpleName.prependIndent("  "))
         System.err.println(error.game.toPrettyString().prependIndent("    "))
-        System.err.println("stacktrace:\n${error.stackTraceToString().prependIndent("  ")}")
+        if (error.limitExceeded != null) {
+            System.err.println("solver: ${error.solver}")
+        } else {
+            System.err.println("stacktrace:\n${error.stackTraceToString().prependIndent("  ")}")
+        }
     }
 
-    override fun onSessionFinished(session: Session, results: List<Result<Solver.Solution>>) {
-        if (results.isEmpty()) {
+    override fun onSessionFinished(session: Session, stats: AllStats) {
+        if (stats.global.total.run { success + error } == 0) {
             println("\rno games")
             return
         }
 
-        val stats = results.stats()
-
         class TotalData(val name: String, val data: String)
 
         val totalTable = Table<TotalData>(
             Column(null) { it.name },
             Column(null, Column.Align.RIGHT) { it.data }
         ).apply {
-            append(TotalData("Total", "${stats.global.total.success} (${stats.global.total.error} errors)"))
+            val total = stats.global.total
+            append(TotalData("Total", "${total.success} (${total.error} errors, ${total.limitExceeded} limits exceeded)"))
             append(TotalData("Total time", "${session.stats.totalTimeMs} ms"))
             append(TotalData("Max memory", "${session.stats.memoryMax shr 20} MB"))
             append(TotalData("Avg memory", "${session.stats.memoryAvg shr 20} MB"))
             append(TotalData("GC count", "${session.stats.gcCount}"))
             append(TotalData("GC time", "${session.stats.gcTimeMs} ms"))
+            if (session.stats.compilationTimeMs >= 0) {
+                append(TotalData("JIT time", "${session.stats.compilationTimeMs} ms"))
+            }
+            val parametersCount = session.stats.gameParametersCount
+            append(TotalData("Game parameters", "$parametersCount shared, ${session.stats.gameParametersHits} hits"))
+            if (session.stats.warmupSolves > 0) {
+                val jitTime = session.stats.warmupCompilationTimeMs
+                val warmup = "${session.stats.warmupSolves} solves, ${session.stats.warmupTimeMs} ms"
+                append(TotalData("Warmup", if (jitTime >= 0) "$warmup (JIT time: $jitTime ms)" else warmup))
+            }
         }
         println(totalTable.toString())
 
@@ -79,6 +95,10 @@ class SystemOutReporter(
         solversTable.append(TableData.Total(stats.global, session.stats.totalTimeMs))
         println(solversTable.toString())
 
+        if (stats.speedupOverAStar.isNotEmpty()) {
+            printSpeedupOverAStar(stats)
+        }
+
         if (session.solvers.size == 1) {
             return
         }
@@ -87,6 +107,20 @@ class SystemOutReporter(
         }
     }
 
+    private fun printSpeedupOverAStar(allStats: AllStats) {
+        class Entry(val name: String, val speedup: String)
+
+        println("Speedup over A*:")
+        val table = Table(
+            Column("Solver", content = Entry::name),
+            Column("Speedup", Column.Align.RIGHT, Entry::speedup),
+        )
+        allStats.speedupOverAStar.forEach { (solver, speedup) ->
+            table.append(Entry(solver.toString(), "${speedup.toString(3)}x"))
+        }
+        println(table)
+    }
+
     private fun printCompareBy(allStats: AllStats, field: Field) {
         println("Compare by ${field.name}:")
         val compareTable = Table.createCompareTable(allStats, mapper = field::invoke)
@@ -118,6 +152,18 @@ class SystemOutReporter(
         SEARCH_SPEED {
             override fun invoke(stats: Stats): Comparable<*> = stats.total.avgSearchSpeed
         },
+        THREAD_CPU_TIME {
+            override fun invoke(stats: Stats): Comparable<*> = stats.resources.cpuTime
+        },
+        AVG_THREAD_CPU_TIME {
+            override fun invoke(stats: Stats): Comparable<*> = stats.resources.avgCpuTime
+        },
+        ALLOCATED_BYTES {
+            override fun invoke(stats: Stats): Comparable<*> = stats.resources.allocatedBytes
+        },
+        AVG_ALLOCATED_BYTES {
+            override fun invoke(stats: Stats): Comparable<*> = stats.resources.avgAllocatedBytes
+        },
         MIN_TIME {
             override fun invoke(stats: Stats): Comparable<*> = stats.time.min
         },
@@ -182,6 +228,34 @@ class SystemOutReporter(
             it.stats.total.avgNodesUnexplored.toString()
         }
 
+        /**
+         * Total CPU time of solving threads
+         */
+        val THREAD_CPU_TIME = Column<TableData>("Thread CPU time (ms)", Column.Align.RIGHT) {
+            it.stats.resources.cpuTime.rawValue.toString(0)
+        }
+
+        /**
+         * Average CPU time of a solving thread per game
+         */
+        val AVG_THREAD_CPU_TIME = Column<TableData>("Avg thread CPU time (ms)", Column.Align.RIGHT) {
+            it.stats.resources.avgCpuTime.rawValue.toString(3)
+        }
+
+        /**
+         * Total memory, allocated by solving threads
+         */
+        val ALLOCATED = Column<TableData>("Allocated (MB)", Column.Align.RIGHT) {
+            it.stats.resources.allocatedBytes.let { bytes -> if (bytes < 0) "N/A" else (bytes shr 20).toString() }
+        }
+
+        /**
+         * Average memory, allocated by a solving thread per game
+         */
+        val AVG_ALLOCATED = Column<TableData>("Avg allocated (KB)", Column.Align.RIGHT) {
+            it.stats.resources.avgAllocatedBytes.let { bytes -> if (bytes < 0) "N/A" else (bytes shr 10).toString() }
+        }
+
         /**
          * Solve speed in games per second
          */
@@ -236,6 +310,20 @@ class SystemOutReporter(
             it.stats.time.avg.rawValue.toString(3)
         }
 
+        /**
+         * Median solve time
+         */
+        val TIME_P50 = Column<TableData>("Time (p50, ms)", Column.Align.RIGHT) {
+            it.stats.time.p50.rawValue.toString(3)
+        }
+
+        /**
+         * 90th percentile of solve time
+         */
+        val TIME_P90 = Column<TableData>("Time (p90, ms)", Column.Align.RIGHT) {
+            it.stats.time.p90.rawValue.toString(3)
+        }
+
         /**
          * 95th percentile of solve time
          */
@@ -243,6 +331,20 @@ class SystemOutReporter(
             it.stats.time.p95.rawValue.toString(1)
         }
 
+        /**
+         * 99th percentile of solve time
+         */
+        val TIME_P99 = Column<TableData>("Time (p99, ms)", Column.Align.RIGHT) {
+            it.stats.time.p99.rawValue.toString(3)
+        }
+
+        /**
+         * 99.9th percentile of solve time
+         */
+        val TIME_P999 = Column<TableData>("Time (p99.9, ms)", Column.Align.RIGHT) {
+            it.stats.time.p999.rawValue.toString(3)
+        }
+
         /**
          * Standard deviation of solve time
          */
@@ -271,6 +373,20 @@ class SystemOutReporter(
             it.stats.moves.avg.toString(3)
         }
 
+        /**
+         * Median number of moves
+         */
+        val MOVES_P50 = Column<TableData>("Moves (p50)", Column.Align.RIGHT) {
+            it.stats.moves.p50.toString()
+        }
+
+        /**
+         * 90th percentile of moves
+         */
+        val MOVES_P90 = Column<TableData>("Moves (p90)", Column.Align.RIGHT) {
+            it.stats.moves.p90.toString()
+        }
+
         /**
          * 95th percentile of moves
          */
@@ -278,6 +394,41 @@ class SystemOutReporter(
             it.stats.moves.p95.toString()
         }
 
+        /**
+         * 99th percentile of moves
+         */
+        val MOVES_P99 = Column<TableData>("Moves (p99)", Column.Align.RIGHT) {
+            it.stats.moves.p99.toString()
+        }
+
+        /**
+         * 99.9th percentile of moves
+         */
+        val MOVES_P999 = Column<TableData>("Moves (p99.9)", Column.Align.RIGHT) {
+            it.stats.moves.p999.toString()
+        }
+
+        /**
+         * Median number of nodes, explored by algorithm
+         */
+        val NODES_EXPLORED_P50 = Column<TableData>("Nodes explored (p50)", Column.Align.RIGHT) {
+            it.stats.histograms.nodesExplored.percentile(0.5).toLong().toString()
+        }
+
+        /**
+         * 99th percentile of nodes, explored by algorithm
+         */
+        val NODES_EXPLORED_P99 = Column<TableData>("Nodes explored (p99)", Column.Align.RIGHT) {
+            it.stats.histograms.nodesExplored.percentile(0.99).toLong().toString()
+        }
+
+        /**
+         * Median speed of nodes exploration
+         */
+        val SPEED_NODES_P50 = Column<TableData>("Speed (p50, nodes/ms)", Column.Align.RIGHT) {
+            it.stats.histograms.searchSpeed.percentile(0.5).toString(1)
+        }
+
         /**
          * Standard deviation of moves
          */
@@ -296,6 +447,8 @@ class SystemOutReporter(
             TIME_MIN,
             TIME_MAX,
             TIME_AVG,
+            TIME_P50,
+            TIME_P99,
             MOVES_MIN,
             MOVES_MAX,
             MOVES_AVG,
@@ -0,0 +1,55 @@
+package me.italankin.fifteen.solver
+
+import me.italankin.fifteen.game.ClassicGame
+import me.italankin.fifteen.game.SnakeGame
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler
+import me.italankin.fifteen.solver.algorithm.idastar.IDAStar
+import me.italankin.fifteen.solver.heuristics.ManhattanDistance
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class GameParametersRegistryTest {
+
+    @Test
+    fun sameBoard() {
+        val registry = GameParametersRegistry()
+        val params = registry.get(ClassicGame(4, 4, false, ShuffleScrambler(0)))
+        assertSame(params, registry.get(ClassicGame(4, 4, false, ShuffleScrambler(1))))
+        assertEquals(1, registry.size)
+        assertEquals(1, registry.missCount)
+        assertEquals(1, registry.hitCount)
+    }
+
+    @Test
+    fun differentBoards() {
+        val registry = GameParametersRegistry()
+        val params = registry.get(ClassicGame(4, 4, false, ShuffleScrambler(0)))
+        assertNotSame(params, registry.get(ClassicGame(4, 3, false, ShuffleScrambler(0))))
+        assertNotSame(params, registry.get(SnakeGame(4, 4, false, ShuffleScrambler(0))))
+        assertNotSame(params, registry.get(ClassicGame(4, 4, 1, ShuffleScrambler(0))))
+        assertEquals(4, registry.size)
+        assertEquals(0, registry.hitCount)
+    }
+
+    @Test
+    fun missingTile() {
+        val registry = GameParametersRegistry()
+        val params = registry.get(ClassicGame(4, 4, 5, ShuffleScrambler(0)))
+        assertSame(params, registry.get(ClassicGame(4, 4, 5, ShuffleScrambler(1))))
+        assertEquals(0, params.goal[4])
+        assertEquals(-1, params.goalRows[5])
+    }
+
+    @Test
+    fun solution() {
+        val registry = GameParametersRegistry()
+        val game = ClassicGame(3, 3, false, ShuffleScrambler(0))
+        val solution = Solver(ManhattanDistance(), IDAStar()).solve(game, parameters = registry)
+        val params = registry.get(game)
+        assertSame(params, solution.gameParameters)
+        assertTrue(solution.path.all { it.gameParameters === params })
+    }
+}
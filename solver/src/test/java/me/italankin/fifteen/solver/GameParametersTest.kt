@@ -3,8 +3,10 @@ package me.italankin.fifteen.solver
 import me.italankin.fifteen.game.ClassicGame
 import me.italankin.fifteen.game.SnakeGame
 import me.italankin.fifteen.game.SpiralGame
+import me.italankin.fifteen.game.manhattan
 import me.italankin.fifteen.game.scrambler.ShuffleScrambler
 import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
 import org.junit.Test
 
 class GameParametersTest {
@@ -41,4 +43,40 @@ class GameParametersTest {
             params.goalIndices
         )
     }
+
+    @Test
+    fun tables() {
+        val scrambler = ShuffleScrambler(0)
+        val games = listOf(
+            ClassicGame(3, 3, false, scrambler),
+            ClassicGame(4, 3, 5, scrambler),
+            SnakeGame(4, 4, 3, scrambler),
+            SpiralGame(5, 4, false, scrambler),
+        )
+        for (game in games) {
+            val params = GameParameters(game)
+            val width = params.width
+            for (i in 0 until params.size) {
+                assertEquals(i / width, params.rows[i])
+                assertEquals(i % width, params.columns[i])
+                val neighbours = listOf(i + width, i - width, i - 1, i + 1)
+                    .filter { it in 0 until params.size }
+                    .filter { it / width == i / width || it % width == i % width }
+                assertEquals(neighbours, params.neighbours[i].toList())
+                for (g in 0 until params.size) {
+                    val expected = if (g == params.goalIndices[0]) 0 else manhattan(i, g, width)
+                    assertEquals(expected, params.packedManhattan[g * params.size + i])
+                }
+            }
+            for (n in params.goalIndices.indices) {
+                val goal = params.goalIndices[n]
+                assertEquals(if (goal < 0) -1 else goal / width, params.goalRows[n])
+                assertEquals(if (goal < 0) -1 else goal % width, params.goalColumns[n])
+                for (i in 0 until params.size) {
+                    val expected = if (n == 0 || goal < 0) 0 else manhattan(i, goal, width)
+                    assertEquals(expected, params.manhattan[n * params.size + i])
+                }
+            }
+        }
+    }
 }
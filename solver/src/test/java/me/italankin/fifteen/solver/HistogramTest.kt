@@ -0,0 +1,77 @@
+package me.italankin.fifteen.solver
+
+import org.junit.Assert.*
+import org.junit.Test
+import kotlin.concurrent.thread
+import kotlin.math.abs
+import kotlin.math.ceil
+import kotlin.random.Random
+
+class HistogramTest {
+
+    @Test
+    fun smallValuesAreExact() {
+        val histogram = Histogram()
+        for (value in 0 until 100) {
+            histogram.record(value.toDouble())
+        }
+        assertEquals(100, histogram.count)
+        assertEquals(0.0, histogram.min, 0.0)
+        assertEquals(99.0, histogram.max, 0.0)
+        assertEquals(49.5, histogram.mean, 1e-9)
+        assertEquals(50.0, histogram.percentile(0.5), 0.0)
+        assertEquals(90.0, histogram.percentile(0.9), 0.0)
+        assertEquals(99.0, histogram.percentile(1.0), 0.0)
+    }
+
+    @Test
+    fun relativeError() {
+        val random = Random(0)
+        val values = List(100_000) { random.nextDouble() * random.nextDouble(1.0, 1e9) }
+        val histogram = Histogram(scale = 1000.0)
+        values.forEach(histogram::record)
+        val sorted = values.sorted()
+        for (p in listOf(0.0, 0.5, 0.9, 0.99, 0.999, 1.0)) {
+            val expected = sorted[ceil((sorted.size - 1) * p).toInt()]
+            val actual = histogram.percentile(p)
+            assertTrue("p=$p expected=$expected actual=$actual", abs(actual - expected) <= expected / 128 + 1e-3)
+        }
+    }
+
+    @Test
+    fun merge() {
+        val a = Histogram()
+        val b = Histogram()
+        (1..50).forEach { a.record(it.toDouble()) }
+        (51..100).forEach { b.record(it.toDouble()) }
+        val merged = a.copy()
+        merged.add(b)
+        assertEquals(100, merged.count)
+        assertEquals(1.0, merged.min, 0.0)
+        assertEquals(100.0, merged.max, 0.0)
+        assertEquals(51.0, merged.percentile(0.5), 0.0)
+        assertEquals(50, a.count)
+        assertThrows(IllegalArgumentException::class.java) { a.add(Histogram(scale = 10.0)) }
+    }
+
+    @Test
+    fun concurrentRecord() {
+        val histogram = Histogram()
+        val threads = List(4) { t ->
+            thread {
+                repeat(10_000) { histogram.record((t * 10_000 + it).toDouble()) }
+            }
+        }
+        threads.forEach(Thread::join)
+        assertEquals(40_000, histogram.count)
+        assertEquals(39_999.0, histogram.max, 0.0)
+    }
+
+    @Test
+    fun empty() {
+        val histogram = Histogram()
+        assertTrue(histogram.percentile(0.5).isNaN())
+        assertTrue(histogram.min.isNaN())
+        assertThrows(IllegalArgumentException::class.java) { histogram.record(-1.0) }
+    }
+}
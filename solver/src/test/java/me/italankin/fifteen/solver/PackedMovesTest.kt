@@ -0,0 +1,77 @@
+package me.italankin.fifteen.solver
+
+import me.italankin.fifteen.game.ClassicGame
+import me.italankin.fifteen.game.SnakeGame
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler
+import me.italankin.fifteen.solver.algorithm.astar.AStar
+import me.italankin.fifteen.solver.algorithm.idastar.InPlaceIDAStar
+import me.italankin.fifteen.solver.heuristics.LinearConflict
+import me.italankin.fifteen.solver.heuristics.ManhattanDistance
+import org.junit.Assert.*
+import org.junit.Test
+
+class PackedMovesTest {
+
+    @Test
+    fun encodeDecode() {
+        val scrambler = ShuffleScrambler(0)
+        val games = List(5) { ClassicGame(3, 3, it % 2 == 0, scrambler) } +
+                SnakeGame(4, 3, false, scrambler) +
+                ClassicGame(4, 4, false, scrambler)
+        for (game in games) {
+            val end = InPlaceIDAStar().run(Node.create(game, GameParameters(game), LinearConflict())).path
+            val path = end.path
+            val moves = PackedMoves.of(end)
+            assertEquals(end.moves, moves.size)
+            val expectedNumbers = path.drop(1).map(Node::lastMovedNumber)
+            assertEquals(expectedNumbers, moves.movedNumbers(path.first().state, game.width))
+            val expectedSymbols = path.drop(1).map { node ->
+                when (node.state.indexOf(node.lastMovedNumber()) - node.zeroIndex) {
+                    1 -> "R"
+                    -1 -> "L"
+                    game.width -> "D"
+                    else -> "U"
+                }
+            }
+            assertEquals(expectedSymbols, moves.symbols())
+            val endState = moves.replay(path.first().state, game.width) { _, _, _ -> }
+            assertArrayEquals(end.state, endState)
+        }
+    }
+
+    @Test
+    fun empty() {
+        val game = ClassicGame(3, 3, listOf(1, 2, 3, 4, 5, 6, 7, 8, 0))
+        val moves = PackedMoves.of(Node.create(game, GameParameters(game), ManhattanDistance()))
+        assertSame(PackedMoves.EMPTY, moves)
+        assertEquals(emptyList<Int>(), moves.movedNumbers(game.state.toIntArray(), game.width))
+    }
+
+    @Test
+    fun solution() {
+        val game = ClassicGame(4, 4, false, ShuffleScrambler(1))
+        val solution = Solver(LinearConflict(), InPlaceIDAStar()).solve(game)
+        val expected = AStar().run(Node.create(game, GameParameters(game), LinearConflict())).path
+        assertEquals(expected.moves, solution.moves)
+        assertEquals(game.state, solution.scramble)
+        assertEquals(solution.moves + 1, solution.path.size)
+        assertTrue(solution.end.isGoal)
+        assertEquals(solution.start.heuristicsValue, solution.startHeuristicsValue)
+        assertEquals(solution.path.drop(1).map(Node::lastMovedNumber), solution.solution)
+        assertEquals(solution.moves, solution.symbolicSolution.size)
+    }
+
+    @Test
+    fun solutionOfMovedGame() {
+        val game = ClassicGame(3, 3, false, ShuffleScrambler(2))
+        val scramble = game.state.toList()
+        val solution = Solver(ManhattanDistance(), InPlaceIDAStar()).solve(game)
+        for (number in solution.solution) {
+            game.move(game.state.indexOf(number))
+        }
+        assertNotEquals(scramble, game.state)
+        assertEquals(scramble, solution.start.state.asList())
+        assertEquals(solution.moves + 1, solution.path.size)
+        assertTrue(solution.end.isGoal)
+    }
+}
@@ -0,0 +1,154 @@
+package me.italankin.fifteen.solver
+
+import me.italankin.fifteen.game.ClassicGame
+import me.italankin.fifteen.game.SpiralGame
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler
+import me.italankin.fifteen.solver.algorithm.astar.AStar
+import me.italankin.fifteen.solver.algorithm.astar.HDAStar
+import me.italankin.fifteen.solver.algorithm.idastar.IDAStar
+import me.italankin.fifteen.solver.algorithm.idastar.InPlaceIDAStar
+import me.italankin.fifteen.solver.heuristics.Heuristics
+import me.italankin.fifteen.solver.heuristics.LinearConflict
+import me.italankin.fifteen.solver.heuristics.ManhattanDistance
+import org.junit.Assert.*
+import org.junit.Test
+import java.util.concurrent.atomic.AtomicInteger
+
+class PackedNodeTest {
+
+    @Test
+    fun children() {
+        val scrambler = ShuffleScrambler(0)
+        val games = listOf(
+            ClassicGame(4, 4, false, scrambler),
+            ClassicGame(4, 4, 9, scrambler),
+            SpiralGame(3, 4, 2, scrambler),
+        )
+        for (game in games) {
+            val params = GameParameters(game)
+            val node = Node(game, params, ManhattanDistance())
+            val packed = PackedNode(game, params, ManhattanDistance())
+            assertArrayEquals(node.state, packed.state)
+            assertEquals(node.heuristicsValue, packed.heuristicsValue)
+            val children = node.children().filterNotNull()
+            val packedChildren = packed.children().filterNotNull()
+            assertEquals(children.size, packedChildren.size)
+            for ((child, packedChild) in children.zip(packedChildren)) {
+                assertArrayEquals(child.state, packedChild.state)
+                assertEquals(child.zeroIndex, packedChild.zeroIndex)
+                assertEquals(child.heuristicsValue, packedChild.heuristicsValue)
+                assertEquals(child.lastMovedNumber(), packedChild.lastMovedNumber())
+                for (grandChild in packedChild.children().filterNotNull()) {
+                    assertNotEquals(packed, grandChild)
+                }
+            }
+        }
+    }
+
+    @Test
+    fun equalsAndHashCode() {
+        val game = ClassicGame(3, 3, listOf(1, 2, 3, 4, 5, 6, 7, 0, 8))
+        val params = GameParameters(game)
+        val node = PackedNode(game, params, ManhattanDistance())
+        val other = PackedNode(game, params, ManhattanDistance())
+        assertEquals(node, other)
+        assertEquals(node.hashCode(), other.hashCode())
+        // moving there and back again yields the same state
+        val roundTrip = node.children().filterNotNull()
+            .flatMap { it.children().filterNotNull().toList() + it.parent!! }
+            .filter { it == node }
+        assertFalse(roundTrip.isEmpty())
+        assertEquals(node.hashCode(), roundTrip.first().hashCode())
+        // equals is consistent with hashCode
+        val plain = Node(game, params, ManhattanDistance())
+        assertNotEquals(node, plain)
+        assertNotEquals(plain, node)
+    }
+
+    @Test
+    fun isGoal() {
+        val solved = ClassicGame(4, 4, listOf(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 0))
+        assertTrue(PackedNode(solved, GameParameters(solved), ManhattanDistance()).isGoal)
+        val almostSolved = ClassicGame(4, 4, listOf(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 0, 15))
+        val node = PackedNode(almostSolved, GameParameters(almostSolved), ManhattanDistance())
+        assertFalse(node.isGoal)
+        assertTrue(node.children().filterNotNull().any { it.isGoal })
+    }
+
+    @Test
+    fun solve() {
+        val scrambler = ShuffleScrambler(0)
+        val heuristics = LinearConflict()
+        repeat(10) {
+            val game = ClassicGame(3, 3, 1 + it % 9, scrambler)
+            val params = GameParameters(game)
+            for (algorithm in listOf(AStar(), IDAStar())) {
+                val expected = algorithm.run(Node(game, params, heuristics)).path
+                val actual = algorithm.run(PackedNode(game, params, heuristics)).path
+                assertTrue(actual.isGoal)
+                assertEquals(expected.moves, actual.moves)
+                assertArrayEquals(params.goal, actual.state)
+            }
+        }
+    }
+
+    @Test
+    fun searchDoesNotUnpack() {
+        val scrambler = ShuffleScrambler(0)
+        val heuristics = LinearConflict()
+        repeat(5) {
+            val game = ClassicGame(3, 3, false, scrambler)
+            val params = GameParameters(game)
+            // in-place search unpacks the start node once
+            val algorithms = listOf(AStar() to 0, HDAStar(2) to 0, IDAStar() to 0, InPlaceIDAStar() to 1)
+            for ((algorithm, expected) in algorithms) {
+                val unpacked = AtomicInteger()
+                val result = algorithm.run(CountingNode(game.state.toIntArray(), params, heuristics, unpacked))
+                assertTrue(result.path.isGoal)
+                assertEquals(algorithm.toString(), expected, unpacked.get())
+            }
+        }
+    }
+
+    /**
+     * Counts calls of [getState], which unpack the state
+     */
+    private class CountingNode : PackedNode {
+
+        private val unpacked: AtomicInteger
+
+        constructor(state: IntArray, params: GameParameters, heuristics: Heuristics, unpacked: AtomicInteger) :
+                super(state, params, heuristics) {
+            this.unpacked = unpacked
+        }
+
+        constructor(
+            packedState: Long,
+            moves: Int,
+            parent: CountingNode,
+            zeroIndex: Int,
+            heuristics: Heuristics,
+            params: GameParameters,
+            bound: Int
+        ) : super(packedState, moves, parent, zeroIndex, heuristics, params, bound) {
+            this.unpacked = parent.unpacked
+        }
+
+        override fun getState(): IntArray {
+            unpacked.incrementAndGet()
+            return super.getState()
+        }
+
+        override fun newChildNode(
+            packedState: Long,
+            moves: Int,
+            parent: PackedNode,
+            zeroIndex: Int,
+            heuristics: Heuristics,
+            gameParameters: GameParameters,
+            bound: Int
+        ): Node {
+            return CountingNode(packedState, moves, parent as CountingNode, zeroIndex, heuristics, gameParameters, bound)
+        }
+    }
+}
@@ -1,15 +1,29 @@
 package me.italankin.fifteen.solver
 
+import kotlinx.coroutines.flow.count
 import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeoutOrNull
+import me.italankin.fifteen.game.Game
 import me.italankin.fifteen.game.scrambler.ShuffleScrambler
+import me.italankin.fifteen.solver.algorithm.Limits
 import me.italankin.fifteen.solver.algorithm.astar.AStar
+import me.italankin.fifteen.solver.algorithm.astar.HDAStar
+import me.italankin.fifteen.solver.algorithm.idastar.IDAStar
+import me.italankin.fifteen.solver.generator.GameGenerator
 import me.italankin.fifteen.solver.generator.bounded
+import me.italankin.fifteen.solver.generator.freeze
 import me.italankin.fifteen.solver.generator.randomGames
 import me.italankin.fifteen.solver.generator.x
 import me.italankin.fifteen.solver.heuristics.ManhattanDistance
 import me.italankin.fifteen.solver.reporter.Reporter
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertThrows
+import org.junit.Assert.assertTrue
 import org.junit.Test
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.time.Duration.Companion.milliseconds
 
 class SessionTest {
 
@@ -28,4 +42,263 @@ class SessionTest {
         val solutions = session.execute()
         assertEquals(5, solutions.size)
     }
+
+    @Test
+    fun reporterThread(): Unit = runBlocking {
+        val collectorThread = Thread.currentThread()
+        val threads = HashSet<Thread>()
+        val started = ArrayList<Game>()
+        val solved = ArrayList<Game>()
+        val session = Session(
+            generator = randomGames()
+                .size(3 x 3)
+                .scrambler(ShuffleScrambler(0))
+                .generator()
+                .bounded(10),
+            solvers = listOf(Solver(ManhattanDistance(), AStar()), Solver(ManhattanDistance(), IDAStar())),
+            reporter = object : Reporter {
+                override fun onSessionSolveStarted(session: Session, game: Game) {
+                    threads.add(Thread.currentThread())
+                    started.add(game)
+                }
+
+                override fun onSessionSolutionFound(session: Session, solution: Solver.Solution) {
+                    threads.add(Thread.currentThread())
+                    // games are reported as started before their solutions
+                    assertTrue(started.any { it === solution.game })
+                    solved.add(solution.game)
+                }
+            },
+            concurrency = Session.Concurrency.Fixed(4)
+        )
+        session.execute()
+        assertEquals(setOf(collectorThread), threads)
+        assertEquals(10, started.size)
+        assertEquals(20, solved.size)
+    }
+
+    @Test
+    fun speedupOverAStar(): Unit = runBlocking {
+        val hdaStar = Solver(ManhattanDistance(), HDAStar(2))
+        val session = Session(
+            generator = randomGames()
+                .size(3 x 3)
+                .scrambler(ShuffleScrambler(0))
+                .generator()
+                .bounded(3),
+            solvers = listOf(
+                Solver(ManhattanDistance(), AStar()),
+                hdaStar,
+                Solver(ManhattanDistance(), IDAStar())
+            ),
+            reporter = Reporter.NoOp,
+            concurrency = Session.Concurrency.Fixed(1)
+        )
+        val stats = session.execute().stats()
+        assertEquals(2, stats.speedupOverAStar.size)
+        assertTrue(stats.speedupOverAStar.getValue(hdaStar) > 0f)
+    }
+
+    @Test
+    fun limitExceeded(): Unit = runBlocking {
+        val session = Session(
+            generator = randomGames()
+                .size(5 x 5)
+                .scrambler(ShuffleScrambler(0))
+                .generator()
+                .bounded(3),
+            solvers = listOf(Solver(ManhattanDistance(), AStar(), limits = Limits(maxExpansions = 1000))),
+            reporter = Reporter.NoOp,
+            concurrency = Session.Concurrency.Fixed(1)
+        )
+        val total = session.execute().stats().global.total
+        assertEquals(0, total.success)
+        assertEquals(3, total.error)
+        assertEquals(3, total.limitExceeded)
+    }
+
+    @Test
+    fun cancel(): Unit = runBlocking {
+        val session = Session(
+            generator = randomGames()
+                .size(5 x 5)
+                .scrambler(ShuffleScrambler(0))
+                .generator()
+                .bounded(1),
+            solvers = listOf(Solver(ManhattanDistance(), IDAStar())),
+            reporter = Reporter.NoOp,
+            concurrency = Session.Concurrency.Fixed(1)
+        )
+        val start = System.currentTimeMillis()
+        assertNull(withTimeoutOrNull(200) { session.execute() })
+        assertTrue(System.currentTimeMillis() - start < 10_000)
+    }
+
+    @Test
+    fun streaming(): Unit = runBlocking {
+        val session = Session(
+            generator = randomGames()
+                .size(3 x 3)
+                .scrambler(ShuffleScrambler(0))
+                .generator()
+                .bounded(10),
+            solvers = listOf(Solver(ManhattanDistance(), AStar()), Solver(ManhattanDistance(), IDAStar())),
+            reporter = Reporter.NoOp,
+            concurrency = Session.Concurrency.Fixed(2)
+        )
+        assertEquals(20, session.executeStreaming().count())
+        val stats = session.stats.results
+        assertEquals(20, stats.global.total.success)
+        assertEquals(2, stats.bySolver.size)
+        assertEquals(stats.bySolver.values.first().moves.avg, stats.bySolver.values.last().moves.avg)
+        // all games have the same board
+        assertEquals(1, session.stats.gameParametersCount)
+        assertEquals(19, session.stats.gameParametersHits)
+    }
+
+    @Test
+    fun lazyEnqueue(): Unit = runBlocking {
+        val pulled = AtomicInteger()
+        val games = randomGames().size(3 x 3).scrambler(ShuffleScrambler(0)).generator()
+        val generator = object : GameGenerator {
+            override fun iterator(): Iterator<Game> {
+                val iterator = games.iterator()
+                return object : Iterator<Game> {
+                    override fun hasNext(): Boolean = true
+                    override fun next(): Game = iterator.next().also { pulled.incrementAndGet() }
+                }
+            }
+
+            override fun toString(): String = "Counting"
+        }
+        val results = AtomicInteger()
+        val session = Session(
+            generator = generator,
+            solvers = listOf(Solver(ManhattanDistance(), AStar())),
+            reporter = Reporter.NoOp,
+            concurrency = Session.Concurrency.Fixed(2),
+            stopCondition = object : StopCondition {
+                override fun onResult(result: Result<Solver.Solution>) {
+                    results.incrementAndGet()
+                }
+
+                override fun shouldStop(): Boolean = results.get() >= 10
+            },
+            prefetch = 2
+        )
+        assertEquals(Session.UNKNOWN_COUNT, session.stats.totalCount)
+        val count = session.executeStreaming().count()
+        assertEquals(count, session.stats.results.global.total.success)
+        assertTrue(count >= 10)
+        // games in progress, prefetched and not yet reported are solved after the stop condition is met
+        assertTrue("pulled=${pulled.get()}", pulled.get() <= 10 + 2 * 2 + 2 * 2 + 2)
+    }
+
+    @Test
+    fun timeBudget(): Unit = runBlocking {
+        val session = Session(
+            generator = randomGames().size(3 x 3).scrambler(ShuffleScrambler(0)).generator(),
+            solvers = listOf(Solver(ManhattanDistance(), AStar())),
+            reporter = Reporter.NoOp,
+            concurrency = Session.Concurrency.Fixed(1),
+            stopCondition = StopCondition.TimeBudget(300.milliseconds)
+        )
+        val start = System.currentTimeMillis()
+        assertTrue(session.executeStreaming().count() > 0)
+        assertTrue(System.currentTimeMillis() - start < 10_000)
+    }
+
+    @Test
+    fun unboundedWithoutStopCondition() {
+        assertThrows(IllegalArgumentException::class.java) {
+            Session(
+                generator = randomGames().size(3 x 3).scrambler(ShuffleScrambler(0)).generator(),
+                solvers = listOf(Solver(ManhattanDistance(), AStar())),
+                reporter = Reporter.NoOp
+            )
+        }
+    }
+
+    @Test
+    fun confidenceInterval(): Unit = runBlocking {
+        val session = Session(
+            generator = randomGames().size(3 x 3).scrambler(ShuffleScrambler(0)).generator(),
+            solvers = listOf(Solver(ManhattanDistance(), AStar()), Solver(ManhattanDistance(), IDAStar())),
+            reporter = Reporter.NoOp,
+            concurrency = Session.Concurrency.Fixed(1),
+            stopCondition = StopCondition.ConfidenceInterval(relativeError = 0.5, minSamples = 5)
+                    or StopCondition.TimeBudget(60_000.milliseconds)
+        )
+        val stats = session.execute().stats()
+        for (solverStats in stats.bySolver.values) {
+            assertTrue(solverStats.total.success >= 5)
+        }
+    }
+
+    @Test
+    fun confidenceIntervalOfAllSolvers() {
+        val solvers = listOf(Solver(ManhattanDistance(), AStar()), Solver(ManhattanDistance(), IDAStar()))
+        val session = Session(
+            generator = randomGames().size(3 x 3).scrambler(ShuffleScrambler(0)).bounded(1),
+            solvers = solvers,
+            reporter = Reporter.NoOp
+        )
+        val condition = StopCondition.ConfidenceInterval(relativeError = 0.5, minSamples = 5)
+        condition.onStarted(session)
+        val solution = solvers[0].solve(session.generator.first())
+        repeat(10) { condition.onResult(Result.success(solution)) }
+        // the second solver has no samples yet
+        assertFalse(condition.shouldStop())
+        val otherSolution = solvers[1].solve(session.generator.first())
+        repeat(10) { condition.onResult(Result.success(otherSolution)) }
+        assertTrue(condition.shouldStop())
+    }
+
+    @Test
+    fun warmup(): Unit = runBlocking {
+        val found = AtomicInteger()
+        val session = Session(
+            generator = randomGames().size(3 x 3).scrambler(ShuffleScrambler(0)).bounded(3).freeze(),
+            solvers = listOf(Solver(ManhattanDistance(), AStar()), Solver(ManhattanDistance(), IDAStar())),
+            reporter = object : Reporter {
+                override fun onSessionSolutionFound(session: Session, solution: Solver.Solution) {
+                    found.incrementAndGet()
+                }
+            },
+            concurrency = Session.Concurrency.Fixed(2),
+            warmup = Warmup.Solves(5)
+        )
+        session.execute()
+        // bounded generator is cycled for warmup
+        assertEquals(2 * 5, session.stats.warmupSolves)
+        assertEquals(6, found.get())
+        assertEquals(6, session.stats.results.global.total.success)
+        assertEquals(5, session.stats.gameParametersHits)
+    }
+
+    @Test
+    fun timedWarmup(): Unit = runBlocking {
+        val session = Session(
+            generator = randomGames().size(3 x 3).scrambler(ShuffleScrambler(0)).bounded(1),
+            solvers = listOf(Solver(ManhattanDistance(), AStar())),
+            reporter = Reporter.NoOp,
+            concurrency = Session.Concurrency.Fixed(1),
+            warmup = Warmup.Timed(200.milliseconds, games = randomGames().size(3 x 3).bounded(1))
+        )
+        assertEquals(1, session.executeStreaming().count())
+        assertTrue(session.stats.warmupSolves > 0)
+        assertTrue(session.stats.warmupTimeMs >= 200)
+    }
+
+    @Test
+    fun warmupGames() {
+        val generator = randomGames().size(3 x 3).scrambler(ShuffleScrambler(0)).bounded(3)
+        val solvers = listOf(Solver(ManhattanDistance(), AStar()))
+        // warmup would take games from the shared scrambler
+        assertThrows(IllegalArgumentException::class.java) {
+            Session(generator, solvers, warmup = Warmup.Solves(5))
+        }
+        Session(generator, solvers, warmup = Warmup.Solves(5, games = randomGames().size(3 x 3).bounded(1)))
+        Session(generator.freeze(), solvers, warmup = Warmup.Solves(5))
+    }
 }
@@ -0,0 +1,44 @@
+package me.italankin.fifteen.solver
+
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeoutOrNull
+import me.italankin.fifteen.game.ClassicGame
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler
+import me.italankin.fifteen.solver.algorithm.astar.AStar
+import me.italankin.fifteen.solver.algorithm.idastar.IDAStar
+import me.italankin.fifteen.solver.heuristics.ManhattanDistance
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertThrows
+import org.junit.Test
+
+class SolversPoolTest {
+
+    @Test
+    fun queueState(): Unit = runBlocking {
+        val pool = SolversPool(listOf(Solver(ManhattanDistance(), AStar())), GameParametersRegistry())
+        val solves = pool.enqueue(ClassicGame(3, 3, false, ShuffleScrambler(0)))
+        assertEquals(QueueState(1, 0, 0), pool.queueState().first())
+        solves.single().collect {}
+        assertEquals(QueueState(0, 0, 1), pool.queueState().first())
+    }
+
+    @Test
+    fun failedEmit(): Unit = runBlocking {
+        val pool = SolversPool(listOf(Solver(ManhattanDistance(), AStar())), GameParametersRegistry())
+        val solves = pool.enqueue(ClassicGame(3, 3, false, ShuffleScrambler(0)))
+        assertThrows(IllegalStateException::class.java) {
+            runBlocking { solves.single().collect { throw IllegalStateException() } }
+        }
+        assertEquals(QueueState(0, 0, 1), pool.queueState().first())
+    }
+
+    @Test
+    fun cancelledSolve(): Unit = runBlocking {
+        val pool = SolversPool(listOf(Solver(ManhattanDistance(), IDAStar())), GameParametersRegistry())
+        val solves = pool.enqueue(ClassicGame(5, 5, false, ShuffleScrambler(0)))
+        assertNull(withTimeoutOrNull(200) { solves.single().collect {} })
+        assertEquals(QueueState(0, 0, 1), pool.queueState().first())
+    }
+}
@@ -0,0 +1,175 @@
+package me.italankin.fifteen.solver
+
+import me.italankin.fifteen.game.ClassicGame
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler
+import me.italankin.fifteen.solver.algorithm.Limits
+import me.italankin.fifteen.solver.algorithm.astar.AStar
+import me.italankin.fifteen.solver.algorithm.idastar.IDAStar
+import me.italankin.fifteen.solver.heuristics.LinearConflict
+import me.italankin.fifteen.solver.heuristics.ManhattanDistance
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicReference
+import kotlin.concurrent.thread
+import kotlin.math.ceil
+import kotlin.math.sqrt
+
+class StatsAccumulatorTest {
+
+    @Test
+    fun stats() {
+        val solver = Solver(ManhattanDistance(), AStar())
+        val scrambler = ShuffleScrambler(0)
+        val solutions = List(20) { solver.solve(ClassicGame(3, 3, false, scrambler)) }
+        val accumulator = StatsAccumulator()
+        solutions.forEach { accumulator.add(Result.success(it)) }
+        val stats = accumulator.stats().global
+
+        assertEquals(20, accumulator.count)
+        assertEquals(20, stats.total.success)
+        assertEquals(solutions.sumOf { it.nodesExplored }, stats.total.nodesExplored.toLong())
+        assertEquals(solutions.minOf { it.moves }.toLong(), stats.moves.min)
+        assertEquals(solutions.maxOf { it.moves }.toLong(), stats.moves.max)
+        val avg = solutions.sumOf { it.moves } / 20f
+        assertEquals(avg, stats.moves.avg, 1e-4f)
+        val stddev = sqrt(solutions.sumOf { ((it.moves - avg) * (it.moves - avg)).toDouble() } / 19).toFloat()
+        assertEquals(stddev, stats.moves.stddev, 1e-4f)
+        val sortedMoves = solutions.map { it.moves }.sorted()
+        assertEquals(sortedMoves[ceil(19 * 0.95).toInt()], stats.moves.p95)
+        assertEquals(sortedMoves[ceil(19 * 0.5).toInt()], stats.moves.p50)
+        val sortedTimes = solutions.map { it.time }.sorted()
+        assertEquals(sortedTimes[ceil(19 * 0.5).toInt()], stats.time.p50.rawValue, sortedTimes[10] / 128)
+        assertEquals(sortedTimes.last(), stats.time.p999.rawValue, 1e-3f)
+        assertEquals(sortedTimes.first(), stats.time.min.rawValue, 1e-3f)
+        assertEquals(20, stats.histograms.time.count)
+    }
+
+    @Test
+    fun resources() {
+        val solver = Solver(ManhattanDistance(), AStar())
+        val scrambler = ShuffleScrambler(0)
+        val solutions = List(5) { solver.solve(ClassicGame(3, 3, false, scrambler)) }
+        val accumulator = StatsAccumulator()
+        solutions.forEach { accumulator.add(Result.success(it)) }
+        val resources = accumulator.stats().global.resources
+
+        // HotSpot supports both metrics
+        assertTrue(solutions.all { it.cpuTime >= 0 && it.allocatedBytes > 0 })
+        assertEquals(solutions.sumOf { it.allocatedBytes }, resources.allocatedBytes)
+        assertEquals(solutions.sumOf { it.allocatedBytes } / 5, resources.avgAllocatedBytes)
+        assertEquals(solutions.sumOf { it.cpuTime.toDouble() }.toFloat(), resources.cpuTime.rawValue, 1e-3f)
+    }
+
+    @Test
+    fun errors() {
+        val solver = Solver(ManhattanDistance(), AStar(), limits = Limits(maxExpansions = 1))
+        val game = ClassicGame(5, 5, false, ShuffleScrambler(0))
+        val error = runCatching { solver.solve(game) }.exceptionOrNull()!!
+        val accumulator = StatsAccumulator()
+        accumulator.add(Result.failure(SolveException(game, solver, error)))
+        val stats = accumulator.stats()
+        assertEquals(1, stats.global.total.error)
+        assertEquals(1, stats.global.total.limitExceeded)
+        assertEquals(0, stats.global.total.success)
+        assertTrue(stats.global.time.avg.rawValue.isNaN())
+        assertEquals(setOf(solver), stats.bySolver.keys)
+    }
+
+    @Test
+    fun speedupOverAStar() {
+        val aStar = Solver(ManhattanDistance(), AStar())
+        val idaStar = Solver(ManhattanDistance(), IDAStar())
+        val scrambler = ShuffleScrambler(0)
+        val games = List(4) { ClassicGame(3, 3, false, scrambler) }
+        val accumulator = StatsAccumulator(solversPerGame = 2)
+        var aStarTime = 0.0
+        var idaStarTime = 0.0
+        for ((i, game) in games.withIndex()) {
+            val solution = idaStar.solve(game)
+            accumulator.add(Result.success(solution))
+            if (i == 0) {
+                // games, which were not solved by the baseline, are not compared
+                accumulator.add(Result.failure(SolveException(game, aStar, RuntimeException())))
+            } else {
+                val baseline = aStar.solve(game)
+                accumulator.add(Result.success(baseline))
+                aStarTime += baseline.time
+                idaStarTime += solution.time
+            }
+        }
+        val speedup = accumulator.stats().speedupOverAStar
+        assertEquals(setOf(idaStar), speedup.keys)
+        assertEquals((aStarTime / idaStarTime).toFloat(), speedup.getValue(idaStar), 1e-3f)
+    }
+
+    @Test
+    fun ambiguousSpeedupOverAStar() {
+        val solvers = listOf(
+            Solver(ManhattanDistance(), AStar()),
+            Solver(ManhattanDistance(), AStar(compareBy<Node> { it.heuristicsValue + it.moves })),
+            Solver(ManhattanDistance(), IDAStar())
+        )
+        val game = ClassicGame(3, 3, false, ShuffleScrambler(0))
+        val accumulator = StatsAccumulator(solversPerGame = solvers.size)
+        solvers.forEach { accumulator.add(Result.success(it.solve(game))) }
+        assertTrue(accumulator.stats().speedupOverAStar.isEmpty())
+    }
+
+    @Test
+    fun aStarSubclassSpeedup() {
+        val aStar = Solver(ManhattanDistance(), object : AStar() {})
+        val idaStar = Solver(ManhattanDistance(), IDAStar())
+        val game = ClassicGame(3, 3, false, ShuffleScrambler(0))
+        val accumulator = StatsAccumulator(solversPerGame = 2)
+        accumulator.add(Result.success(aStar.solve(game)))
+        accumulator.add(Result.success(idaStar.solve(game)))
+        assertEquals(setOf(idaStar), accumulator.stats().speedupOverAStar.keys)
+    }
+
+    @Test
+    fun explicitBaseline() {
+        // different heuristics, compared with the explicit baseline only
+        val baseline = Solver(ManhattanDistance(), AStar())
+        val solvers = listOf(baseline, Solver(LinearConflict(), IDAStar()), Solver(LinearConflict(), AStar()))
+        val game = ClassicGame(3, 3, false, ShuffleScrambler(0))
+        val accumulator = StatsAccumulator(solversPerGame = solvers.size, baseline = baseline)
+        solvers.forEach { accumulator.add(Result.success(it.solve(game))) }
+        assertEquals(solvers.drop(1).toSet(), accumulator.stats().speedupOverAStar.keys)
+    }
+
+    @Test
+    fun concurrentStats() {
+        val game = ClassicGame(3, 3, false, ShuffleScrambler(0))
+        repeat(50) {
+            val accumulator = StatsAccumulator()
+            val done = AtomicBoolean()
+            val adders = List(4) {
+                thread {
+                    repeat(25) {
+                        // a new solver for every result
+                        val solver = Solver(ManhattanDistance(), AStar())
+                        accumulator.add(Result.failure(SolveException(game, solver, RuntimeException())))
+                    }
+                }
+            }
+            val error = AtomicReference<Throwable>()
+            val reader = thread {
+                try {
+                    while (!done.get()) {
+                        accumulator.stats()
+                    }
+                } catch (e: Throwable) {
+                    error.set(e)
+                }
+            }
+            adders.forEach(Thread::join)
+            done.set(true)
+            reader.join()
+            assertNull(error.get())
+            assertEquals(100, accumulator.stats().bySolver.size)
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package me.italankin.fifteen.solver.algorithm
+
+import me.italankin.fifteen.game.ClassicGame
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler
+import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.Node
+import me.italankin.fifteen.solver.algorithm.astar.AStar
+import me.italankin.fifteen.solver.algorithm.astar.HDAStar
+import me.italankin.fifteen.solver.algorithm.idastar.IDAStar
+import me.italankin.fifteen.solver.algorithm.idastar.InPlaceIDAStar
+import me.italankin.fifteen.solver.algorithm.idastar.ParallelIDAStar
+import me.italankin.fifteen.solver.heuristics.ManhattanDistance
+import org.junit.Assert.*
+import org.junit.Test
+
+class LimitsTest {
+
+    private val algorithms = listOf(AStar(), HDAStar(2), IDAStar(), InPlaceIDAStar(), ParallelIDAStar(2))
+
+    @Test
+    fun maxExpansions() {
+        for (algorithm in algorithms) {
+            val budget = Limits(maxExpansions = 10_000).start()
+            val e = assertThrows(LimitExceededException::class.java) { algorithm.run(hardGame(), budget) }
+            assertEquals("$algorithm", LimitExceededException.Reason.EXPANSIONS, e.reason)
+            assertTrue(budget.isExceeded)
+        }
+    }
+
+    @Test
+    fun timeout() {
+        for (algorithm in algorithms) {
+            val budget = Limits(timeoutMs = 50).start()
+            val e = assertThrows(LimitExceededException::class.java) { algorithm.run(hardGame(), budget) }
+            assertEquals("$algorithm", LimitExceededException.Reason.TIME, e.reason)
+        }
+    }
+
+    @Test
+    fun maxOpenListSize() {
+        val budget = Limits(maxOpenListSize = 1000).start()
+        val e = assertThrows(LimitExceededException::class.java) { AStar().run(hardGame(), budget) }
+        assertEquals(LimitExceededException.Reason.OPEN_LIST_SIZE, e.reason)
+    }
+
+    @Test
+    fun cancel() {
+        for (algorithm in algorithms) {
+            val budget = Limits().start()
+            budget.cancel()
+            val e = assertThrows(LimitExceededException::class.java) { algorithm.run(hardGame(), budget) }
+            assertEquals("$algorithm", LimitExceededException.Reason.CANCELLED, e.reason)
+        }
+    }
+
+    @Test
+    fun withinLimits() {
+        val game = ClassicGame(3, 3, false, ShuffleScrambler(0))
+        val params = GameParameters(game)
+        for (algorithm in algorithms) {
+            val budget = Limits(timeoutMs = 60_000, maxExpansions = 1_000_000).start()
+            val result = algorithm.run(Node.create(game, params, ManhattanDistance()), budget)
+            assertTrue(result.path.isGoal)
+            assertFalse(budget.isExceeded)
+        }
+    }
+
+    @Test
+    fun unlimitedCannotBeCancelled() {
+        Budget.UNLIMITED.cancel()
+        assertFalse(Budget.UNLIMITED.isExceeded)
+        Budget.UNLIMITED.checkpoint(Long.MAX_VALUE, Long.MAX_VALUE)
+    }
+
+    @Test
+    fun invalidLimits() {
+        assertThrows(IllegalArgumentException::class.java) { Limits(timeoutMs = 0) }
+        assertThrows(IllegalArgumentException::class.java) { Limits(maxExpansions = -1) }
+        assertThrows(IllegalArgumentException::class.java) { Limits(maxOpenListSize = 0) }
+    }
+
+    private fun hardGame(): Node {
+        val game = ClassicGame(5, 5, false, ShuffleScrambler(0))
+        return Node.create(game, GameParameters(game), ManhattanDistance())
+    }
+}
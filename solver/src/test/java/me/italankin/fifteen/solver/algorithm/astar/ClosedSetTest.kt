@@ -0,0 +1,146 @@
+package me.italankin.fifteen.solver.algorithm.astar
+
+import me.italankin.fifteen.game.ClassicGame
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler
+import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.Node
+import me.italankin.fifteen.solver.PackedNode
+import me.italankin.fifteen.solver.heuristics.ManhattanDistance
+import org.junit.Assert.*
+import org.junit.Test
+
+class ClosedSetTest {
+
+    @Test
+    fun packed() {
+        val game = ClassicGame(4, 4, false, ShuffleScrambler(0))
+        val start = PackedNode(game, GameParameters(game), ManhattanDistance())
+        val closedSet = ClosedSet.create(start)
+        assertTrue(closedSet is LongClosedSet)
+        testClosedSet(closedSet, start)
+    }
+
+    @Test
+    fun wide() {
+        val scrambler = ShuffleScrambler(0)
+        for (game in listOf(ClassicGame(5, 5, false, scrambler), ClassicGame(5, 4, 7, scrambler))) {
+            val start = Node(game, GameParameters(game), ManhattanDistance())
+            val closedSet = ClosedSet.create(start)
+            assertTrue(closedSet is WideClosedSet)
+            testClosedSet(closedSet, start)
+            assertEquals(16L * closedSet.stats().capacity + 16, closedSet.stats().memoryBytes)
+        }
+    }
+
+    @Test
+    fun state() {
+        val game = ClassicGame(6, 6, false, ShuffleScrambler(0))
+        val start = Node(game, GameParameters(game), ManhattanDistance())
+        val closedSet = ClosedSet.create(start)
+        assertTrue(closedSet is StateClosedSet)
+        testClosedSet(closedSet, start)
+    }
+
+    @Test
+    fun zeroKey() {
+        val closedSet = LongClosedSet(2, false)
+        assertFalse(closedSet.contains(0L))
+        assertTrue(closedSet.add(0L))
+        assertFalse(closedSet.add(0L))
+        assertTrue(closedSet.contains(0L))
+        assertEquals(1, closedSet.size())
+    }
+
+    @Test
+    fun costs() {
+        val scrambler = ShuffleScrambler(0)
+        for (game in listOf(ClassicGame(4, 4, false, scrambler), ClassicGame(5, 5, false, scrambler), ClassicGame(6, 6, false, scrambler))) {
+            val start = Node.create(game, GameParameters(game), ManhattanDistance())
+            val closedSet = ClosedSet.withCosts(start)
+            assertEquals(-1, closedSet.cost(start))
+            assertTrue(closedSet.addIfCheaper(start))
+            assertEquals(0, closedSet.cost(start))
+            val longer = cycle(start)
+            assertEquals(12, longer.moves)
+            assertFalse(closedSet.addIfCheaper(longer))
+            assertEquals(0, closedSet.cost(longer))
+            val cheaper = ClosedSet.withCosts(start)
+            assertTrue(cheaper.addIfCheaper(longer))
+            assertTrue(cheaper.addIfCheaper(start))
+            assertEquals(0, cheaper.cost(longer))
+            assertEquals(1, cheaper.size())
+            // costs are kept after resizes
+            val positions = LinkedHashSet<Node>()
+            var frontier = listOf(start)
+            while (positions.size < 5_000) {
+                frontier = frontier.flatMap { it.children().filterNotNull() }.filter { it != start && positions.add(it) }
+            }
+            for (node in positions) {
+                assertTrue(closedSet.addIfCheaper(node))
+            }
+            assertTrue(closedSet.stats().resizes > 0)
+            for (node in positions) {
+                assertEquals(node.moves, closedSet.cost(node))
+            }
+            assertEquals(0, closedSet.cost(start))
+            assertEquals(positions.size + 1, closedSet.size())
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException::class)
+    fun noCosts() {
+        val game = ClassicGame(3, 3, false, ShuffleScrambler(0))
+        ClosedSet.create(Node.create(game, GameParameters(game), ManhattanDistance())).cost(Node(game, ManhattanDistance()))
+    }
+
+    @Test
+    fun result() {
+        val game = ClassicGame(3, 3, false, ShuffleScrambler(0))
+        val result = AStar().run(Node.create(game, GameParameters(game), ManhattanDistance()))
+        val stats = result.closedSet!!
+        assertEquals(result.nodesExplored, stats.size.toLong())
+        assertTrue(stats.load > 0f && stats.load <= 1f)
+        assertTrue(stats.memoryBytes >= 8L * stats.capacity)
+    }
+
+    /**
+     * @return node with the same position as [node], reached by rotating tiles of a 2x2 square around the blank
+     */
+    private fun cycle(node: Node): Node {
+        val params = node.gameParameters
+        val zero = node.zeroIndex
+        val dc = if (params.columns[zero] < params.width - 1) 1 else -1
+        val dr = if (params.rows[zero] < params.height - 1) params.width else -params.width
+        val square = intArrayOf(zero + dc, zero + dc + dr, zero + dr, zero)
+        var result = node
+        repeat(3) {
+            for (index in square) {
+                result = result.children().first { it != null && it.zeroIndex == index }!!
+            }
+        }
+        return result
+    }
+
+    private fun testClosedSet(closedSet: ClosedSet, start: Node) {
+        // collect distinct positions by breadth-first search
+        val positions = LinkedHashSet<Node>()
+        var frontier = listOf(start)
+        while (positions.size < 20_000) {
+            frontier = frontier.flatMap { it.children().filterNotNull() }.filter { positions.add(it) }
+        }
+        for (node in positions) {
+            assertFalse(closedSet.contains(node))
+            assertTrue(closedSet.add(node))
+            assertTrue(closedSet.contains(node))
+        }
+        for (node in positions) {
+            assertFalse(closedSet.add(node))
+            assertTrue(closedSet.contains(node))
+        }
+        assertEquals(positions.size, closedSet.size())
+        val stats = closedSet.stats()
+        assertEquals(positions.size, stats.size)
+        assertTrue(stats.resizes > 0)
+        assertTrue(stats.load <= 0.7f)
+    }
+}
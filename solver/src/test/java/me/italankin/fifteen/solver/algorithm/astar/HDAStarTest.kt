@@ -0,0 +1,63 @@
+package me.italankin.fifteen.solver.algorithm.astar
+
+import me.italankin.fifteen.game.ClassicGame
+import me.italankin.fifteen.game.SpiralGame
+import me.italankin.fifteen.game.scrambler.RandomMovesScrambler
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler
+import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.Node
+import me.italankin.fifteen.solver.heuristics.LinearConflict
+import me.italankin.fifteen.solver.heuristics.ManhattanDistance
+import org.junit.Assert.*
+import org.junit.Test
+import kotlin.random.Random
+
+class HDAStarTest {
+
+    @Test
+    fun workerMetrics() {
+        val game = ClassicGame(4, 4, false, RandomMovesScrambler(40, false, Random(0)))
+        val result = HDAStar(2).run(Node.create(game, GameParameters(game), LinearConflict()))
+        // metrics are supported by HotSpot
+        assertTrue(result.workerCpuTime > 0)
+        assertTrue(result.workerAllocatedBytes > 0)
+    }
+
+    @Test
+    fun optimal() {
+        val scrambler = ShuffleScrambler(0)
+        val games = List(10) { ClassicGame(3, 3, it % 2 == 0, scrambler) } +
+                SpiralGame(3, 4, false, scrambler) +
+                List(3) { ClassicGame(4, 4, false, RandomMovesScrambler(40, false, Random(it))) }
+        for (game in games) {
+            val params = GameParameters(game)
+            val expected = AStar().run(Node.create(game, params, LinearConflict())).path
+            for (numThreads in listOf(1, 2, 4)) {
+                val result = HDAStar(numThreads).run(Node.create(game, params, LinearConflict()))
+                assertTrue(result.path.isGoal)
+                assertEquals(expected.moves, result.path.moves)
+                assertEquals(numThreads, result.nodesExploredPerWorker!!.size)
+                assertEquals(result.nodesExplored, result.nodesExploredPerWorker!!.sum())
+            }
+        }
+    }
+
+    @Test
+    fun priorityQueue() {
+        val scrambler = ShuffleScrambler(1)
+        repeat(5) {
+            val game = ClassicGame(3, 3, false, scrambler)
+            val params = GameParameters(game)
+            val expected = AStar().run(Node.create(game, params, ManhattanDistance())).path
+            val algorithm = HDAStar(3, OpenList.priorityQueue(AStar.DefaultNodeComparator()))
+            assertEquals(expected.moves, algorithm.run(Node.create(game, params, ManhattanDistance())).path.moves)
+        }
+    }
+
+    @Test
+    fun solved() {
+        val game = ClassicGame(3, 3, listOf(1, 2, 3, 4, 5, 6, 7, 8, 0))
+        val start = Node.create(game, GameParameters(game), ManhattanDistance())
+        assertSame(start, HDAStar(2).run(start).path)
+    }
+}
@@ -0,0 +1,82 @@
+package me.italankin.fifteen.solver.algorithm.astar
+
+import me.italankin.fifteen.game.ClassicGame
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler
+import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.Node
+import me.italankin.fifteen.solver.heuristics.LinearConflict
+import me.italankin.fifteen.solver.heuristics.ManhattanDistance
+import org.junit.Assert.*
+import org.junit.Test
+
+class OpenListTest {
+
+    @Test
+    fun bucketsOrder() {
+        val game = ClassicGame(4, 4, false, ShuffleScrambler(0))
+        val start = Node.create(game, GameParameters(game), ManhattanDistance())
+        val nodes = ArrayList<Node>()
+        var frontier = listOf(start)
+        repeat(6) {
+            frontier = frontier.flatMap { it.children().filterNotNull() }
+            nodes += frontier
+        }
+        nodes.shuffle(kotlin.random.Random(0))
+
+        val openList = OpenList.buckets().create(start)
+        nodes.forEach(openList::add)
+        assertEquals(nodes.size, openList.size())
+        var prev: Node? = null
+        while (!openList.isEmpty()) {
+            val node = openList.poll()!!
+            if (prev != null) {
+                val prevF = prev.moves + prev.heuristicsValue
+                val f = node.moves + node.heuristicsValue
+                assertTrue(prevF <= f)
+                if (prevF == f) {
+                    // deeper nodes first
+                    assertTrue(prev.moves >= node.moves)
+                }
+            }
+            prev = node
+        }
+        assertNull(openList.poll())
+        assertEquals(0, openList.size())
+    }
+
+    @Test
+    fun bucketsLowerF() {
+        val game = ClassicGame(3, 3, false, ShuffleScrambler(0))
+        val start = Node.create(game, GameParameters(game), ManhattanDistance())
+        val openList = OpenList.buckets().create(start)
+        val children = start.children().filterNotNull().sortedByDescending { it.moves + it.heuristicsValue }
+        for (child in children) {
+            openList.add(child)
+            // adding a node with lower f must make it the next one
+            assertSame(child, openList.poll())
+            openList.add(child)
+        }
+    }
+
+    @Test
+    fun sameSolutions() {
+        val scrambler = ShuffleScrambler(0)
+        val heuristics = LinearConflict()
+        repeat(20) {
+            val game = ClassicGame(3, 3, false, scrambler)
+            val params = GameParameters(game)
+            val expected = AStar(AStar.DefaultNodeComparator()).run(Node.create(game, params, heuristics))
+            val actual = AStar().run(Node.create(game, params, heuristics))
+            assertEquals(expected.path.moves, actual.path.moves)
+            assertTrue(actual.path.isGoal)
+        }
+    }
+
+    @Test
+    fun names() {
+        // the default configuration keeps its former name
+        assertEquals("A*(Default)", AStar().toString())
+        assertEquals("A*(Buckets)", AStar(OpenList.buckets()).toString())
+        assertEquals("A*(Default)", AStar(AStar.DefaultNodeComparator()).toString())
+    }
+}
@@ -0,0 +1,70 @@
+package me.italankin.fifteen.solver.algorithm.idastar
+
+import me.italankin.fifteen.game.BaseGame
+import me.italankin.fifteen.game.ClassicGame
+import me.italankin.fifteen.game.SnakeGame
+import me.italankin.fifteen.game.scrambler.RandomMovesScrambler
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler
+import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.Node
+import me.italankin.fifteen.solver.heuristics.LinearConflict
+import me.italankin.fifteen.solver.heuristics.ManhattanDistance
+import me.italankin.fifteen.solver.heuristics.HammingDistance
+import me.italankin.fifteen.solver.heuristics.div
+import me.italankin.fifteen.solver.heuristics.max
+import me.italankin.fifteen.solver.heuristics.plus
+import org.junit.Assert.*
+import org.junit.Test
+import kotlin.random.Random
+
+class InPlaceIDAStarTest {
+
+    @Test
+    fun sameMovesAsIDAStar() {
+        val scrambler = ShuffleScrambler(0)
+        val games = List(10) { ClassicGame(3, 3, it % 2 == 0, scrambler) } +
+                ClassicGame(4, 4, 7, RandomMovesScrambler(40, false, Random(0))) +
+                SnakeGame(3, 4, false, scrambler)
+        for (game in games) {
+            for (heuristics in listOf(
+                ManhattanDistance(),
+                LinearConflict(),
+                ManhattanDistance() / 2 + LinearConflict() / 2,
+                max(HammingDistance(), ManhattanDistance(), LinearConflict())
+            )) {
+                val params = GameParameters(game)
+                val expected = IDAStar().run(Node.create(game, params, heuristics)).path
+                val actual = InPlaceIDAStar().run(Node.create(game, params, heuristics))
+                assertTrue(actual.path.isGoal)
+                assertEquals(expected.moves, actual.path.moves)
+                assertTrue(actual.nodesExplored > 0)
+                // path must consist of valid moves
+                var node: Node? = actual.path
+                while (node?.parent != null) {
+                    assertTrue(node.parent!!.children().contains(node))
+                    node = node.parent
+                }
+            }
+        }
+    }
+
+    @Test
+    fun solved() {
+        val game = ClassicGame(3, 3, listOf(1, 2, 3, 4, 5, 6, 7, 8, 0))
+        val start = Node.create(game, GameParameters(game), ManhattanDistance())
+        val result = InPlaceIDAStar().run(start)
+        assertSame(start, result.path)
+        assertEquals(1, result.nodesExplored)
+    }
+
+    @Test
+    fun noSolution() {
+        val params = GameParameters(BaseGame(3, 1, listOf(1, 2, 0), listOf(1, 2, 0)))
+        for (algorithm in listOf(InPlaceIDAStar(), IDAStar(), ParallelIDAStar(2))) {
+            // tiles in a single row can't pass each other, games reject such states, but nodes don't
+            assertThrows(IllegalStateException::class.java) {
+                algorithm.run(Node.create(intArrayOf(2, 1, 0), params, ManhattanDistance()))
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package me.italankin.fifteen.solver.algorithm.idastar
+
+import me.italankin.fifteen.game.ClassicGame
+import me.italankin.fifteen.game.scrambler.RandomMovesScrambler
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler
+import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.Node
+import me.italankin.fifteen.solver.heuristics.LinearConflict
+import me.italankin.fifteen.solver.heuristics.ManhattanDistance
+import org.junit.Assert.*
+import org.junit.Test
+import kotlin.random.Random
+
+class ParallelIDAStarTest {
+
+    @Test
+    fun workerMetrics() {
+        val game = ClassicGame(4, 4, false, RandomMovesScrambler(40, false, Random(0)))
+        val result = ParallelIDAStar(2).run(Node.create(game, GameParameters(game), LinearConflict()))
+        // metrics are supported by HotSpot
+        assertTrue(result.workerCpuTime > 0)
+        assertTrue(result.workerAllocatedBytes > 0)
+    }
+
+    @Test
+    fun optimal() {
+        val scrambler = ShuffleScrambler(0)
+        val games = List(10) { ClassicGame(3, 3, it % 2 == 0, scrambler) } +
+                List(3) { ClassicGame(4, 4, false, RandomMovesScrambler(30 + it * 5, false, Random(it))) }
+        for (game in games) {
+            val params = GameParameters(game)
+            val expected = InPlaceIDAStar().run(Node.create(game, params, LinearConflict())).path
+            for (numThreads in listOf(1, 4)) {
+                val result = ParallelIDAStar(numThreads).run(Node.create(game, params, LinearConflict()))
+                assertTrue(result.path.isGoal)
+                assertEquals(expected.moves, result.path.moves)
+                val perWorker = result.nodesExploredPerWorker
+                if (perWorker != null) {
+                    assertTrue(perWorker.size <= numThreads)
+                    assertTrue(perWorker.sum() < result.nodesExplored)
+                }
+            }
+        }
+    }
+
+    @Test
+    fun shallow() {
+        val solved = ClassicGame(3, 3, listOf(1, 2, 3, 4, 5, 6, 7, 8, 0))
+        val start = Node.create(solved, GameParameters(solved), ManhattanDistance())
+        assertSame(start, ParallelIDAStar().run(start).path)
+        // solution is found while building the frontier
+        val oneMove = ClassicGame(3, 3, listOf(1, 2, 3, 4, 5, 6, 7, 0, 8))
+        val result = ParallelIDAStar(4).run(Node.create(oneMove, GameParameters(oneMove), ManhattanDistance()))
+        assertEquals(1, result.path.moves)
+    }
+}
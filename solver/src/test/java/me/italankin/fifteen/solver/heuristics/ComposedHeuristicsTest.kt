@@ -0,0 +1,232 @@
+package me.italankin.fifteen.solver.heuristics
+
+import me.italankin.fifteen.game.ClassicGame
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler
+import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.Node
+import me.italankin.fifteen.solver.PackedNode
+import me.italankin.fifteen.solver.algorithm.idastar.IDAStar
+import me.italankin.fifteen.solver.heuristics.pdb.PatternDatabase
+import org.junit.Assert.*
+import org.junit.Test
+import kotlin.random.Random
+
+class ComposedHeuristicsTest {
+
+    @Test
+    fun calc() {
+        val game = ClassicGame(4, 4, false, ShuffleScrambler(0))
+        val params = GameParameters(game)
+        val state = game.state.toIntArray()
+        val md = ManhattanDistance().calc(state, params)
+        val lc = LinearConflict().calc(state, params)
+        val inv = Inversions().calc(state, params)
+        val heuristics = (2 * ManhattanDistance() + LinearConflict()) / 3 + Inversions() * 4
+        assertEquals((2 * md + lc) / 3 + inv * 4, heuristics.calc(state, params))
+        val values = IntArray(3)
+        assertEquals((2 * md + lc) / 3 + inv * 4, (heuristics as ComposedHeuristics).calc(state, params, values))
+        assertArrayEquals(intArrayOf(md, lc, inv), values)
+    }
+
+    @Test
+    fun flattened() {
+        val heuristics = (ManhattanDistance() + LinearConflict()) + 2 * (Inversions() + HammingDistance() / 2)
+        heuristics as ComposedHeuristics
+        assertEquals(4, heuristics.size)
+        assertTrue(heuristics.components.none { it is ComposedHeuristics })
+        assertNull(ComposedHeuristics.newValues(ManhattanDistance()))
+        assertEquals(4, ComposedHeuristics.newValues(heuristics)!!.size)
+    }
+
+    @Test
+    fun toStringFormat() {
+        val heuristics = 2 * ManhattanDistance() + LinearConflict() / 2
+        assertEquals("2 * (ManhattanDistance) + (LinearConflict) / 2", heuristics.toString())
+    }
+
+    @Test
+    fun incremental() {
+        val heuristics = 2 * ManhattanDistance() + LinearConflict() / 2 + Inversions()
+        val random = Random(0)
+        for (game in testGames()) {
+            val params = GameParameters(game)
+            walk(Node(game, params, heuristics), random)
+            if (PackedNode.isSupported(params)) {
+                walk(PackedNode(game, params, heuristics), random)
+            }
+        }
+    }
+
+    @Test
+    fun fused() {
+        val heuristics = 2 * ManhattanDistance() + LinearConflict() / 2 + HammingDistance() + Inversions()
+        val fused = heuristics.fuse()
+        assertTrue((fused as ComposedHeuristics).fused)
+        assertEquals(heuristics.toString(), fused.toString())
+        val random = Random(0)
+        for (game in testGames()) {
+            val params = GameParameters(game)
+            val state = game.state.toIntArray()
+            assertEquals(heuristics.calc(state, params), fused.calc(state, params))
+            walk(Node(game, params, fused), random)
+            if (PackedNode.isSupported(params)) {
+                assertEquals(heuristics.calc(state, params), fused.calc(PackedNode.pack(state, params), params))
+                walk(PackedNode(game, params, fused), random)
+            }
+        }
+        assertSame(fused, fused.fuse())
+        val md = ManhattanDistance()
+        assertSame(md, md.fuse())
+    }
+
+    @Test
+    fun max() {
+        val heuristics = max(HammingDistance(), max(ManhattanDistance(), 2 * Inversions()), LinearConflict())
+        heuristics as ComposedHeuristics
+        // sorted by cost
+        assertEquals("max(HammingDistance, ManhattanDistance, LinearConflict, 2 * (Inversions))", heuristics.toString())
+        assertEquals(4, heuristics.size)
+        val game = ClassicGame(4, 4, false, ShuffleScrambler(0))
+        val params = GameParameters(game)
+        val state = game.state.toIntArray()
+        val expected = listOf(HammingDistance(), ManhattanDistance(), 2 * Inversions(), LinearConflict())
+            .maxOf { it.calc(state, params) }
+        assertEquals(expected, heuristics.calc(state, params))
+        walk(Node(game, params, heuristics), Random(0))
+        walk(PackedNode(game, params, heuristics), Random(0))
+    }
+
+    @Test
+    fun stateful() {
+        val heuristics = max(ManhattanDistance(), WalkingDistance()) + 2 * WalkingDistance()
+        heuristics as ComposedHeuristics
+        assertEquals(3, heuristics.size)
+        assertEquals(3 + 2 * WalkingDistance().dataSize, heuristics.vectorSize)
+        assertEquals(heuristics.vectorSize, ComposedHeuristics.newValues(heuristics)!!.size)
+        val random = Random(0)
+        for (game in testGames()) {
+            if (game.width > WalkingDistance.MAX_SIZE || game.height > WalkingDistance.MAX_SIZE) continue
+            val params = GameParameters(game)
+            walk(Node(game, params, heuristics), random)
+            walk(Node(game, params, heuristics.fuse()), random)
+            if (PackedNode.isSupported(params)) {
+                walk(PackedNode(game, params, heuristics), random)
+                walk(PackedNode(game, params, heuristics.fuse()), random)
+            }
+        }
+    }
+
+    @Test
+    fun lazyMax() {
+        val game = ClassicGame(4, 4, false, ShuffleScrambler(0))
+        val params = GameParameters(game)
+        val expensive = CountingHeuristics(LinearConflict())
+        val heuristics = max(ManhattanDistance(), expensive) as ComposedHeuristics
+        val start = Node(game, params, heuristics)
+        val child = start.children().filterNotNull().first()
+        val md = ManhattanDistance().calc(child.state, params)
+        val calls = expensive.calls
+        // manhattan distance exceeds the bound, linear conflict is not calculated
+        val pruned = start.children(md - 1).filterNotNull().first()
+        assertEquals(calls, expensive.calls)
+        assertTrue(pruned.heuristicsValue > md - 1)
+        assertTrue(pruned.heuristicsValue <= child.heuristicsValue)
+        // manhattan distance is within the bound, the value is exact
+        val exact = start.children(md).filterNotNull().first()
+        assertTrue(expensive.calls > calls)
+        assertEquals(child.heuristicsValue, exact.heuristicsValue)
+    }
+
+    @Test
+    fun cheapFirst() {
+        val pdb = PatternDatabase(PatternDatabase.PARTITION_4X4_555)
+        val heuristics = max(pdb, max(WalkingDistance(), Inversions()), ManhattanDistance() + HammingDistance())
+        assertEquals(
+            "max(ManhattanDistance + HammingDistance, WalkingDistance, PatternDatabase(5-5-5), Inversions)",
+            heuristics.toString()
+        )
+        assertEquals(1 + 1 + 3 + 4 + 5, heuristics.cost)
+    }
+
+    @Test
+    fun lazyMaxSkipsExpensive() {
+        val game = ClassicGame(4, 4, false, ShuffleScrambler(0))
+        val params = GameParameters(game)
+        for (fused in listOf(false, true)) {
+            val expensive = CountingHeuristics(LinearConflict(), cost = 10)
+            // the expensive heuristics is evaluated last, regardless of the order of arguments
+            val heuristics = max(expensive, ManhattanDistance()).let { if (fused) it.fuse() else it }
+            val start = Node(game, params, heuristics)
+            val md = ManhattanDistance().calc(start.children().filterNotNull().first().state, params)
+            val calls = expensive.calls
+            val pruned = start.children(md - 1).filterNotNull().first()
+            assertEquals(calls, expensive.calls)
+            assertTrue(pruned.heuristicsValue > md - 1)
+            start.children(md)
+            assertTrue(expensive.calls > calls)
+        }
+    }
+
+    @Test
+    fun lazyMaxIDAStar() {
+        val game = ClassicGame(3, 3, false, ShuffleScrambler(1))
+        val params = GameParameters(game)
+        val expensive = CountingHeuristics(LinearConflict())
+        val heuristics = max(ManhattanDistance(), expensive)
+        val expected = IDAStar().run(Node.create(game, params, LinearConflict()))
+        val actual = IDAStar().run(Node.create(game, params, heuristics))
+        assertEquals(expected.path.moves, actual.path.moves)
+        // nodes, pruned by manhattan distance, are not checked by linear conflict
+        assertTrue(expensive.calls < actual.nodesExplored)
+    }
+
+    @Test
+    fun packed() {
+        testPacked(ManhattanDistance() + 2 * LinearConflict() / 3)
+    }
+
+    /**
+     * Random walk from [start], checking incremental values of every child against full calculation
+     */
+    private fun walk(start: Node, random: Random) {
+        val heuristics = start.heuristics
+        val params = start.gameParameters
+        var node = start
+        repeat(200) {
+            val children = node.children().filterNotNull()
+            for (child in children) {
+                assertEquals(heuristics.calc(child.state, params), child.heuristicsValue)
+                for ((i, component) in (heuristics as ComposedHeuristics).components.withIndex()) {
+                    assertEquals(component.calc(child.state, params), child.heuristicsComponents!![i])
+                }
+            }
+            node = children.random(random)
+        }
+    }
+
+    private class CountingHeuristics(
+        private val heuristics: Heuristics,
+        override val cost: Int = heuristics.cost
+    ) : Heuristics {
+
+        var calls = 0
+
+        override fun calc(state: IntArray, params: GameParameters): Int {
+            calls++
+            return heuristics.calc(state, params)
+        }
+
+        override fun calc(
+            state: IntArray,
+            params: GameParameters,
+            prevValue: Int,
+            prevZeroIndex: Int,
+            newZeroIndex: Int
+        ): Int {
+            calls++
+            return heuristics.calc(state, params, prevValue, prevZeroIndex, newZeroIndex)
+        }
+
+        override fun toString(): String = heuristics.toString()
+    }
+}
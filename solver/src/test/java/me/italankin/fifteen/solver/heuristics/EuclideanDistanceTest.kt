@@ -21,4 +21,9 @@ class EuclideanDistanceTest {
         val actual = EuclideanDistance().calc(game.state.toIntArray(), GameParameters(game))
         assertEquals(31, actual)
     }
+
+    @Test
+    fun packed() {
+        testPacked(EuclideanDistance())
+    }
 }
@@ -21,5 +21,9 @@ class HammingDistanceTest {
         val actual = HammingDistance().calc(game.state.toIntArray(), GameParameters(game))
         assertEquals(14, actual)
     }
-}
 
+    @Test
+    fun packed() {
+        testPacked(HammingDistance())
+    }
+}
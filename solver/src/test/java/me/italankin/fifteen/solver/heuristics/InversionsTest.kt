@@ -21,5 +21,9 @@ class InversionsTest {
         val actual = Inversions().calc(game.state.toIntArray(), GameParameters(game))
         assertEquals(32, actual)
     }
-}
 
+    @Test
+    fun packed() {
+        testPacked(Inversions())
+    }
+}
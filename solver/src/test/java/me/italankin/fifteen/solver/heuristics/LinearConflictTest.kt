@@ -4,6 +4,7 @@ import me.italankin.fifteen.game.BaseGame
 import me.italankin.fifteen.solver.GameParameters
 import org.junit.Assert.assertEquals
 import org.junit.Test
+import kotlin.random.Random
 
 class LinearConflictTest {
 
@@ -69,6 +70,25 @@ class LinearConflictTest {
         }
     }
 
+    @Test
+    fun incremental() {
+        val games = testGames() +
+            customGoalGame(listOf(14, 13, 15, 7, 11, 12, 9, 5, 6, 0, 2, 1, 4, 8, 10, 3))
+        val random = Random(0)
+        val heuristics = LinearConflict()
+        for (game in games) {
+            // random walk, checking every move in both directions
+            repeat(200) {
+                testIncremental(game, randomMove(game, random), heuristics)
+            }
+        }
+    }
+
+    @Test
+    fun packed() {
+        testPacked(LinearConflict())
+    }
+
     private fun customGoalGame(state: List<Int>): BaseGame {
         val goal = (0..15).toList() // version of the game from the paper, 0 is at index 0
         return BaseGame(4, 4, state, goal)
@@ -38,4 +38,9 @@ class ManhattanDistanceTest {
             ManhattanDistance()
         )
     }
+
+    @Test
+    fun packed() {
+        testPacked(ManhattanDistance())
+    }
 }
@@ -21,5 +21,9 @@ class RelaxedAdjacencyTest {
         val actual = RelaxedAdjacency().calc(game.state.toIntArray(), GameParameters(game))
         assertEquals(16, actual)
     }
-}
 
+    @Test
+    fun packed() {
+        testPacked(RelaxedAdjacency())
+    }
+}
@@ -1,9 +1,41 @@
 package me.italankin.fifteen.solver.heuristics
 
+import me.italankin.fifteen.game.ClassicGame
 import me.italankin.fifteen.game.Game
+import me.italankin.fifteen.game.SnakeGame
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler
 import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.PackedNode
+import org.junit.Assert.assertArrayEquals
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertNotEquals
+import kotlin.random.Random
+
+/**
+ * @return new scrambled games of different sizes and goals, including games with a missing tile
+ */
+fun testGames(): List<Game> {
+    val scrambler = ShuffleScrambler(0)
+    return listOf(
+        ClassicGame(3, 3, false, scrambler),
+        ClassicGame(4, 4, false, scrambler),
+        ClassicGame(5, 5, false, scrambler),
+        ClassicGame(4, 4, 7, scrambler),
+        ClassicGame(4, 3, 5, scrambler),
+        SnakeGame(4, 4, 3, scrambler),
+    )
+}
+
+/**
+ * @return index of a random cell, adjacent to the blank cell of [game]
+ */
+fun randomMove(game: Game, random: Random): Int {
+    val zeroIndex = game.state.indexOf(0)
+    val moves = listOf(zeroIndex - game.width, zeroIndex + game.width, zeroIndex - 1, zeroIndex + 1)
+        .filter { it in 0 until game.size }
+        .filter { it / game.width == zeroIndex / game.width || it % game.width == zeroIndex % game.width }
+    return moves.random(random)
+}
 
 fun testIncremental(
     game: Game,
@@ -13,9 +45,52 @@ fun testIncremental(
     val params = GameParameters(game)
     val oldZeroIndex = game.state.indexOf(0)
     val oldValue = heuristics.calc(game.state.toIntArray(), params)
+    val oldPackedValue = heuristics.calc(PackedNode.pack(game.state.toIntArray(), params), params)
     val newIndex = game.move(moveIndex)
     // make sure we actually made a move
     assertNotEquals(moveIndex, newIndex)
-    val newValue = heuristics.calc(game.state.toIntArray(), params, oldValue, oldZeroIndex, game.state.indexOf(0))
-    assertEquals(heuristics.calc(game.state.toIntArray(), params), newValue)
+    val newState = game.state.toIntArray()
+    val newZeroIndex = game.state.indexOf(0)
+    val newValue = heuristics.calc(newState, params, oldValue, oldZeroIndex, newZeroIndex)
+    assertEquals(heuristics.calc(newState, params), newValue)
+    if (PackedNode.isSupported(params)) {
+        val packed = PackedNode.pack(newState, params)
+        val newPackedValue = heuristics.calc(packed, params, oldPackedValue, oldZeroIndex, newZeroIndex)
+        assertEquals(newValue, newPackedValue)
+    }
+}
+
+/**
+ * Check incremental calculation of [heuristics] with data against full calculation after a move of a tile at
+ * [moveIndex], with data placed at a non-zero offset and updated in place
+ */
+fun testStateful(
+    game: Game,
+    moveIndex: Int,
+    heuristics: StatefulHeuristics
+) {
+    val params = GameParameters(game)
+    val offset = 1
+    val oldZeroIndex = game.state.indexOf(0)
+    val data = IntArray(offset + heuristics.dataSize)
+    val oldValue = heuristics.calc(game.state.toIntArray(), params, data, offset)
+    val packedData = IntArray(offset + heuristics.dataSize)
+    val oldPackedValue = heuristics.calc(PackedNode.pack(game.state.toIntArray(), params), params, packedData, offset)
+    assertEquals(oldValue, oldPackedValue)
+    val newIndex = game.move(moveIndex)
+    assertNotEquals(moveIndex, newIndex)
+    val newState = game.state.toIntArray()
+    val newZeroIndex = game.state.indexOf(0)
+    val newValue = heuristics.calc(newState, params, oldValue, data, data, offset, oldZeroIndex, newZeroIndex)
+    val expectedData = IntArray(offset + heuristics.dataSize)
+    assertEquals(heuristics.calc(newState, params, expectedData, offset), newValue)
+    assertArrayEquals(expectedData, data)
+    if (PackedNode.isSupported(params)) {
+        val packed = PackedNode.pack(newState, params)
+        val newPackedValue = heuristics.calc(
+            packed, params, oldPackedValue, packedData, packedData, offset, oldZeroIndex, newZeroIndex
+        )
+        assertEquals(newValue, newPackedValue)
+        assertArrayEquals(expectedData, packedData)
+    }
 }
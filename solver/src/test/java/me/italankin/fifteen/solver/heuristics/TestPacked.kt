@@ -0,0 +1,18 @@
+package me.italankin.fifteen.solver.heuristics
+
+import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.PackedNode
+import org.junit.Assert.assertEquals
+
+/**
+ * Check [heuristics] gives the same values for packed and unpacked states, including games with a missing tile
+ */
+fun testPacked(heuristics: Heuristics) {
+    for (game in testGames()) {
+        val params = GameParameters(game)
+        if (!PackedNode.isSupported(params)) continue
+        val state = game.state.toIntArray()
+        val packed = PackedNode.pack(state, params)
+        assertEquals(heuristics.calc(state, params), heuristics.calc(packed, params))
+    }
+}
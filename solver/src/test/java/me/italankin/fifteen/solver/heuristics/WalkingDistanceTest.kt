@@ -0,0 +1,131 @@
+package me.italankin.fifteen.solver.heuristics
+
+import me.italankin.fifteen.game.BaseGame
+import me.italankin.fifteen.game.ClassicGame
+import me.italankin.fifteen.game.SnakeGame
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler
+import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.Node
+import me.italankin.fifteen.solver.Solver
+import me.italankin.fifteen.solver.algorithm.idastar.InPlaceIDAStar
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertThrows
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.random.Random
+
+class WalkingDistanceTest {
+
+    @Test
+    fun goal() {
+        val game = ClassicGame(4, 4, ClassicGame.goal(4, 4))
+        assertEquals(0, WalkingDistance().calc(game.state.toIntArray(), GameParameters(game)))
+    }
+
+    @Test
+    fun calc() {
+        // one vertical and one horizontal move from the goal
+        val game = ClassicGame(
+            4, 4,
+            listOf(
+                1, 2, 3, 4,
+                5, 6, 7, 8,
+                9, 10, 11, 0,
+                13, 14, 15, 12,
+            )
+        )
+        assertEquals(1, WalkingDistance().calc(game.state.toIntArray(), GameParameters(game)))
+        val game2 = ClassicGame(
+            4, 4,
+            listOf(
+                1, 2, 3, 4,
+                5, 6, 7, 8,
+                9, 10, 0, 11,
+                13, 14, 15, 12,
+            )
+        )
+        assertEquals(2, WalkingDistance().calc(game2.state.toIntArray(), GameParameters(game2)))
+    }
+
+    @Test
+    fun admissible() {
+        val heuristics = WalkingDistance()
+        val solver = Solver(LinearConflict(), InPlaceIDAStar())
+        val scrambler = ShuffleScrambler(0)
+        repeat(30) {
+            val game = ClassicGame(3, 3, false, scrambler)
+            val params = GameParameters(game)
+            val state = game.state.toIntArray()
+            val value = heuristics.calc(state, params)
+            assertTrue(value <= solver.solve(game).moves)
+            assertTrue(value >= ManhattanDistance().calc(state, params))
+        }
+    }
+
+    @Test
+    fun dominatesManhattanDistance() {
+        val scrambler = ShuffleScrambler(0)
+        val games = listOf(
+            ClassicGame(4, 4, false, scrambler),
+            ClassicGame(4, 3, false, scrambler),
+            SnakeGame(4, 4, false, scrambler),
+            BaseGame(4, 4, listOf(14, 13, 15, 7, 11, 12, 9, 5, 6, 0, 2, 1, 4, 8, 10, 3), (0..15).toList()),
+        )
+        for (game in games) {
+            val params = GameParameters(game)
+            val state = game.state.toIntArray()
+            assertTrue(WalkingDistance().calc(state, params) >= ManhattanDistance().calc(state, params))
+        }
+    }
+
+    @Test
+    fun incremental() {
+        val scrambler = ShuffleScrambler(0)
+        val games = listOf(
+            ClassicGame(3, 3, false, scrambler),
+            ClassicGame(4, 4, false, scrambler),
+            ClassicGame(3, 4, 5, scrambler),
+            SnakeGame(4, 4, 3, scrambler),
+        )
+        val random = Random(0)
+        val heuristics = WalkingDistance()
+        for (game in games) {
+            repeat(200) {
+                testStateful(game, randomMove(game, random), heuristics)
+            }
+        }
+    }
+
+    @Test
+    fun nodes() {
+        // stateful heuristics are composed by root nodes and updated from their data
+        val heuristics = WalkingDistance()
+        val random = Random(0)
+        for (game in testGames()) {
+            if (game.width > WalkingDistance.MAX_SIZE || game.height > WalkingDistance.MAX_SIZE) continue
+            val params = GameParameters(game)
+            var node = Node.create(game, params, heuristics)
+            assertTrue(node.heuristics is ComposedHeuristics)
+            repeat(200) {
+                val children = node.children().filterNotNull()
+                for (child in children) {
+                    assertEquals(heuristics.calc(child.state, params), child.heuristicsValue)
+                }
+                node = children.random(random)
+            }
+        }
+    }
+
+    @Test
+    fun packed() {
+        testPacked(WalkingDistance())
+    }
+
+    @Test
+    fun unsupported() {
+        val game = ClassicGame(5, 5, false, ShuffleScrambler(0))
+        assertThrows(IllegalArgumentException::class.java) {
+            WalkingDistance().calc(game.state.toIntArray(), GameParameters(game))
+        }
+    }
+}
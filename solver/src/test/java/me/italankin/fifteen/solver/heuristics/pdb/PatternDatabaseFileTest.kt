@@ -0,0 +1,72 @@
+package me.italankin.fifteen.solver.heuristics.pdb
+
+import me.italankin.fifteen.game.ClassicGame
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler
+import me.italankin.fifteen.solver.GameParameters
+import org.junit.Assert.*
+import org.junit.Test
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.StandardOpenOption
+
+class PatternDatabaseFileTest {
+
+    @Test
+    fun writeAndMap() {
+        val dir = Files.createTempDirectory("pdb")
+        val path = dir.resolve("test.pdb")
+        val patterns = listOf(Pattern(3, 3, 8, intArrayOf(0, 1, 2)), Pattern(3, 3, 8, intArrayOf(3, 4, 5, 6, 7)))
+        val tables = patterns.map(PatternDatabaseGenerator()::generate)
+        PatternDatabaseFile.write(path, patterns, tables)
+        val file = PatternDatabaseFile.map(path)
+        assertEquals(3, file.width)
+        assertEquals(3, file.height)
+        assertEquals(8, file.blankCell)
+        assertEquals(patterns, file.patterns)
+        for ((table, buffer) in tables.zip(file.tables)) {
+            assertEquals(table.size, buffer.capacity())
+            for (i in table.indices) {
+                assertEquals(table[i], buffer.get(i))
+            }
+        }
+    }
+
+    @Test
+    fun corrupted() {
+        val dir = Files.createTempDirectory("pdb")
+        val path = dir.resolve("test.pdb")
+        val patterns = listOf(Pattern(3, 3, 8, intArrayOf(0, 1, 2)))
+        PatternDatabaseFile.write(path, patterns, patterns.map(PatternDatabaseGenerator()::generate))
+        val bytes = Files.readAllBytes(path)
+        bytes[bytes.size - 1] = (bytes[bytes.size - 1] + 1).toByte()
+        Files.write(path, bytes, StandardOpenOption.TRUNCATE_EXISTING)
+        assertThrows(IOException::class.java) { PatternDatabaseFile.map(path) }
+        // can be skipped
+        PatternDatabaseFile.map(path, verify = false)
+        Files.write(path, byteArrayOf(1, 2, 3, 4, 5, 6, 7, 8), StandardOpenOption.TRUNCATE_EXISTING)
+        assertThrows(IOException::class.java) { PatternDatabaseFile.map(path) }
+    }
+
+    @Test
+    fun directory() {
+        val dir = Files.createTempDirectory("pdb")
+        val groups = listOf(listOf(0, 1, 2, 3), listOf(4, 5, 6, 7))
+        val inMemory = PatternDatabase(groups)
+        val mapped = PatternDatabase(groups, dir)
+        val scrambler = ShuffleScrambler(0)
+        repeat(10) {
+            val game = ClassicGame(3, 3, false, scrambler)
+            val params = GameParameters(game)
+            val state = game.state.toIntArray()
+            assertEquals(inMemory.calc(state, params), mapped.calc(state, params))
+        }
+        val files = Files.list(dir).use { it.toList() }
+        assertEquals(1, files.size)
+        assertEquals(2, PatternDatabaseFile.map(files[0]).patterns.size)
+        // reuse existing file
+        val game = ClassicGame(3, 3, false, scrambler)
+        val params = GameParameters(game)
+        val state = game.state.toIntArray()
+        assertEquals(inMemory.calc(state, params), PatternDatabase(groups, dir).calc(state, params))
+    }
+}
@@ -0,0 +1,53 @@
+package me.italankin.fifteen.solver.heuristics.pdb
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class PatternDatabaseGeneratorTest {
+
+    @Test
+    fun sameTablesForAnyNumberOfThreads() {
+        val patterns = listOf(
+            Pattern(3, 3, 8, intArrayOf(0, 1, 2, 3)),
+            Pattern(4, 3, 0, intArrayOf(1, 2, 5, 6, 9)),
+            Pattern(4, 4, 15, intArrayOf(0, 1, 4, 5)),
+        )
+        for (pattern in patterns) {
+            val expected = PatternDatabaseGenerator(numThreads = 1).generate(pattern)
+            for (numThreads in listOf(2, 3, 8)) {
+                assertArrayEquals(expected, PatternDatabaseGenerator(numThreads = numThreads).generate(pattern))
+            }
+            assertEquals(0, expected[pattern.rank(pattern.goal)].toInt())
+            assertTrue(expected.all { it >= 0 })
+        }
+    }
+
+    @Test
+    fun listener() {
+        val pattern = Pattern(3, 3, 8, intArrayOf(0, 1, 2, 3, 4))
+        val layers = ArrayList<PatternDatabaseGenerator.Layer>()
+        var finished = false
+        val listener = object : PatternDatabaseGenerator.Listener {
+            override fun onLayerCompleted(pattern: Pattern, layer: PatternDatabaseGenerator.Layer) {
+                layers += layer
+            }
+
+            override fun onGenerationFinished(pattern: Pattern, timeMs: Long) {
+                finished = true
+            }
+        }
+        val table = PatternDatabaseGenerator(numThreads = 2, listener = listener).generate(pattern)
+        assertTrue(finished)
+        assertEquals((0 until layers.size).toList(), layers.map { it.distance })
+        assertEquals(pattern.placements.toLong(), layers.last().totalPlacements)
+        assertEquals(pattern.placements.toLong(), layers.sumOf { it.placements })
+        assertEquals(layers.last { it.placements > 0 }.distance, table.max().toInt())
+    }
+
+    @Test
+    fun memoryCeiling() {
+        val pattern = Pattern(4, 4, 15, intArrayOf(0, 1, 2, 3, 4, 5, 6))
+        val generator = PatternDatabaseGenerator(maxMemory = 1 shl 20)
+        assertThrows(IllegalStateException::class.java) { generator.generate(pattern) }
+    }
+}
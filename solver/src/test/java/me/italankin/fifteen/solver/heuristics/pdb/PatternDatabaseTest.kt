@@ -0,0 +1,218 @@
+package me.italankin.fifteen.solver.heuristics.pdb
+
+import me.italankin.fifteen.game.ClassicGame
+import me.italankin.fifteen.game.SnakeGame
+import me.italankin.fifteen.game.scrambler.ShuffleScrambler
+import me.italankin.fifteen.solver.GameParameters
+import me.italankin.fifteen.solver.Node
+import me.italankin.fifteen.solver.PackedNode
+import me.italankin.fifteen.solver.algorithm.astar.AStar
+import me.italankin.fifteen.solver.heuristics.ManhattanDistance
+import me.italankin.fifteen.solver.heuristics.ComposedHeuristics
+import me.italankin.fifteen.solver.heuristics.randomMove
+import me.italankin.fifteen.solver.heuristics.testIncremental
+import me.italankin.fifteen.solver.heuristics.testStateful
+import org.junit.Assert.*
+import org.junit.Test
+import kotlin.random.Random
+
+class PatternDatabaseTest {
+
+    private val partition4x4 = listOf(
+        listOf(0, 1, 4, 5),
+        listOf(2, 3, 6, 7),
+        listOf(8, 9, 12, 13),
+        listOf(10, 11, 14),
+    )
+
+    @Test
+    fun rank() {
+        val pattern = Pattern(3, 3, 8, intArrayOf(0, 4, 7))
+        val ranks = HashSet<Int>()
+        for (rank in 0 until pattern.placements) {
+            val positions = pattern.unrank(rank)
+            assertEquals(rank, pattern.rank(positions))
+            ranks += rank
+        }
+        assertEquals(9 * 8 * 7, ranks.size)
+    }
+
+    @Test
+    fun goal() {
+        val games = listOf(
+            ClassicGame(4, 4, listOf(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 0)),
+            SnakeGame(4, 4, listOf(1, 2, 3, 4, 8, 7, 6, 5, 9, 10, 11, 12, 0, 15, 14, 13)),
+        )
+        for (game in games) {
+            val params = GameParameters(game)
+            assertEquals(0, PatternDatabase(partition4x4).calc(game.state.toIntArray(), params))
+        }
+    }
+
+    @Test
+    fun exact() {
+        // single group of all tiles gives exact distances
+        val heuristics = PatternDatabase(listOf((0 until 9).toList()))
+        val scrambler = ShuffleScrambler(0)
+        repeat(10) {
+            val game = ClassicGame(3, 3, false, scrambler)
+            val params = GameParameters(game)
+            val solution = AStar().run(Node(game, params, ManhattanDistance())).path
+            assertEquals(solution.moves, heuristics.calc(game.state.toIntArray(), params))
+        }
+    }
+
+    @Test
+    fun admissible() {
+        val heuristics = PatternDatabase(listOf(listOf(0, 1, 2, 3), listOf(4, 5, 6, 7)))
+        val scrambler = ShuffleScrambler(1)
+        repeat(10) {
+            val game = ClassicGame(3, 3, false, scrambler)
+            val params = GameParameters(game)
+            val state = game.state.toIntArray()
+            val value = heuristics.calc(state, params)
+            assertTrue(value >= ManhattanDistance().calc(state, params) - manhattanOfUncovered(game, params))
+            val solution = AStar().run(Node(game, params, ManhattanDistance())).path
+            assertTrue(value <= solution.moves)
+        }
+    }
+
+    @Test
+    fun dominatesManhattan() {
+        val heuristics = PatternDatabase(partition4x4)
+        val scrambler = ShuffleScrambler(2)
+        repeat(20) {
+            val game = ClassicGame(4, 4, false, scrambler)
+            val params = GameParameters(game)
+            val state = game.state.toIntArray()
+            assertTrue(heuristics.calc(state, params) >= ManhattanDistance().calc(state, params))
+        }
+    }
+
+    @Test
+    fun incremental() {
+        val heuristics = PatternDatabase(partition4x4)
+        val scrambler = ShuffleScrambler(3)
+        repeat(10) {
+            val game = ClassicGame(4, 4, false, scrambler)
+            val zeroIndex = game.state.indexOf(0)
+            val moves = listOf(zeroIndex - 4, zeroIndex + 4).filter { m -> m in 0 until 16 } +
+                    listOf(zeroIndex - 1, zeroIndex + 1).filter { m -> m in 0 until 16 && m / 4 == zeroIndex / 4 }
+            for (move in moves) {
+                testIncremental(ClassicGame(4, 4, game.state.toList()), move, heuristics)
+            }
+        }
+        testIncremental(
+            SnakeGame(4, 4, listOf(1, 2, 3, 4, 8, 7, 6, 5, 9, 10, 11, 12, 15, 14, 0, 13)),
+            15,
+            heuristics
+        )
+    }
+
+    @Test
+    fun stateful() {
+        val heuristics = PatternDatabase(partition4x4)
+        val scrambler = ShuffleScrambler(5)
+        val games = listOf(
+            ClassicGame(4, 4, false, scrambler),
+            ClassicGame(4, 4, 7, scrambler),
+            SnakeGame(4, 4, 3, scrambler),
+        )
+        val random = Random(0)
+        for (game in games) {
+            repeat(200) {
+                testStateful(game, randomMove(game, random), heuristics)
+            }
+        }
+    }
+
+    @Test
+    fun nodes() {
+        // values are updated from positions of groups, kept by nodes
+        val heuristics = PatternDatabase(partition4x4)
+        val random = Random(0)
+        val scrambler = ShuffleScrambler(6)
+        for (game in listOf(ClassicGame(4, 4, false, scrambler), ClassicGame(4, 4, 5, scrambler))) {
+            val params = GameParameters(game)
+            for (start in listOf(Node(game, params, heuristics), PackedNode(game, params, heuristics))) {
+                var node = start
+                assertTrue(node.heuristics is ComposedHeuristics)
+                repeat(200) {
+                    val children = node.children().filterNotNull()
+                    for (child in children) {
+                        assertEquals(heuristics.calc(child.state, params), child.heuristicsValue)
+                    }
+                    node = children.random(random)
+                }
+            }
+        }
+    }
+
+    @Test
+    fun boards() {
+        // tables of different boards are kept at the same time
+        val heuristics = PatternDatabase(listOf(listOf(0, 1, 2, 3, 4), listOf(5, 6, 7, 8)))
+        val scrambler = ShuffleScrambler(7)
+        val games = List(6) {
+            when (it % 3) {
+                0 -> ClassicGame(3, 3, false, scrambler)
+                1 -> ClassicGame(3, 3, 4, scrambler)
+                else -> ClassicGame(4, 3, false, scrambler)
+            }
+        }
+        val expected = games.map { heuristics.calc(it.state.toIntArray(), GameParameters(it)) }
+        repeat(3) {
+            for ((game, value) in games.zip(expected)) {
+                val params = GameParameters(game)
+                assertEquals(value, heuristics.calc(game.state.toIntArray(), params))
+                assertEquals(value, PatternDatabase(listOf(listOf(0, 1, 2, 3, 4), listOf(5, 6, 7, 8)))
+                    .calc(game.state.toIntArray(), params))
+            }
+        }
+    }
+
+    @Test
+    fun packed() {
+        val heuristics = PatternDatabase(partition4x4)
+        val scrambler = ShuffleScrambler(0)
+        val games = listOf(
+            ClassicGame(4, 4, false, scrambler),
+            ClassicGame(4, 4, 7, scrambler),
+            SnakeGame(4, 4, 3, scrambler),
+        )
+        for (game in games) {
+            val params = GameParameters(game)
+            val state = game.state.toIntArray()
+            assertEquals(heuristics.calc(state, params), heuristics.calc(PackedNode.pack(state, params), params))
+        }
+    }
+
+    @Test
+    fun solve() {
+        val heuristics = PatternDatabase(partition4x4)
+        val scrambler = ShuffleScrambler(4)
+        repeat(3) {
+            val game = ClassicGame(3, 3, false, scrambler)
+            val params = GameParameters(game)
+            val expected = AStar().run(Node(game, params, ManhattanDistance())).path
+            val pdb = PatternDatabase(listOf(listOf(0, 1, 3, 4), listOf(2, 5, 6, 7)))
+            val actual = AStar().run(Node.create(game, params, pdb))
+            assertEquals(expected.moves, actual.path.moves)
+        }
+        assertEquals("PatternDatabase(4-4-4-3)", heuristics.toString())
+    }
+
+    private fun manhattanOfUncovered(game: ClassicGame, params: GameParameters): Int {
+        val state = game.state.toIntArray()
+        var result = 0
+        for (i in state.indices) {
+            val n = state[i]
+            if (n == 0) continue
+            val goal = params.goalIndices[n]
+            if (goal >= 8) {
+                result += Math.abs(i % 3 - goal % 3) + Math.abs(i / 3 - goal / 3)
+            }
+        }
+        return result
+    }
+}